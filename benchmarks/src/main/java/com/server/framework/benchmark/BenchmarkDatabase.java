@@ -0,0 +1,63 @@
+package com.server.framework.benchmark;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.server.framework.common.AppProperties;
+
+// In-memory H2 database for the DataAccess and IdAllocator benchmarks. Spring is not started: AppProperties is handed a plain environment
+// holding the datasource keys, so every other setting falls back to the same default the server uses. Identifiers keep their case, as
+// the framework builds its SQL from the mixed case table and column names.
+public final class BenchmarkDatabase
+{
+	private static final String JDBC_URL = "jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=FALSE";
+
+	private static boolean isStarted;
+
+	private BenchmarkDatabase()
+	{
+	}
+
+	public static synchronized void start() throws Exception
+	{
+		if(isStarted)
+		{
+			return;
+		}
+
+		Map<String, Object> propertyMap = new HashMap<>();
+		propertyMap.put("spring.datasource.url", JDBC_URL);
+		propertyMap.put("spring.datasource.username", "sa");
+		propertyMap.put("spring.datasource.password", "");
+
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("benchmarks", propertyMap));
+
+		AppProperties appProperties = new AppProperties();
+		Field envField = AppProperties.class.getDeclaredField("env");
+		envField.setAccessible(true);
+		envField.set(appProperties, environment);
+		appProperties.init();
+
+		execute("CREATE TABLE IF NOT EXISTS BatchTable (AccountId BIGINT PRIMARY KEY, BatchStart BIGINT NOT NULL)");
+		isStarted = true;
+	}
+
+	public static void execute(String... sqls) throws Exception
+	{
+		try(Connection connection = DriverManager.getConnection(JDBC_URL, "sa", ""); Statement statement = connection.createStatement())
+		{
+			for(String sql : sqls)
+			{
+				statement.execute(sql);
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.server.framework.job;
+
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Scheduling and cancelling one timer while 1M others due within the hour are pending, on the TimingWheel and on the DelayQueue that
+// RefreshManager used before it. Cancelling is what JobService does for a deleted job; on a DelayQueue it is a linear remove.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TimingWheelBenchmark
+{
+	private static final int PENDING_TIMER_COUNT = 1000000;
+	private static final long MAX_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+	private static final Runnable NO_OP = () -> {
+	};
+
+	// RefreshManager's queue element before the timing wheel
+	private static final class DelayedTask implements Delayed
+	{
+		private final long time;
+
+		private DelayedTask(long delayMillis)
+		{
+			this.time = System.currentTimeMillis() + delayMillis;
+		}
+
+		@Override
+		public long getDelay(TimeUnit timeUnit)
+		{
+			return timeUnit.convert(time - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed delayed)
+		{
+			return Long.compare(time, ((DelayedTask) delayed).time);
+		}
+	}
+
+	@Param({"true", "false"})
+	public boolean isTimingWheel;
+
+	private TimingWheel timingWheel;
+	private DelayQueue<DelayedTask> delayQueue;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		Random random = new Random(42L);
+		if(isTimingWheel)
+		{
+			timingWheel = new TimingWheel("benchmark", 100L, TimingWheel.newWorkerPool("benchmark", 1, false));
+			for(int i = 0; i < PENDING_TIMER_COUNT; i++)
+			{
+				timingWheel.schedule(NO_OP, 1 + (long) (random.nextDouble() * MAX_DELAY_MILLIS));
+			}
+		}
+		else
+		{
+			delayQueue = new DelayQueue<>();
+			for(int i = 0; i < PENDING_TIMER_COUNT; i++)
+			{
+				delayQueue.add(new DelayedTask(1 + (long) (random.nextDouble() * MAX_DELAY_MILLIS)));
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		if(isTimingWheel)
+		{
+			timingWheel.shutdown();
+		}
+	}
+
+	@Benchmark
+	public boolean scheduleAndCancel()
+	{
+		long delayMillis = ThreadLocalRandom.current().nextLong(1, MAX_DELAY_MILLIS);
+		if(isTimingWheel)
+		{
+			return timingWheel.schedule(NO_OP, delayMillis).cancel();
+		}
+
+		DelayedTask delayedTask = new DelayedTask(delayMillis);
+		delayQueue.add(delayedTask);
+		return delayQueue.remove(delayedTask);
+	}
+}
@@ -0,0 +1,66 @@
+package com.server.framework.persistence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.server.framework.benchmark.BenchmarkDatabase;
+
+// Rows per second through DataAccess.add with the SchemaCatalog cache, and with the table schema reloaded on every add, which is what
+// DataAccess.add did before the cache: metadata round trips for columns and PKs and a freshly built INSERT for each row.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataAccessAddBenchmark
+{
+	private static final String TABLE_NAME = "AddedRow";
+
+	@Param({"true", "false"})
+	public boolean isSchemaCached;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		BenchmarkDatabase.start();
+		BenchmarkDatabase.execute("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (Id BIGINT PRIMARY KEY, Name VARCHAR(100), Amount BIGINT, CreatedTime BIGINT)");
+		// SchemaCatalog logs every invalidation
+		Logger.getLogger(SchemaCatalog.class.getName()).setLevel(java.util.logging.Level.WARNING);
+	}
+
+	@TearDown(Level.Iteration)
+	public void truncate() throws Exception
+	{
+		BenchmarkDatabase.execute("TRUNCATE TABLE " + TABLE_NAME);
+	}
+
+	@Benchmark
+	public void add() throws Exception
+	{
+		if(!isSchemaCached)
+		{
+			SchemaCatalog.invalidate(TABLE_NAME);
+		}
+
+		Row row = new Row(TABLE_NAME);
+		row.set("Name", "benchmark");
+		row.set("Amount", 42L);
+		row.set("CreatedTime", System.currentTimeMillis());
+		DataAccess.add(row);
+	}
+}
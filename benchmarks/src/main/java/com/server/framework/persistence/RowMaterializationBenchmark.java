@@ -0,0 +1,90 @@
+package com.server.framework.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.server.framework.benchmark.BenchmarkDatabase;
+
+// DataAccess.get of 100k rows backed by a RowLayout against the materialization it replaced, which compiled the alias regex and split
+// the column name for every column of every row and stored the values in a LinkedHashMap per row. Both read the same query plan SQL.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RowMaterializationBenchmark
+{
+	private static final String TABLE_NAME = "MaterializedRow";
+	private static final int ROW_COUNT = 100000;
+
+	private SelectQuery selectQuery;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		BenchmarkDatabase.start();
+		BenchmarkDatabase.execute("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (Id BIGINT PRIMARY KEY, Name VARCHAR(100), Amount BIGINT, Status INT, CreatedTime BIGINT)",
+			"TRUNCATE TABLE " + TABLE_NAME,
+			"INSERT INTO " + TABLE_NAME + " SELECT X, CONCAT('row-', X), X * 10, MOD(X, 5), X FROM SYSTEM_RANGE(1, " + ROW_COUNT + ")");
+		selectQuery = new SelectQuery(TABLE_NAME);
+	}
+
+	@Benchmark
+	public DataObject rowLayout() throws Exception
+	{
+		return DataAccess.get(selectQuery);
+	}
+
+	@Benchmark
+	public DataObject rowMap() throws Exception
+	{
+		List<Object> placeHolderList = new ArrayList<>();
+		QueryPlan queryPlan = QueryPlanCache.getSelectPlan(selectQuery, placeHolderList);
+		DataObject dataObject = new DataObject();
+
+		Connection connection = DBUtil.getServerDBConnectionForRead();
+		try(PreparedStatement preparedStatement = connection.prepareStatement(queryPlan.getSql()); ResultSet resultSet = preparedStatement.executeQuery())
+		{
+			boolean isWithoutJoin = selectQuery.joinList.isEmpty();
+			while(resultSet.next())
+			{
+				Row row = isWithoutJoin ? new Row(selectQuery.tableName) : new RowWrapper(selectQuery.tableName);
+
+				for(String selectColumn : queryPlan.getSelectColumnList())
+				{
+					Pattern pattern = Pattern.compile(".* AS \"(.*)\"");
+					Matcher matcher = pattern.matcher(selectColumn);
+
+					selectColumn = matcher.matches() ? matcher.group(1) : selectColumn;
+					String columnName = isWithoutJoin ? selectColumn.split("\\.")[1] : selectColumn;
+					row.set(columnName, resultSet.getObject(selectColumn));
+				}
+				dataObject.addRow(row);
+			}
+		}
+		finally
+		{
+			DataAccessUtil.handlePostProcessForTxn(connection);
+		}
+		return dataObject;
+	}
+}
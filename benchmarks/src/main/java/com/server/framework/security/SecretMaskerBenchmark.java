@@ -0,0 +1,67 @@
+package com.server.framework.security;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Masking a JSON body of about 1 MB with SecretMasker and with the replaceAll HttpLogService.getMasked ran before it. Every tenth
+// record carries a secret, the rest is the kind of payload that has to be scanned without a match.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecretMaskerBenchmark
+{
+	private static final String KEYS = "access_token,refresh_token,token,authtoken,client_id,client_secret,secret,Authorization";
+	private static final String OLD_MASK_REGEX = "(?i)([\"']?(access_token|refresh_token|token|authtoken|client_id|client_secret|secret|Authorization)[\"']?)\\s*([:=])\\s*([\"'])?([A-Za-z0-9\\-._~+/=]+)([\"'])?";
+	private static final String OLD_MASK_REPLACEMENT = "$1$3\"********\"";
+
+	@Param({"1048576"})
+	public int payloadSize;
+
+	private String payload;
+	private SecretMasker secretMasker;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		StringBuilder payloadBuilder = new StringBuilder(payloadSize + 256).append("{\"records\":[");
+		for(int i = 0; payloadBuilder.length() < payloadSize; i++)
+		{
+			payloadBuilder.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"record-").append(i).append("\",\"description\":\"Scheduled export of tenant data, status ok\",\"amount\":").append(i * 7L).append(",\"active\":true");
+			if(i % 10 == 0)
+			{
+				payloadBuilder.append(",\"access_token\":\"eyJhbGciOiJIUzI1NiJ9.").append(Integer.toHexString(i)).append(".c2lnbmF0dXJl\"");
+			}
+			payloadBuilder.append("}");
+		}
+		payload = payloadBuilder.append("]}").toString();
+		secretMasker = new SecretMasker(Arrays.asList(KEYS.split(",")));
+	}
+
+	@Benchmark
+	public String automaton()
+	{
+		return secretMasker.mask(payload);
+	}
+
+	@Benchmark
+	public String regex()
+	{
+		return payload.replaceAll(OLD_MASK_REGEX, OLD_MASK_REPLACEMENT);
+	}
+}
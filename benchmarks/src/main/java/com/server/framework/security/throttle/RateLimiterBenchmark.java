@@ -0,0 +1,55 @@
+package com.server.framework.security.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Decisions per second for a single hot key shared by 32 threads, for each algorithm. The limit lets part of the calls through, so both
+// the allowed and the denied path are taken.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class RateLimiterBenchmark
+{
+	private static final long CAPACITY = 10000L;
+	private static final long REFILL_INTERVAL_MILLIS = 100L;
+
+	@Param({"TOKEN_BUCKET", "ATOMIC_TOKEN_BUCKET", "SLIDING_WINDOW", "SLIDING_WINDOW_COUNTER"})
+	public Algorithm algorithm;
+
+	private RateLimiter rateLimiter;
+
+	@Setup(Level.Iteration)
+	public void setUp()
+	{
+		rateLimiter = switch(algorithm)
+			{
+				case TOKEN_BUCKET -> new TokenBucket(CAPACITY, CAPACITY, REFILL_INTERVAL_MILLIS);
+				case ATOMIC_TOKEN_BUCKET -> new AtomicTokenBucket(CAPACITY, CAPACITY, REFILL_INTERVAL_MILLIS);
+				case SLIDING_WINDOW -> new SlidingWindow(CAPACITY, REFILL_INTERVAL_MILLIS);
+				case SLIDING_WINDOW_COUNTER -> new SlidingWindowCounter(CAPACITY, REFILL_INTERVAL_MILLIS);
+			};
+	}
+
+	@Benchmark
+	public boolean tryAcquire()
+	{
+		return rateLimiter.tryAcquire();
+	}
+}
@@ -0,0 +1,129 @@
+package com.server.framework.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear histogram of microsecond values in the manner of HdrHistogram: every power of two is split into 16 sub-buckets, so a
+// percentile is off by at most 1/16 of its value. Recording is one atomic increment and never blocks. Values above about 19 hours land in
+// the top bucket; max is exact.
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+	private static final int MAX_EXPONENT = 36;
+	private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	public void recordNanos(long nanos)
+	{
+		record(nanos / 1000);
+	}
+
+	public void record(long micros)
+	{
+		micros = Math.max(0L, micros);
+		counts.incrementAndGet(indexOf(micros));
+		totalCount.increment();
+		totalMicros.add(micros);
+
+		long max = maxMicros.get();
+		while(micros > max && !maxMicros.compareAndSet(max, micros))
+		{
+			max = maxMicros.get();
+		}
+	}
+
+	private static int indexOf(long micros)
+	{
+		if(micros < SUB_BUCKET_COUNT)
+		{
+			return (int) micros;
+		}
+		int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(micros));
+		int shift = exponent - SUB_BUCKET_BITS + 1;
+		long subBucket = exponent == MAX_EXPONENT && micros >= (1L << (MAX_EXPONENT + 1)) ? SUB_BUCKET_COUNT - 1 : micros >>> shift;
+		return (int) (shift * SUB_BUCKET_HALF_COUNT + subBucket);
+	}
+
+	// Highest value which maps to the bucket
+	private static long highestValueOf(int index)
+	{
+		if(index < SUB_BUCKET_COUNT)
+		{
+			return index;
+		}
+		int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+		long subBucket = index - (long) shift * SUB_BUCKET_HALF_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	public long getCount()
+	{
+		return totalCount.sum();
+	}
+
+	public long getSum()
+	{
+		return totalMicros.sum();
+	}
+
+	public long getValueAtPercentile(double percentile)
+	{
+		long[] snapshot = new long[BUCKET_COUNT];
+		long count = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++)
+		{
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		return getValueAtPercentile(snapshot, count, percentile);
+	}
+
+	private long getValueAtPercentile(long[] snapshot, long count, double percentile)
+	{
+		if(count == 0)
+		{
+			return 0L;
+		}
+		long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100D));
+		long seen = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++)
+		{
+			seen += snapshot[i];
+			if(seen >= rank)
+			{
+				return Math.min(highestValueOf(i), maxMicros.get());
+			}
+		}
+		return maxMicros.get();
+	}
+
+	// Percentiles are read from one pass over the buckets, concurrent records may or may not be part of it
+	public Map<String, Object> getSummary()
+	{
+		long[] snapshot = new long[BUCKET_COUNT];
+		long count = 0;
+		for(int i = 0; i < BUCKET_COUNT; i++)
+		{
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("count", count);
+		summary.put("mean_us", count == 0 ? 0L : totalMicros.sum() / Math.max(1L, totalCount.sum()));
+		summary.put("p50_us", getValueAtPercentile(snapshot, count, 50D));
+		summary.put("p95_us", getValueAtPercentile(snapshot, count, 95D));
+		summary.put("p99_us", getValueAtPercentile(snapshot, count, 99D));
+		summary.put("max_us", maxMicros.get());
+		return summary;
+	}
+}
@@ -0,0 +1,163 @@
+package com.server.framework.common;
+
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+// JSON tree which can be handed to several readers without copying. Nested objects and arrays are read-only too; toMap() gives a mutable
+// copy. Mutation is only allowed while the parser fills the tree.
+public class ReadOnlyJSONObject extends JSONObject
+{
+	private final boolean isSealed;
+
+	private ReadOnlyJSONObject(JSONTokener jsonTokener)
+	{
+		super(jsonTokener);
+		this.isSealed = true;
+	}
+
+	public static JSONObject parse(Reader reader)
+	{
+		return new ReadOnlyJSONObject(new ReadOnlyTokener(reader));
+	}
+
+	private void checkMutable()
+	{
+		if(isSealed)
+		{
+			throw new UnsupportedOperationException("JSON object is read-only");
+		}
+	}
+
+	@Override
+	public JSONObject put(String key, Object value)
+	{
+		checkMutable();
+		return super.put(key, value);
+	}
+
+	@Override
+	public Object remove(String key)
+	{
+		checkMutable();
+		return super.remove(key);
+	}
+
+	@Override
+	public void clear()
+	{
+		checkMutable();
+		super.clear();
+	}
+
+	@Override
+	public Set<String> keySet()
+	{
+		return Collections.unmodifiableSet(super.keySet());
+	}
+
+	private static final class ReadOnlyJSONArray extends JSONArray
+	{
+		private final boolean isSealed;
+
+		private ReadOnlyJSONArray(JSONTokener jsonTokener)
+		{
+			super(jsonTokener);
+			this.isSealed = true;
+		}
+
+		private void checkMutable()
+		{
+			if(isSealed)
+			{
+				throw new UnsupportedOperationException("JSON array is read-only");
+			}
+		}
+
+		@Override
+		public JSONArray put(Object value)
+		{
+			checkMutable();
+			return super.put(value);
+		}
+
+		@Override
+		public JSONArray put(int index, Object value)
+		{
+			checkMutable();
+			return super.put(index, value);
+		}
+
+		@Override
+		public JSONArray putAll(Collection<?> collection)
+		{
+			checkMutable();
+			return super.putAll(collection);
+		}
+
+		@Override
+		public JSONArray putAll(Iterable<?> iterable)
+		{
+			checkMutable();
+			return super.putAll(iterable);
+		}
+
+		@Override
+		public JSONArray putAll(JSONArray array)
+		{
+			checkMutable();
+			return super.putAll(array);
+		}
+
+		@Override
+		public JSONArray putAll(Object array)
+		{
+			checkMutable();
+			return super.putAll(array);
+		}
+
+		@Override
+		public Object remove(int index)
+		{
+			checkMutable();
+			return super.remove(index);
+		}
+
+		@Override
+		public void clear()
+		{
+			checkMutable();
+			super.clear();
+		}
+	}
+
+	// Builds nested objects and arrays as read-only ones
+	private static final class ReadOnlyTokener extends JSONTokener
+	{
+		private ReadOnlyTokener(Reader reader)
+		{
+			super(reader);
+		}
+
+		@Override
+		public Object nextValue()
+		{
+			char c = nextClean();
+			back();
+			if(c == '{')
+			{
+				return new ReadOnlyJSONObject(this);
+			}
+			if(c == '[')
+			{
+				return new ReadOnlyJSONArray(this);
+			}
+			return super.nextValue();
+		}
+	}
+}
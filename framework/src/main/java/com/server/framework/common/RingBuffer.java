@@ -0,0 +1,84 @@
+package com.server.framework.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi producer, single consumer queue. Producers claim a slot with one CAS on the tail, and each slot carries a sequence number
+// which tells whether it is free for the producer of that lap or filled for the consumer. offer() never blocks and fails when full.
+public class RingBuffer<E>
+{
+	private final Object[] elements;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head;
+
+	public RingBuffer(int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.elements = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		this.mask = size - 1;
+		for(int i = 0; i < size; i++)
+		{
+			sequences.set(i, i);
+		}
+	}
+
+	public boolean offer(E element)
+	{
+		long position = tail.get();
+		while(true)
+		{
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+
+			if(difference == 0)
+			{
+				if(tail.compareAndSet(position, position + 1))
+				{
+					elements[index] = element;
+					sequences.lazySet(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			}
+			else if(difference < 0)
+			{
+				return false;
+			}
+			else
+			{
+				position = tail.get();
+			}
+		}
+	}
+
+	// Only the consumer thread may call this
+	@SuppressWarnings("unchecked")
+	public E poll()
+	{
+		long position = head;
+		int index = (int) (position & mask);
+		if(sequences.get(index) != position + 1)
+		{
+			return null;
+		}
+
+		E element = (E) elements[index];
+		elements[index] = null;
+		sequences.lazySet(index, position + elements.length);
+		head = position + 1;
+		return element;
+	}
+
+	public int size()
+	{
+		return (int) Math.max(0L, tail.get() - head);
+	}
+
+	public int capacity()
+	{
+		return elements.length;
+	}
+}
@@ -6,57 +6,237 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-public class SecurityRequestWrapper extends HttpServletRequestWrapper
+// Lets the body be read more than once without reading it up front. The first reader streams from the container while the bytes are copied
+// aside, in memory up to security.request.body.memory.threshold and in a temp file beyond it. Later readers replay the copy; a reader
+// arriving before the first one finished drains the rest of the body first. close() deletes the temp file.
+public class SecurityRequestWrapper extends HttpServletRequestWrapper implements Closeable
 {
+	private static final Logger LOGGER = Logger.getLogger(SecurityRequestWrapper.class.getName());
 
-	private final byte[] cachedBody;
+	private BodyBuffer bodyBuffer;
+	private ServletInputStream containerInputStream;
+	private boolean isBodyComplete;
 
-	public SecurityRequestWrapper(HttpServletRequest request) throws IOException
+	public SecurityRequestWrapper(HttpServletRequest request)
 	{
 		super(request);
 		request.getParameterMap(); //Workaround for reading parameters before reading the input stream, as it can consume the stream and make it unavailable for later use.
-		try(InputStream requestInputStream = request.getInputStream())
+	}
+
+	@Override
+	public ServletInputStream getInputStream() throws IOException
+	{
+		if(Objects.isNull(bodyBuffer))
 		{
-			this.cachedBody = requestInputStream.readAllBytes();
+			bodyBuffer = new BodyBuffer(AppProperties.getIntProperty("security.request.body.memory.threshold", 1024 * 1024));
+			containerInputStream = super.getInputStream();
+			return new TeeInputStream();
 		}
+
+		if(!isBodyComplete)
+		{
+			containerInputStream.transferTo(bodyBuffer);
+			isBodyComplete = true;
+		}
+		return new ReplayInputStream(bodyBuffer.openInputStream());
+	}
+
+	@Override
+	public BufferedReader getReader() throws IOException
+	{
+		String characterEncoding = getCharacterEncoding();
+		Charset charset = Objects.isNull(characterEncoding) ? StandardCharsets.UTF_8 : Charset.forName(characterEncoding);
+		return new BufferedReader(new InputStreamReader(getInputStream(), charset));
 	}
 
 	@Override
-	public ServletInputStream getInputStream()
+	public void close()
 	{
-		return new ServletInputStream()
+		if(Objects.nonNull(bodyBuffer))
 		{
-			private final ByteArrayInputStream buffer = new ByteArrayInputStream(cachedBody);
+			bodyBuffer.close();
+		}
+	}
 
-			@Override
-			public boolean isFinished()
+	private final class TeeInputStream extends ServletInputStream
+	{
+		@Override
+		public int read() throws IOException
+		{
+			int b = isBodyComplete ? -1 : containerInputStream.read();
+			if(b == -1)
 			{
-				return buffer.available() == 0;
+				isBodyComplete = true;
+				return -1;
 			}
+			bodyBuffer.write(b);
+			return b;
+		}
 
-			@Override
-			public boolean isReady()
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException
+		{
+			int count = isBodyComplete ? -1 : containerInputStream.read(bytes, offset, length);
+			if(count == -1)
 			{
-				return true;
+				isBodyComplete = true;
+				return -1;
 			}
+			bodyBuffer.write(bytes, offset, count);
+			return count;
+		}
 
-			@Override
-			public void setReadListener(ReadListener listener)
+		@Override
+		public boolean isFinished()
+		{
+			return isBodyComplete || containerInputStream.isFinished();
+		}
+
+		@Override
+		public boolean isReady()
+		{
+			return isBodyComplete || containerInputStream.isReady();
+		}
+
+		@Override
+		public void setReadListener(ReadListener listener)
+		{
+			containerInputStream.setReadListener(listener);
+		}
+	}
+
+	private static final class ReplayInputStream extends ServletInputStream
+	{
+		private final InputStream inputStream;
+		private boolean isFinished;
+
+		private ReplayInputStream(InputStream inputStream)
+		{
+			this.inputStream = inputStream;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			int b = inputStream.read();
+			isFinished = b == -1;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException
+		{
+			int count = inputStream.read(bytes, offset, length);
+			isFinished = count == -1;
+			return count;
+		}
+
+		@Override
+		public boolean isFinished()
+		{
+			return isFinished;
+		}
+
+		@Override
+		public boolean isReady()
+		{
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener listener)
+		{
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			inputStream.close();
+		}
+	}
+
+	// Replays read the buffer array in place rather than a copy of it
+	private static final class MemoryBuffer extends ByteArrayOutputStream
+	{
+		private InputStream openInputStream()
+		{
+			return new ByteArrayInputStream(buf, 0, count);
+		}
+	}
+
+	private static final class BodyBuffer extends OutputStream
+	{
+		private final int memoryThreshold;
+		private MemoryBuffer memoryBuffer = new MemoryBuffer();
+		private Path tempFile;
+		private OutputStream fileOutputStream;
+
+		private BodyBuffer(int memoryThreshold)
+		{
+			this.memoryThreshold = memoryThreshold;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException
+		{
+			if(Objects.isNull(fileOutputStream) && memoryBuffer.size() + length > memoryThreshold)
 			{
+				tempFile = Files.createTempFile("request-body-", ".tmp");
+				fileOutputStream = new BufferedOutputStream(Files.newOutputStream(tempFile));
+				memoryBuffer.writeTo(fileOutputStream);
+				memoryBuffer = null;
 			}
 
-			@Override
-			public int read()
+			if(Objects.nonNull(fileOutputStream))
 			{
-				return buffer.read();
+				fileOutputStream.write(bytes, offset, length);
 			}
-		};
-	}
+			else
+			{
+				memoryBuffer.write(bytes, offset, length);
+			}
+		}
 
-	@Override
-	public BufferedReader getReader()
-	{
-		return new BufferedReader(new InputStreamReader(getInputStream()));
+		private InputStream openInputStream() throws IOException
+		{
+			if(Objects.isNull(fileOutputStream))
+			{
+				return memoryBuffer.openInputStream();
+			}
+			fileOutputStream.flush();
+			return new BufferedInputStream(Files.newInputStream(tempFile));
+		}
+
+		@Override
+		public void close()
+		{
+			if(Objects.isNull(tempFile))
+			{
+				return;
+			}
+			try
+			{
+				fileOutputStream.close();
+				Files.deleteIfExists(tempFile);
+			}
+			catch(IOException e)
+			{
+				LOGGER.log(Level.WARNING, "Exception occurred while deleting request body file " + tempFile, e);
+			}
+		}
 	}
 }
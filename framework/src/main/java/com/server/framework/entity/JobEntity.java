@@ -7,7 +7,7 @@ import org.hibernate.annotations.GenericGenerator;
 import com.server.framework.job.JobStatus;
 
 @Entity(name = "Job")
-@Table(name = "Job")
+@Table(name = "Job", indexes = @Index(name = "Job_Status_ScheduledTime_Idx", columnList = "Status, ScheduledTime"))
 public class JobEntity
 {
     
@@ -35,6 +35,13 @@ public class JobEntity
     @Column(name = "Status", nullable = false, columnDefinition = "INT DEFAULT -1")
     private Integer status = JobStatus.JOB_NOT_RUNNING.getStatus();
 
+    // Written only by the dispatcher's bulk claim and renewal queries, so that saving a loaded job never rolls a lease back
+    @Column(name = "LeaseOwner", length = 64, insertable = false, updatable = false)
+    private String leaseOwner;
+
+    @Column(name = "LeaseExpiryTime", insertable = false, updatable = false)
+    private Long leaseExpiryTime;
+
     public JobEntity() {}
     
     public JobEntity(String taskName, String data, Long scheduledTime, Integer dayInterval, Boolean isRecurring) {
@@ -101,6 +108,14 @@ public class JobEntity
     public void setStatus(JobStatus jobStatus) {
         this.status = jobStatus.getStatus();
     }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public Long getLeaseExpiryTime() {
+        return leaseExpiryTime;
+    }
     
     @Override
     public String toString() {
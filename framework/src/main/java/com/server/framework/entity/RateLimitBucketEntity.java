@@ -0,0 +1,54 @@
+package com.server.framework.entity;
+
+import jakarta.persistence.*;
+
+@Entity(name = "RateLimitBucket")
+@Table(name = "RateLimitBucket")
+public class RateLimitBucketEntity
+{
+
+    @Id
+    @Column(name = "BucketKey", length = 255, nullable = false)
+    private String bucketKey;
+
+    @Column(name = "Tokens", nullable = false)
+    private Long tokens;
+
+    @Column(name = "LastRefillTime", nullable = false)
+    private Long lastRefillTime;
+
+    public RateLimitBucketEntity() {}
+
+    public String getBucketKey() {
+        return bucketKey;
+    }
+
+    public void setBucketKey(String bucketKey) {
+        this.bucketKey = bucketKey;
+    }
+
+    public Long getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(Long tokens) {
+        this.tokens = tokens;
+    }
+
+    public Long getLastRefillTime() {
+        return lastRefillTime;
+    }
+
+    public void setLastRefillTime(Long lastRefillTime) {
+        this.lastRefillTime = lastRefillTime;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitBucket{" +
+                "bucketKey='" + bucketKey + '\'' +
+                ", tokens=" + tokens +
+                ", lastRefillTime=" + lastRefillTime +
+                '}';
+    }
+}
@@ -7,7 +7,7 @@ import org.hibernate.annotations.GenericGenerator;
 import com.server.framework.id.CustomIdGenerator;
 
 @Entity(name = "User")
-@Table(name = "\"User\"") //User is a reserved keyword in some databases like h2
+@Table(name = "\"User\"", indexes = @Index(name = "User_Name_Idx", columnList = "Name")) //User is a reserved keyword in some databases like h2
 public class UserEntity
 {
     
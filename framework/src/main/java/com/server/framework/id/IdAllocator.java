@@ -0,0 +1,248 @@
+package com.server.framework.id;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.server.framework.common.AppProperties;
+import com.server.framework.common.CustomThreadFactory;
+import com.server.framework.persistence.DBUtil;
+
+// Single id source for both the DataAccess layer and hibernate entities. Ids are handed out from an in-memory segment of BatchTable
+// and the next segment is reserved in the background before the current one runs out.
+public class IdAllocator
+{
+	private static final Logger LOGGER = Logger.getLogger(IdAllocator.class.getName());
+
+	private static final long ACCOUNT_ID = 1L;
+	private static final long DEFAULT_START_ID = 1000000000000L;
+	private static final long MIN_SEGMENT_SIZE = 100L;
+	private static final long MAX_SEGMENT_SIZE = 100000L;
+
+	// A segment is expected to last between these bounds, otherwise the next segment is resized
+	private static final long MIN_SEGMENT_LIFETIME_NANOS = TimeUnit.SECONDS.toNanos(10);
+	private static final long MAX_SEGMENT_LIFETIME_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+	private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(new CustomThreadFactory("id-allocator-"));
+	private static final Object SEGMENT_SWITCH_LOCK = new Object();
+	private static final AtomicBoolean IS_PREFETCH_RUNNING = new AtomicBoolean(false);
+
+	private static final LongAdder ALLOCATION_COUNT = new LongAdder();
+	private static final LongAdder SEGMENT_FETCH_COUNT = new LongAdder();
+	private static final LongAdder STALL_COUNT = new LongAdder();
+
+	private static volatile Segment currentSegment = new Segment(0L, 0L);
+	private static volatile CompletableFuture<Segment> nextSegmentFuture;
+	private static volatile long segmentSize = -1L;
+
+	private static final class Segment
+	{
+		private final long start;
+		private final long end;
+		private final long prefetchThreshold;
+		private final AtomicLong next;
+		// Set when the segment becomes current, a prefetched segment may wait long before that
+		private long activatedTime;
+
+		private Segment(long start, long end)
+		{
+			this.start = start;
+			this.end = end;
+			this.prefetchThreshold = end - Math.max(1L, (end - start) / 5L);
+			this.next = new AtomicLong(start);
+		}
+	}
+
+	public static long nextId() throws Exception
+	{
+		while(true)
+		{
+			Segment segment = currentSegment;
+			long id = segment.next.getAndIncrement();
+
+			if(id < segment.end)
+			{
+				ALLOCATION_COUNT.increment();
+				if(id == segment.prefetchThreshold)
+				{
+					triggerPrefetch();
+				}
+				return id;
+			}
+
+			switchSegment(segment);
+		}
+	}
+
+	private static void triggerPrefetch()
+	{
+		if(IS_PREFETCH_RUNNING.compareAndSet(false, true))
+		{
+			long size = getSegmentSize();
+			nextSegmentFuture = CompletableFuture.supplyAsync(() -> {
+				try
+				{
+					return reserveSegment(size);
+				}
+				catch(Exception e)
+				{
+					throw new RuntimeException(e);
+				}
+				finally
+				{
+					IS_PREFETCH_RUNNING.set(false);
+				}
+			}, PREFETCH_EXECUTOR);
+		}
+	}
+
+	private static void switchSegment(Segment exhaustedSegment) throws Exception
+	{
+		synchronized(SEGMENT_SWITCH_LOCK)
+		{
+			if(currentSegment != exhaustedSegment)
+			{
+				return;
+			}
+
+			Segment segment = null;
+			CompletableFuture<Segment> segmentFuture = nextSegmentFuture;
+			nextSegmentFuture = null;
+
+			if(Objects.nonNull(segmentFuture))
+			{
+				if(!segmentFuture.isDone())
+				{
+					STALL_COUNT.increment();
+				}
+				try
+				{
+					segment = segmentFuture.join();
+				}
+				catch(Exception e)
+				{
+					LOGGER.log(Level.SEVERE, "Exception occurred while prefetching id segment", e);
+				}
+			}
+			else
+			{
+				STALL_COUNT.increment();
+			}
+
+			if(Objects.isNull(segment))
+			{
+				segment = reserveSegment(getSegmentSize());
+			}
+
+			adaptSegmentSize(exhaustedSegment);
+			segment.activatedTime = System.nanoTime();
+			currentSegment = segment;
+		}
+	}
+
+	private static long getSegmentSize()
+	{
+		if(segmentSize == -1L)
+		{
+			segmentSize = Math.min(MAX_SEGMENT_SIZE, Math.max(MIN_SEGMENT_SIZE, AppProperties.getLongProperty("id.allocator.segment.size", 1000L)));
+		}
+		return segmentSize;
+	}
+
+	private static void adaptSegmentSize(Segment exhaustedSegment)
+	{
+		if(exhaustedSegment.end == 0L)
+		{
+			return;
+		}
+
+		long lifetime = System.nanoTime() - exhaustedSegment.activatedTime;
+		long size = getSegmentSize();
+		if(lifetime < MIN_SEGMENT_LIFETIME_NANOS)
+		{
+			segmentSize = Math.min(MAX_SEGMENT_SIZE, size * 2L);
+		}
+		else if(lifetime > MAX_SEGMENT_LIFETIME_NANOS)
+		{
+			segmentSize = Math.max(MIN_SEGMENT_SIZE, size / 2L);
+		}
+	}
+
+	private static Segment reserveSegment(long size) throws Exception
+	{
+		SEGMENT_FETCH_COUNT.increment();
+
+		try(Connection connection = DBUtil.getSystemDBConnection())
+		{
+			try
+			{
+				long batchStart;
+				try(PreparedStatement selectStatement = connection.prepareStatement("SELECT BatchStart FROM BatchTable WHERE AccountId = ? FOR UPDATE"))
+				{
+					selectStatement.setLong(1, ACCOUNT_ID);
+					try(ResultSet resultSet = selectStatement.executeQuery())
+					{
+						batchStart = resultSet.next() ? resultSet.getLong(1) : -1L;
+					}
+				}
+
+				if(batchStart == -1L)
+				{
+					batchStart = DEFAULT_START_ID;
+					try(PreparedStatement insertStatement = connection.prepareStatement("INSERT INTO BatchTable (AccountId, BatchStart) VALUES (?, ?)"))
+					{
+						insertStatement.setLong(1, ACCOUNT_ID);
+						insertStatement.setLong(2, batchStart + size);
+						insertStatement.executeUpdate();
+					}
+				}
+				else
+				{
+					try(PreparedStatement updateStatement = connection.prepareStatement("UPDATE BatchTable SET BatchStart = ? WHERE AccountId = ?"))
+					{
+						updateStatement.setLong(1, batchStart + size);
+						updateStatement.setLong(2, ACCOUNT_ID);
+						updateStatement.executeUpdate();
+					}
+				}
+
+				connection.commit();
+				return new Segment(batchStart, batchStart + size);
+			}
+			catch(SQLException e)
+			{
+				connection.rollback();
+				throw e;
+			}
+		}
+	}
+
+	public static Map<String, Object> getMetrics()
+	{
+		Segment segment = currentSegment;
+
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("allocation_count", ALLOCATION_COUNT.sum());
+		metrics.put("segment_fetch_count", SEGMENT_FETCH_COUNT.sum());
+		metrics.put("stall_count", STALL_COUNT.sum());
+		metrics.put("segment_size", getSegmentSize());
+		metrics.put("segment_start", segment.start);
+		metrics.put("segment_end", segment.end);
+		metrics.put("segment_remaining", Math.max(0L, segment.end - segment.next.get()));
+		metrics.put("prefetch_ready", Objects.nonNull(nextSegmentFuture) && nextSegmentFuture.isDone());
+		return metrics;
+	}
+}
@@ -2,24 +2,36 @@ package com.server.framework.job;
 
 import com.server.framework.common.AppProperties;
 import com.server.framework.common.CustomThreadFactory;
-import com.server.framework.common.DateUtil;
 import com.server.framework.entity.JobEntity;
 import com.server.framework.repository.JobRepository;
 import com.server.framework.service.JobService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+// Every node claims due jobs by taking a lease on them: one UPDATE moves a batch from not running to dispatched under this node's id, only
+// rows still not running are taken, so two nodes never claim the same job. Claimed jobs wait in the in-memory timer and the node renews the
+// leases of all its dispatched and running jobs in one UPDATE every third of the lease. When a node dies its leases run out and the next
+// poll of any node hands the jobs back. Jobs saved for earlier than the next poll wake the dispatcher instead of waiting for it.
 @Component
 public class JobDispatcher
 {
@@ -34,29 +46,42 @@ public class JobDispatcher
 
 	private ScheduledExecutorService scheduler;
 
+	private String nodeId;
+	private long leaseMillis;
+	private long pollIntervalMillis;
+
+	// Long.MAX_VALUE while a poll runs, so that jobs saved during it wake the dispatcher once more
+	private volatile long nextPollTime = Long.MAX_VALUE;
+	private final AtomicBoolean isWakeUpPending = new AtomicBoolean();
+
+	private final LongAdder pollCount = new LongAdder();
+	private final LongAdder wakeUpCount = new LongAdder();
+	private final LongAdder claimedCount = new LongAdder();
+	private final LongAdder releasedCount = new LongAdder();
+
 	@PostConstruct
 	public void initialize()
 	{
 		try
 		{
-			jobRepository.markAllJobsAsNotRunning();
-
-			String canAddJobDispatcher = AppProperties.getProperty("job.dispatcher.enabled");
-			if("false".equals(canAddJobDispatcher))
+			if(!AppProperties.getBooleanProperty("job.dispatcher.enabled", true))
 			{
 				LOGGER.info("Job dispatcher is disabled in configuration");
+				jobRepository.markAllJobsAsNotRunning();
 				getAllJobsFromDBAndSchedule();
 				return;
 			}
 
-			int threadCount = AppProperties.getIntProperty("job.thread.count", 2);
-
+			nodeId = AppProperties.getProperty("job.dispatcher.node.id", createNodeId());
+			leaseMillis = TimeUnit.SECONDS.toMillis(AppProperties.getLongProperty("job.dispatcher.lease.seconds", 60L));
+			pollIntervalMillis = TimeUnit.SECONDS.toMillis(AppProperties.getLongProperty("job.dispatcher.running.interval.seconds", 30L));
 
 			scheduler = Executors.newScheduledThreadPool(1, new CustomThreadFactory("job-dispatcher-"));
 
-			scheduler.scheduleWithFixedDelay(this::pollAndExecuteJobs, 10, AppProperties.getIntProperty("job.dispatcher.running.interval.seconds", 300), TimeUnit.SECONDS);
+			scheduler.scheduleWithFixedDelay(this::pollAndExecuteJobs, 10_000L, pollIntervalMillis, TimeUnit.MILLISECONDS);
+			scheduler.scheduleWithFixedDelay(this::renewLeases, leaseMillis / 3, leaseMillis / 3, TimeUnit.MILLISECONDS);
 
-			LOGGER.info("Job dispatcher initialized with " + threadCount + " threads");
+			LOGGER.info("Job dispatcher initialized on node " + nodeId + " with a lease of " + leaseMillis + " ms");
 
 		}
 		catch(Exception e)
@@ -90,28 +115,124 @@ public class JobDispatcher
 		}
 	}
 
+	// Polls right away when the job would otherwise be claimed late; wake-ups arriving before that poll starts share it
+	public void wakeUp(long executionTime)
+	{
+		if(Objects.isNull(scheduler) || executionTime >= nextPollTime || !isWakeUpPending.compareAndSet(false, true))
+		{
+			return;
+		}
+		try
+		{
+			wakeUpCount.increment();
+			scheduler.execute(this::pollAndExecuteJobs);
+		}
+		catch(RejectedExecutionException e)
+		{
+			isWakeUpPending.set(false);
+		}
+	}
+
 	private void pollAndExecuteJobs()
 	{
+		nextPollTime = Long.MAX_VALUE;
+		isWakeUpPending.set(false);
 		try
 		{
-			int lookAheadSeconds = AppProperties.getIntProperty("job.dispatcher.look.ahead.seconds", 300);
-			List<JobEntity> jobsToExecute = jobService.findJobsToExecute(DateUtil.getCurrentTimeInMillis() + (DateUtil.ONE_SECOND_IN_MILLISECOND * lookAheadSeconds));
+			pollCount.increment();
+			long currentTime = System.currentTimeMillis();
 
-			if(!jobsToExecute.isEmpty())
+			int expiredCount = jobRepository.releaseExpiredLeases(currentTime);
+			if(expiredCount > 0)
 			{
-				LOGGER.info("Found " + jobsToExecute.size() + " jobs to execute");
+				releasedCount.add(expiredCount);
+				LOGGER.info("Released " + expiredCount + " jobs with expired leases");
 			}
 
-			for(JobEntity jobEntity : jobsToExecute)
+			long executionTime = currentTime + TimeUnit.SECONDS.toMillis(AppProperties.getLongProperty("job.dispatcher.look.ahead.seconds", 60L));
+			int batchSize = Math.max(1, AppProperties.getIntProperty("job.dispatcher.claim.batch.size", 100));
+			int candidateCount;
+			do
 			{
-				jobService.scheduleJob(jobEntity);
+				candidateCount = claimJobs(executionTime, batchSize);
 			}
+			while(candidateCount >= batchSize);
 
 		}
 		catch(Exception e)
 		{
 			LOGGER.log(Level.SEVERE, "Error polling jobs", e);
 		}
+		finally
+		{
+			nextPollTime = System.currentTimeMillis() + pollIntervalMillis;
+		}
+	}
+
+	// Returns the number of candidates, which is the batch size while more due jobs may be left
+	private int claimJobs(long executionTime, int batchSize)
+	{
+		List<Long> jobIds = jobRepository.findClaimableJobIds(executionTime, PageRequest.of(0, batchSize));
+		if(jobIds.isEmpty())
+		{
+			return 0;
+		}
+
+		if(jobRepository.claimJobs(jobIds, nodeId, System.currentTimeMillis() + leaseMillis) > 0)
+		{
+			List<JobEntity> claimedJobs = jobRepository.findClaimedJobs(jobIds, nodeId);
+			for(JobEntity jobEntity : claimedJobs)
+			{
+				jobService.dispatchJob(jobEntity);
+			}
+			claimedCount.add(claimedJobs.size());
+			LOGGER.info("Claimed " + claimedJobs.size() + " of " + jobIds.size() + " due jobs");
+		}
+		return jobIds.size();
+	}
+
+	private void renewLeases()
+	{
+		try
+		{
+			jobRepository.renewLeases(nodeId, System.currentTimeMillis() + leaseMillis);
+		}
+		catch(Exception e)
+		{
+			LOGGER.log(Level.SEVERE, "Error renewing job leases", e);
+		}
+	}
+
+	// Null while the dispatcher is disabled
+	public String getNodeId()
+	{
+		return nodeId;
+	}
+
+	private static String createNodeId()
+	{
+		String hostName;
+		try
+		{
+			hostName = InetAddress.getLocalHost().getHostName();
+		}
+		catch(Exception e)
+		{
+			hostName = "unknown";
+		}
+		String nodeId = hostName + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+		return nodeId.length() > 64 ? nodeId.substring(nodeId.length() - 64) : nodeId;
+	}
+
+	public Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("node_id", nodeId);
+		metrics.put("poll_count", pollCount.sum());
+		metrics.put("wake_up_count", wakeUpCount.sum());
+		metrics.put("claimed_count", claimedCount.sum());
+		metrics.put("released_count", releasedCount.sum());
+		return metrics;
 	}
 
 	private void getAllJobsFromDBAndSchedule()
@@ -132,5 +253,3 @@ public class JobDispatcher
 		}
 	}
 }
-
-
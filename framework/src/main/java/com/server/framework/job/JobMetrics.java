@@ -0,0 +1,226 @@
+package com.server.framework.job;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import com.server.framework.common.AppProperties;
+import com.server.framework.common.LatencyHistogram;
+
+// Execution metrics of jobs per task type, and of every runnable run by RefreshManager under "refresh_manager": lag from the scheduled time
+// to the start, run time, active and queued gauges and outcome counts. A job still running after job.slow.threshold.seconds has the stack
+// of its thread captured in the slow job log, which keeps the last job.slow.log.size events; 0 turns the capture off.
+public final class JobMetrics
+{
+	private static final Logger LOGGER = Logger.getLogger(JobMetrics.class.getName());
+
+	static final String REFRESH_MANAGER = "refresh_manager";
+	static final String UNKNOWN_TASK = "unknown";
+
+	enum Outcome
+	{
+		SUCCEEDED, FAILED, TIMED_OUT
+	}
+
+	private static final Outcome[] OUTCOMES = Outcome.values();
+
+	static final class TaskMetrics
+	{
+		private final LatencyHistogram lag = new LatencyHistogram();
+		private final LatencyHistogram runTime = new LatencyHistogram();
+		private final AtomicInteger activeCount = new AtomicInteger();
+		private final AtomicInteger queuedCount = new AtomicInteger();
+		private final LongAdder[] outcomeCounts = new LongAdder[OUTCOMES.length];
+
+		private TaskMetrics()
+		{
+			for(int i = 0; i < outcomeCounts.length; i++)
+			{
+				outcomeCounts[i] = new LongAdder();
+			}
+		}
+
+		void queued()
+		{
+			queuedCount.incrementAndGet();
+		}
+
+		void dequeued()
+		{
+			queuedCount.decrementAndGet();
+		}
+
+		// Returns the start time to pass to finished()
+		long started(long scheduledTime)
+		{
+			lag.record(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - scheduledTime));
+			activeCount.incrementAndGet();
+			return System.nanoTime();
+		}
+
+		void finished(long startTime, Outcome outcome)
+		{
+			runTime.recordNanos(System.nanoTime() - startTime);
+			activeCount.decrementAndGet();
+			outcomeCounts[outcome.ordinal()].increment();
+		}
+
+		private Map<String, Object> getMetrics()
+		{
+			Map<String, Object> metrics = new LinkedHashMap<>();
+			metrics.put("active_count", activeCount.get());
+			metrics.put("queued_count", queuedCount.get());
+			for(Outcome outcome : OUTCOMES)
+			{
+				metrics.put(outcome.name().toLowerCase() + "_count", outcomeCounts[outcome.ordinal()].sum());
+			}
+			metrics.put("lag", lag.getSummary());
+			metrics.put("run_time", runTime.getSummary());
+			return metrics;
+		}
+	}
+
+	private static final Map<String, TaskMetrics> TASK_METRICS = new ConcurrentHashMap<>();
+
+	private static final Deque<Map<String, Object>> SLOW_JOBS = new ArrayDeque<>();
+	private static final LongAdder SLOW_JOB_COUNT = new LongAdder();
+
+	private JobMetrics()
+	{
+	}
+
+	static TaskMetrics getTaskMetrics(String name)
+	{
+		return TASK_METRICS.computeIfAbsent(name, key -> new TaskMetrics());
+	}
+
+	// Returns null when slow job capture is off, otherwise a timer to cancel when the job finishes in time
+	static TimingWheel.TimerHandle watchSlowJob(String taskName, long jobId, Thread jobThread)
+	{
+		long thresholdMillis = TimeUnit.SECONDS.toMillis(AppProperties.getLongProperty("job.slow.threshold.seconds", 60L));
+		if(thresholdMillis <= 0)
+		{
+			return null;
+		}
+		long startTime = System.currentTimeMillis();
+		return RefreshManager.addTimeout(() -> captureSlowJob(taskName, jobId, jobThread, startTime), thresholdMillis);
+	}
+
+	private static void captureSlowJob(String taskName, long jobId, Thread jobThread, long startTime)
+	{
+		StringBuilder stackTrace = new StringBuilder();
+		for(StackTraceElement stackTraceElement : jobThread.getStackTrace())
+		{
+			stackTrace.append("\tat ").append(stackTraceElement).append('\n');
+		}
+
+		Map<String, Object> slowJob = new LinkedHashMap<>();
+		slowJob.put("task", taskName);
+		slowJob.put("job_id", jobId);
+		slowJob.put("thread", jobThread.getName());
+		slowJob.put("thread_state", jobThread.getState().name());
+		slowJob.put("start_time", startTime);
+		slowJob.put("elapsed_ms", System.currentTimeMillis() - startTime);
+		slowJob.put("stack_trace", stackTrace.toString());
+
+		SLOW_JOB_COUNT.increment();
+		LOGGER.warning("Job " + jobId + " of task " + taskName + " is running for " + slowJob.get("elapsed_ms") + " ms on " + jobThread.getName() + "\n" + stackTrace);
+
+		synchronized(SLOW_JOBS)
+		{
+			SLOW_JOBS.addFirst(slowJob);
+			while(SLOW_JOBS.size() > AppProperties.getIntProperty("job.slow.log.size", 100))
+			{
+				SLOW_JOBS.removeLast();
+			}
+		}
+	}
+
+	// Newest first
+	public static List<Map<String, Object>> getSlowJobs()
+	{
+		synchronized(SLOW_JOBS)
+		{
+			return new ArrayList<>(SLOW_JOBS);
+		}
+	}
+
+	public static Map<String, Object> getMetrics()
+	{
+		Map<String, Map<String, Object>> taskLimits = TaskLimiter.getLimits();
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		TASK_METRICS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+			Map<String, Object> taskMetrics = entry.getValue().getMetrics();
+			taskMetrics.putAll(taskLimits.getOrDefault(entry.getKey(), Map.of()));
+			metrics.put(entry.getKey(), taskMetrics);
+		});
+		metrics.put("slow_job_count", SLOW_JOB_COUNT.sum());
+		return metrics;
+	}
+
+	// Prometheus text exposition format 0.0.4, histograms are exported as summaries in seconds
+	public static String getPrometheusText()
+	{
+		Map<String, TaskMetrics> taskMetricsMap = new TreeMap<>(TASK_METRICS);
+		StringBuilder text = new StringBuilder();
+
+		appendHeader(text, "job_lag_seconds", "summary", "Time from the scheduled time of a job to its start");
+		taskMetricsMap.forEach((name, taskMetrics) -> appendSummary(text, "job_lag_seconds", name, taskMetrics.lag));
+		appendHeader(text, "job_run_time_seconds", "summary", "Run time of a job");
+		taskMetricsMap.forEach((name, taskMetrics) -> appendSummary(text, "job_run_time_seconds", name, taskMetrics.runTime));
+
+		appendHeader(text, "job_active", "gauge", "Jobs running now");
+		taskMetricsMap.forEach((name, taskMetrics) -> appendSample(text, "job_active", "task=\"" + name + "\"", taskMetrics.activeCount.get()));
+		appendHeader(text, "job_queued", "gauge", "Jobs waiting for a free slot of their task type");
+		taskMetricsMap.forEach((name, taskMetrics) -> appendSample(text, "job_queued", "task=\"" + name + "\"", taskMetrics.queuedCount.get()));
+
+		appendHeader(text, "job_runs_total", "counter", "Finished jobs by outcome");
+		taskMetricsMap.forEach((name, taskMetrics) -> {
+			for(Outcome outcome : OUTCOMES)
+			{
+				appendSample(text, "job_runs_total", "task=\"" + name + "\",outcome=\"" + outcome.name().toLowerCase() + "\"", taskMetrics.outcomeCounts[outcome.ordinal()].sum());
+			}
+		});
+
+		appendHeader(text, "job_slow_total", "counter", "Jobs which ran past the slow job threshold");
+		appendSample(text, "job_slow_total", null, SLOW_JOB_COUNT.sum());
+		return text.toString();
+	}
+
+	private static void appendHeader(StringBuilder text, String metricName, String type, String help)
+	{
+		text.append("# HELP ").append(metricName).append(' ').append(help).append('\n');
+		text.append("# TYPE ").append(metricName).append(' ').append(type).append('\n');
+	}
+
+	private static void appendSummary(StringBuilder text, String metricName, String name, LatencyHistogram histogram)
+	{
+		String label = "task=\"" + name + "\"";
+		for(double quantile : new double[] {0.5D, 0.95D, 0.99D})
+		{
+			appendSample(text, metricName, label + ",quantile=\"" + quantile + "\"", histogram.getValueAtPercentile(quantile * 100D) / 1_000_000D);
+		}
+		appendSample(text, metricName + "_sum", label, histogram.getSum() / 1_000_000D);
+		appendSample(text, metricName + "_count", label, histogram.getCount());
+	}
+
+	private static void appendSample(StringBuilder text, String metricName, String labels, Number value)
+	{
+		text.append(metricName);
+		if(Objects.nonNull(labels))
+		{
+			text.append('{').append(labels).append('}');
+		}
+		text.append(' ').append(value).append('\n');
+	}
+}
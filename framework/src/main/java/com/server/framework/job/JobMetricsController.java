@@ -0,0 +1,48 @@
+package com.server.framework.job;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.server.framework.builder.ApiResponseBuilder;
+import com.server.framework.service.JobService;
+
+// Admin only, the slow job log holds thread stacks and the dispatcher metrics the node id
+@RestController
+@RequestMapping("/api/v1/admin/jobs")
+public class JobMetricsController
+{
+	@Autowired
+	private JobService jobService;
+
+	@Autowired
+	private JobDispatcher jobDispatcher;
+
+	@GetMapping("/metrics")
+	public ResponseEntity<Map<String, Object>> getMetrics()
+	{
+		Map<String, Object> data = new LinkedHashMap<>();
+		data.put("tasks", JobMetrics.getMetrics());
+		data.put("timer", RefreshManager.getMetrics());
+		data.put("dispatcher", jobDispatcher.getMetrics());
+		data.put("state_writer", jobService.getStateWriterMetrics());
+		return ResponseEntity.ok(ApiResponseBuilder.success("Job metrics retrieved successfully", data));
+	}
+
+	@GetMapping(value = "/metrics/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+	public ResponseEntity<String> getPrometheusMetrics()
+	{
+		return ResponseEntity.ok(JobMetrics.getPrometheusText());
+	}
+
+	@GetMapping("/metrics/slow")
+	public ResponseEntity<Map<String, Object>> getSlowJobs()
+	{
+		return ResponseEntity.ok(ApiResponseBuilder.success("Slow jobs retrieved successfully", JobMetrics.getSlowJobs()));
+	}
+}
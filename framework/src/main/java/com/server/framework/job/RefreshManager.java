@@ -4,16 +4,11 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
 import com.server.framework.common.AppProperties;
-import com.server.framework.common.CustomThreadFactory;
-import com.server.framework.common.DateUtil;
 
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.Delayed;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,70 +18,82 @@ public class RefreshManager
 
 	private static final Logger LOGGER = Logger.getLogger(RefreshManager.class.getName());
 
-	private static ThreadPoolExecutor executor = null;
-	private static DelayQueue queue;
+	private static TimingWheel timingWheel = null;
+
+	// Timeouts get their own wheel and thread, they must fire even while every worker is busy with the job they interrupt
+	private static TimingWheel timeoutWheel = null;
 
 	@PostConstruct
 	public void init()
 	{
 		LOGGER.info("Starting Refresh Manager with thread count: " + AppProperties.getProperty("job.thread.count"));
-		queue = new DelayQueue<>();
 		int threadCount = Integer.parseInt(AppProperties.getProperty("job.thread.count", "2"));
-		executor = new ThreadPoolExecutor(threadCount, threadCount, 1L, TimeUnit.MINUTES, queue, new CustomThreadFactory("refresh-manager-"), new ThreadPoolExecutor.CallerRunsPolicy());
-		executor.prestartAllCoreThreads();
+		boolean isVirtualThreadsPreferred = AppProperties.getBooleanProperty("job.virtual.threads.enabled", false);
+		timingWheel = new TimingWheel("refresh-manager", AppProperties.getLongProperty("job.timer.tick.millis", 100L), TimingWheel.newWorkerPool("refresh-manager", threadCount, isVirtualThreadsPreferred));
+		timeoutWheel = new TimingWheel("job-timeout", AppProperties.getLongProperty("job.timer.tick.millis", 100L), TimingWheel.newWorkerPool("job-timeout", 1, false));
 	}
 
 	@PreDestroy
 	public void shutDown()
 	{
-		if(Objects.nonNull(executor))
+		if(Objects.nonNull(timingWheel))
+		{
+			timingWheel.shutdown();
+		}
+		if(Objects.nonNull(timeoutWheel))
 		{
-			executor.shutdownNow();
+			timeoutWheel.shutdown();
 		}
 	}
 
-	public static void addJobInQueue(CustomRunnable runnable, long millisecondDelay)
+	public static TimingWheel.TimerHandle addJobInQueue(CustomRunnable runnable, long millisecondDelay)
+	{
+		return timingWheel.schedule(new RefreshElement(runnable, System.currentTimeMillis() + Math.max(0L, millisecondDelay)), millisecondDelay);
+	}
+
+	// For short actions only, they run one at a time on the timeout thread
+	public static TimingWheel.TimerHandle addTimeout(Runnable runnable, long millisecondDelay)
 	{
-		queue.add(new RefreshElement(runnable, DateUtil.getCurrentTimeInMillis() + millisecondDelay));
+		return timeoutWheel.schedule(runnable, millisecondDelay);
 	}
 
-	private static class RefreshElement implements Delayed, Runnable
+	public static Map<String, Object> getMetrics()
 	{
+		return timingWheel.getMetrics();
+	}
+
+	private static class RefreshElement implements Runnable
+	{
+		private static final JobMetrics.TaskMetrics REFRESH_METRICS = JobMetrics.getTaskMetrics(JobMetrics.REFRESH_MANAGER);
+
 		CustomRunnable runnable;
-		long timeDelay;
+		long scheduledTime;
 
-		RefreshElement(CustomRunnable runnable, long millisSecondsDelay)
+		RefreshElement(CustomRunnable runnable, long scheduledTime)
 		{
 			this.runnable = runnable;
-			this.timeDelay = millisSecondsDelay;
+			this.scheduledTime = scheduledTime;
 		}
 
 		@Override
 		public void run()
 		{
+			long startTime = REFRESH_METRICS.started(scheduledTime);
+			JobMetrics.Outcome outcome = JobMetrics.Outcome.FAILED;
 			try
 			{
 				LOGGER.info("Job dispatched for runnable " + runnable);
 				runnable.run();
+				outcome = JobMetrics.Outcome.SUCCEEDED;
 			}
 			catch(Exception e)
 			{
 				LOGGER.log(Level.INFO, "Exception during refresh job", e);
 			}
-		}
-
-		@Override
-		public int compareTo(Delayed delayed)
-		{
-			long delayedTime = ((RefreshElement) delayed).timeDelay;
-			return Long.compare(timeDelay, delayedTime);
-		}
-
-		@Override
-		public long getDelay(TimeUnit tu)
-		{
-			long delay = timeDelay - DateUtil.getCurrentTimeInMillis();
-			return tu.convert(delay, TimeUnit.MILLISECONDS);
+			finally
+			{
+				REFRESH_METRICS.finished(startTime, outcome);
+			}
 		}
 	}
 }
@@ -0,0 +1,189 @@
+package com.server.framework.job;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.server.framework.common.AppProperties;
+
+// Runs jobs under a concurrency limit per task type, so that one slow task type cannot take every worker thread. A job that finds no free
+// permit is queued instead of blocking its thread, and the thread finishing a job of the same type runs it next. The limit and an optional
+// timeout, after which the job's thread is interrupted, come from job.task.<task name>.max.concurrency and .timeout.seconds, falling back
+// to job.task.max.concurrency and job.task.timeout.seconds; 0 means no limit. Every run is recorded in JobMetrics.
+public final class TaskLimiter
+{
+	private static final Logger LOGGER = Logger.getLogger(TaskLimiter.class.getName());
+
+	private static final int RUNNING = 0;
+	private static final int FINISHED = 1;
+	private static final int TIMING_OUT = 2;
+	private static final int TIMED_OUT = 3;
+
+	private static final class TaskSlot
+	{
+		private final int maxConcurrency;
+		private final Semaphore permits;
+		private final long timeoutMillis;
+		private final Queue<Runnable> waitingJobs = new ConcurrentLinkedQueue<>();
+		private final JobMetrics.TaskMetrics taskMetrics;
+
+		private TaskSlot(TaskEnum taskEnum)
+		{
+			String prefix = "job.task." + taskEnum.getTaskName();
+			this.maxConcurrency = AppProperties.getIntProperty(prefix + ".max.concurrency", AppProperties.getIntProperty("job.task.max.concurrency", 0));
+			this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+			this.timeoutMillis = TimeUnit.SECONDS.toMillis(AppProperties.getLongProperty(prefix + ".timeout.seconds", AppProperties.getLongProperty("job.task.timeout.seconds", 0L)));
+			this.taskMetrics = JobMetrics.getTaskMetrics(taskEnum.getTaskName());
+		}
+
+		// Jobs of unknown task types, which run without limits
+		private TaskSlot()
+		{
+			this.maxConcurrency = 0;
+			this.permits = null;
+			this.timeoutMillis = 0L;
+			this.taskMetrics = JobMetrics.getTaskMetrics(JobMetrics.UNKNOWN_TASK);
+		}
+	}
+
+	private static final Map<TaskEnum, TaskSlot> TASK_SLOTS = new EnumMap<>(TaskEnum.class);
+	private static final TaskSlot UNKNOWN_TASK_SLOT = new TaskSlot();
+
+	private TaskLimiter()
+	{
+	}
+
+	private static synchronized TaskSlot getTaskSlot(TaskEnum taskEnum)
+	{
+		return TASK_SLOTS.computeIfAbsent(taskEnum, TaskSlot::new);
+	}
+
+	// Runs the job on the calling thread, or queues it when its task type is at the limit. The job returns whether it succeeded.
+	public static void execute(String taskName, long jobId, long scheduledTime, BooleanSupplier job)
+	{
+		TaskSlot taskSlot;
+		try
+		{
+			taskSlot = getTaskSlot(TaskEnum.getTaskEnum(taskName));
+		}
+		catch(Exception e)
+		{
+			taskSlot = UNKNOWN_TASK_SLOT;
+		}
+
+		TaskSlot slot = taskSlot;
+		Runnable timedJob = () -> run(slot, taskName, jobId, scheduledTime, job);
+		if(Objects.isNull(taskSlot.permits))
+		{
+			timedJob.run();
+			return;
+		}
+
+		taskSlot.taskMetrics.queued();
+		taskSlot.waitingJobs.add(timedJob);
+		while(taskSlot.permits.tryAcquire())
+		{
+			Runnable nextJob = taskSlot.waitingJobs.poll();
+			if(Objects.isNull(nextJob))
+			{
+				taskSlot.permits.release();
+				// A job queued after the poll whose own tryAcquire failed is taken on the next round
+				if(taskSlot.waitingJobs.isEmpty())
+				{
+					return;
+				}
+				continue;
+			}
+
+			taskSlot.taskMetrics.dequeued();
+			try
+			{
+				nextJob.run();
+			}
+			finally
+			{
+				taskSlot.permits.release();
+			}
+		}
+	}
+
+	private static void run(TaskSlot taskSlot, String taskName, long jobId, long scheduledTime, BooleanSupplier job)
+	{
+		long startTime = taskSlot.taskMetrics.started(scheduledTime);
+		Thread jobThread = Thread.currentThread();
+		TimingWheel.TimerHandle slowJobHandle = JobMetrics.watchSlowJob(taskName, jobId, jobThread);
+
+		AtomicInteger state = new AtomicInteger(RUNNING);
+		TimingWheel.TimerHandle timeoutHandle = null;
+		if(taskSlot.timeoutMillis > 0)
+		{
+			timeoutHandle = RefreshManager.addTimeout(() -> {
+				if(state.compareAndSet(RUNNING, TIMING_OUT))
+				{
+					LOGGER.warning("Interrupting " + jobThread.getName() + ", job " + jobId + " exceeded the timeout of " + taskSlot.timeoutMillis + " ms");
+					jobThread.interrupt();
+					state.set(TIMED_OUT);
+				}
+			}, taskSlot.timeoutMillis);
+		}
+
+		boolean isSucceeded = false;
+		try
+		{
+			isSucceeded = job.getAsBoolean();
+		}
+		catch(Exception e)
+		{
+			LOGGER.log(Level.SEVERE, "Exception occurred while running job " + jobId, e);
+		}
+		finally
+		{
+			if(Objects.nonNull(slowJobHandle))
+			{
+				slowJobHandle.cancel();
+			}
+			if(Objects.nonNull(timeoutHandle))
+			{
+				timeoutHandle.cancel();
+			}
+
+			JobMetrics.Outcome outcome = isSucceeded ? JobMetrics.Outcome.SUCCEEDED : JobMetrics.Outcome.FAILED;
+			if(!state.compareAndSet(RUNNING, FINISHED))
+			{
+				// Wait for the interrupt to land and clear it, so that it does not leak into the next job on this thread
+				while(state.get() != TIMED_OUT)
+				{
+					Thread.onSpinWait();
+				}
+				Thread.interrupted();
+				outcome = JobMetrics.Outcome.TIMED_OUT;
+			}
+			taskSlot.taskMetrics.finished(startTime, outcome);
+		}
+	}
+
+	// Limits of the task types which ran so far, by task name
+	static Map<String, Map<String, Object>> getLimits()
+	{
+		Map<String, Map<String, Object>> limits = new LinkedHashMap<>();
+		synchronized(TaskLimiter.class)
+		{
+			TASK_SLOTS.forEach((taskEnum, taskSlot) -> {
+				Map<String, Object> taskLimits = new LinkedHashMap<>();
+				taskLimits.put("max_concurrency", Math.max(0, taskSlot.maxConcurrency));
+				taskLimits.put("timeout_ms", taskSlot.timeoutMillis);
+				limits.put(taskEnum.getTaskName(), taskLimits);
+			});
+		}
+		return limits;
+	}
+}
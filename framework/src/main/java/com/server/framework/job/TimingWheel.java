@@ -0,0 +1,309 @@
+package com.server.framework.job;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.server.framework.common.CustomThreadFactory;
+
+// Hierarchical hashed timing wheel. Level l has 512 slots of 512^l ticks each; a timer sits in the lowest level whose span covers its
+// deadline and moves down a level whenever the slot above comes round. Only the ticker thread touches the wheel: schedule() and cancel()
+// hand timers over through lock-free queues and the ticker links or unlinks them in O(1) at the next tick. Expired timers run on a separate
+// worker pool, so a slow task never delays the ticker.
+public class TimingWheel
+{
+	private static final Logger LOGGER = Logger.getLogger(TimingWheel.class.getName());
+
+	private static final int WHEEL_BITS = 9;
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+	private static final int LEVEL_COUNT = 4;
+	private static final long MAX_TICK_DELTA = (1L << (WHEEL_BITS * LEVEL_COUNT)) - 1;
+
+	// Bounds the work of one tick when a burst of timers is scheduled at once
+	private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+	private static final int PENDING = 0;
+	private static final int CANCELLED = 1;
+	private static final int EXPIRED = 2;
+
+	public static final class TimerHandle
+	{
+		private final TimingWheel timingWheel;
+		private final Runnable task;
+		private final long deadlineTick;
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+
+		// Owned by the ticker thread
+		private int level = -1;
+		private int slot;
+		private TimerHandle previous;
+		private TimerHandle next;
+
+		private TimerHandle(TimingWheel timingWheel, Runnable task, long deadlineTick)
+		{
+			this.timingWheel = timingWheel;
+			this.task = task;
+			this.deadlineTick = deadlineTick;
+		}
+
+		// Returns false when the timer already expired or was cancelled
+		public boolean cancel()
+		{
+			if(!state.compareAndSet(PENDING, CANCELLED))
+			{
+				return false;
+			}
+			timingWheel.cancelledTimers.add(this);
+			timingWheel.pendingCount.decrement();
+			timingWheel.cancelledCount.increment();
+			return true;
+		}
+
+		public boolean isCancelled()
+		{
+			return state.get() == CANCELLED;
+		}
+
+		public boolean isExpired()
+		{
+			return state.get() == EXPIRED;
+		}
+	}
+
+	private final long tickNanos;
+	private final long startNanos;
+	private final ExecutorService workerPool;
+	private final Thread tickerThread;
+	private volatile boolean isRunning = true;
+
+	private final TimerHandle[][] slots = new TimerHandle[LEVEL_COUNT][WHEEL_SIZE];
+	private long currentTick;
+
+	private final Queue<TimerHandle> scheduledTimers = new ConcurrentLinkedQueue<>();
+	private final Queue<TimerHandle> cancelledTimers = new ConcurrentLinkedQueue<>();
+
+	private final LongAdder pendingCount = new LongAdder();
+	private final LongAdder expiredCount = new LongAdder();
+	private final LongAdder cancelledCount = new LongAdder();
+
+	public TimingWheel(String name, long tickMillis, ExecutorService workerPool)
+	{
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, tickMillis));
+		this.startNanos = System.nanoTime();
+		this.workerPool = workerPool;
+		this.tickerThread = new CustomThreadFactory(name + "-ticker-").newThread(this::tick);
+		this.tickerThread.start();
+	}
+
+	// Uses virtual threads when asked for and the runtime has them (Java 21+), otherwise a fixed pool of platform threads
+	public static ExecutorService newWorkerPool(String name, int threadCount, boolean isVirtualThreadsPreferred)
+	{
+		if(isVirtualThreadsPreferred)
+		{
+			try
+			{
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			}
+			catch(ReflectiveOperationException e)
+			{
+				LOGGER.warning("Virtual threads are not available in Java " + Runtime.version().feature() + ", using " + threadCount + " platform threads for " + name);
+			}
+		}
+		return Executors.newFixedThreadPool(threadCount, new CustomThreadFactory(name + "-"));
+	}
+
+	public TimerHandle schedule(Runnable task, long delayMillis)
+	{
+		long elapsedNanos = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, delayMillis));
+		TimerHandle timerHandle = new TimerHandle(this, task, (elapsedNanos + tickNanos - 1) / tickNanos);
+		pendingCount.increment();
+		scheduledTimers.add(timerHandle);
+		return timerHandle;
+	}
+
+	private void tick()
+	{
+		while(isRunning)
+		{
+			long waitNanos = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+			if(waitNanos > 0)
+			{
+				LockSupport.parkNanos(this, waitNanos);
+				continue;
+			}
+
+			try
+			{
+				unlinkCancelledTimers();
+				linkScheduledTimers();
+
+				currentTick++;
+				for(int level = LEVEL_COUNT - 1; level > 0; level--)
+				{
+					if((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0)
+					{
+						cascade(level, (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK));
+					}
+				}
+				expire((int) (currentTick & WHEEL_MASK));
+			}
+			catch(Throwable e)
+			{
+				LOGGER.log(Level.SEVERE, "Exception occurred in timing wheel tick " + currentTick, e);
+			}
+		}
+	}
+
+	private void unlinkCancelledTimers()
+	{
+		TimerHandle timerHandle;
+		for(int i = 0; i < MAX_TRANSFERS_PER_TICK && Objects.nonNull(timerHandle = cancelledTimers.poll()); i++)
+		{
+			unlink(timerHandle);
+		}
+	}
+
+	private void linkScheduledTimers()
+	{
+		TimerHandle timerHandle;
+		for(int i = 0; i < MAX_TRANSFERS_PER_TICK && Objects.nonNull(timerHandle = scheduledTimers.poll()); i++)
+		{
+			if(timerHandle.state.get() == PENDING)
+			{
+				link(timerHandle);
+			}
+		}
+	}
+
+	// Picks the lowest level whose span covers the deadline; deadlines already passed go to the next tick
+	private void link(TimerHandle timerHandle)
+	{
+		long deadlineTick = Math.max(timerHandle.deadlineTick, currentTick + 1);
+		long delta = Math.min(deadlineTick - currentTick, MAX_TICK_DELTA);
+		int level = 0;
+		while(delta >= (1L << (WHEEL_BITS * (level + 1))))
+		{
+			level++;
+		}
+		int slot = (int) ((Math.min(deadlineTick, currentTick + MAX_TICK_DELTA) >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+		timerHandle.level = level;
+		timerHandle.slot = slot;
+		timerHandle.previous = null;
+		timerHandle.next = slots[level][slot];
+		if(Objects.nonNull(timerHandle.next))
+		{
+			timerHandle.next.previous = timerHandle;
+		}
+		slots[level][slot] = timerHandle;
+	}
+
+	private void unlink(TimerHandle timerHandle)
+	{
+		if(timerHandle.level < 0)
+		{
+			return;
+		}
+		if(Objects.isNull(timerHandle.previous))
+		{
+			slots[timerHandle.level][timerHandle.slot] = timerHandle.next;
+		}
+		else
+		{
+			timerHandle.previous.next = timerHandle.next;
+		}
+		if(Objects.nonNull(timerHandle.next))
+		{
+			timerHandle.next.previous = timerHandle.previous;
+		}
+		timerHandle.level = -1;
+		timerHandle.previous = null;
+		timerHandle.next = null;
+	}
+
+	private TimerHandle detach(int level, int slot)
+	{
+		TimerHandle head = slots[level][slot];
+		slots[level][slot] = null;
+		return head;
+	}
+
+	private void cascade(int level, int slot)
+	{
+		TimerHandle timerHandle = detach(level, slot);
+		while(Objects.nonNull(timerHandle))
+		{
+			TimerHandle next = timerHandle.next;
+			timerHandle.level = -1;
+			if(timerHandle.state.get() == PENDING)
+			{
+				link(timerHandle);
+			}
+			timerHandle = next;
+		}
+	}
+
+	private void expire(int slot)
+	{
+		TimerHandle timerHandle = detach(0, slot);
+		while(Objects.nonNull(timerHandle))
+		{
+			TimerHandle next = timerHandle.next;
+			timerHandle.level = -1;
+			timerHandle.previous = null;
+			timerHandle.next = null;
+
+			if(timerHandle.deadlineTick > currentTick)
+			{
+				// Deadlines beyond the span of the wheel are parked at the top level until they come within it
+				if(timerHandle.state.get() == PENDING)
+				{
+					link(timerHandle);
+				}
+			}
+			else if(timerHandle.state.compareAndSet(PENDING, EXPIRED))
+			{
+				pendingCount.decrement();
+				expiredCount.increment();
+				try
+				{
+					workerPool.execute(timerHandle.task);
+				}
+				catch(RejectedExecutionException e)
+				{
+					LOGGER.log(Level.WARNING, "Timer task rejected by worker pool", e);
+				}
+			}
+			timerHandle = next;
+		}
+	}
+
+	public void shutdown()
+	{
+		isRunning = false;
+		LockSupport.unpark(tickerThread);
+		workerPool.shutdownNow();
+	}
+
+	public Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("tick_ms", TimeUnit.NANOSECONDS.toMillis(tickNanos));
+		metrics.put("pending_count", pendingCount.sum());
+		metrics.put("expired_count", expiredCount.sum());
+		metrics.put("cancelled_count", cancelledCount.sum());
+		return metrics;
+	}
+}
@@ -0,0 +1,127 @@
+package com.server.framework.persistence;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.server.framework.common.AppProperties;
+import com.server.framework.common.DateUtil;
+
+class BatchInsertEngine
+{
+	private static final Map<String, TableBatchStats> TABLE_BATCH_STATS_MAP = new ConcurrentHashMap<>();
+
+	private static class TableBatchStats
+	{
+		private final LongAdder rowCount = new LongAdder();
+		private final LongAdder batchCount = new LongAdder();
+		private final LongAdder timeNanos = new LongAdder();
+	}
+
+	static void insert(StatementCache statementCache, DataObject dataObject) throws Exception
+	{
+		int batchSize = Math.max(1, AppProperties.getIntProperty("db.access.batch.size", 500));
+
+		for(String table : getInsertOrder(dataObject.getTables()))
+		{
+			TableSchema tableSchema = SchemaCatalog.getTableSchema(table);
+			List<String> columnList = tableSchema.getColumnList();
+			boolean hasCreatedTime = tableSchema.hasColumn("CreatedTime");
+			TableBatchStats tableBatchStats = TABLE_BATCH_STATS_MAP.computeIfAbsent(table, key -> new TableBatchStats());
+
+			PreparedStatement preparedStatement = statementCache.prepareStatement(DataAccessUtil.getInsertQueryString(table));
+
+			long startTime = System.nanoTime();
+			int pendingRows = 0;
+
+			for(Row row : dataObject.getRows(table))
+			{
+				if(hasCreatedTime)
+				{
+					row.set("CreatedTime", DateUtil.getCurrentTimeInMillis());
+				}
+				int i = 1;
+				for(String columnName : columnList)
+				{
+					preparedStatement.setObject(i++, row.get(columnName));
+				}
+
+				preparedStatement.addBatch();
+
+				if(++pendingRows == batchSize)
+				{
+					preparedStatement.executeBatch();
+					tableBatchStats.batchCount.increment();
+					tableBatchStats.rowCount.add(pendingRows);
+					pendingRows = 0;
+				}
+			}
+
+			if(pendingRows > 0)
+			{
+				preparedStatement.executeBatch();
+				tableBatchStats.batchCount.increment();
+				tableBatchStats.rowCount.add(pendingRows);
+			}
+
+			tableBatchStats.timeNanos.add(System.nanoTime() - startTime);
+		}
+	}
+
+	// Parent tables are inserted before the tables that reference them
+	static List<String> getInsertOrder(Collection<String> tableList) throws Exception
+	{
+		List<String> orderedTableList = new ArrayList<>();
+		Set<String> visitedTableSet = new HashSet<>();
+		for(String table : tableList)
+		{
+			visit(table, tableList, visitedTableSet, orderedTableList);
+		}
+		return orderedTableList;
+	}
+
+	private static void visit(String table, Collection<String> tableList, Set<String> visitedTableSet, List<String> orderedTableList) throws Exception
+	{
+		if(!visitedTableSet.add(table))
+		{
+			return;
+		}
+
+		for(String referenceTable : SchemaCatalog.getTableSchema(table).getFKReferenceTableMap().values())
+		{
+			if(!Objects.equals(referenceTable, table) && tableList.contains(referenceTable))
+			{
+				visit(referenceTable, tableList, visitedTableSet, orderedTableList);
+			}
+		}
+
+		orderedTableList.add(table);
+	}
+
+	static List<Map<String, Object>> getMetrics()
+	{
+		List<Map<String, Object>> metricsList = new ArrayList<>();
+		TABLE_BATCH_STATS_MAP.forEach((table, tableBatchStats) -> {
+			long rowCount = tableBatchStats.rowCount.sum();
+			long timeNanos = tableBatchStats.timeNanos.sum();
+
+			Map<String, Object> metrics = new LinkedHashMap<>();
+			metrics.put("table", table);
+			metrics.put("row_count", rowCount);
+			metrics.put("batch_count", tableBatchStats.batchCount.sum());
+			metrics.put("time_ms", TimeUnit.NANOSECONDS.toMillis(timeNanos));
+			metrics.put("rows_per_second", timeNanos == 0 ? 0 : rowCount * TimeUnit.SECONDS.toNanos(1) / timeNanos);
+			metricsList.add(metrics);
+		});
+		return metricsList;
+	}
+}
@@ -0,0 +1,566 @@
+package com.server.framework.persistence;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.server.framework.common.AppProperties;
+import com.server.framework.common.CustomThreadFactory;
+
+// Dumps a SelectQuery to CSV or NDJSON without loading it into a DataObject. The query is split into contiguous PK ranges, equal value
+// ranges between MIN and MAX for integral keys and ranges of equal row count walked over the PK index otherwise, each streamed on its
+// own read connection into a part file. Parts are then either concatenated into the output file
+// or left in place and listed in a manifest next to it.
+public class BulkExporter
+{
+	private static final Logger LOGGER = Logger.getLogger(BulkExporter.class.getName());
+
+	private static final int PARTITIONS_PER_THREAD = 4;
+	private static final String ROW_COUNT_ALIAS = "ROW_COUNT";
+	private static final String MIN_PK_ALIAS = "MIN_PK";
+	private static final String MAX_PK_ALIAS = "MAX_PK";
+
+	public enum Format
+	{
+		CSV(".csv"), NDJSON(".ndjson");
+
+		private final String extension;
+
+		Format(String extension)
+		{
+			this.extension = extension;
+		}
+	}
+
+	private static class Partition
+	{
+		private final int index;
+		private final Object lowerPK;
+		private final Object upperPK;
+		private final Path path;
+		private String[] headers;
+		private long rowCount;
+		private long byteCount;
+		private long timeNanos;
+
+		private Partition(int index, Object lowerPK, Object upperPK, Path path)
+		{
+			this.index = index;
+			this.lowerPK = lowerPK;
+			this.upperPK = upperPK;
+			this.path = path;
+		}
+	}
+
+	public static Map<String, Object> export(SelectQuery selectQuery, Format format, Path outputPath, boolean isMerge) throws Exception
+	{
+		return export(selectQuery, format, outputPath, isMerge, getDefaultParallelism());
+	}
+
+	// With isMerge the rows end up in outputPath, otherwise the parts are kept and outputPath holds a JSON manifest of them
+	public static Map<String, Object> export(SelectQuery selectQuery, Format format, Path outputPath, boolean isMerge, int parallelism) throws Exception
+	{
+		if(Objects.nonNull(DataAccess.Transaction.getActiveTxnFromTL()))
+		{
+			LOGGER.warning("Bulk export runs on its own connections, uncommitted changes of the active transaction are not exported");
+		}
+
+		long startTime = System.nanoTime();
+		Path directory = Objects.requireNonNullElse(outputPath.toAbsolutePath().getParent(), Path.of("."));
+		Files.createDirectories(directory);
+
+		List<Partition> partitionList = getPartitionList(selectQuery, outputPath, Math.max(1, parallelism));
+		ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, partitionList.size()), new CustomThreadFactory("bulk-export-"));
+
+		try
+		{
+			List<Future<?>> futureList = new ArrayList<>();
+			for(Partition partition : partitionList)
+			{
+				// Merged parts skip the CSV header, it is written once at the top of the output file
+				boolean needHeader = !isMerge || partitionList.size() == 1;
+				futureList.add(executorService.submit(() -> {
+					exportPartition(selectQuery, format, partition, needHeader);
+					return null;
+				}));
+			}
+
+			for(Future<?> future : futureList)
+			{
+				try
+				{
+					future.get();
+				}
+				catch(ExecutionException e)
+				{
+					futureList.forEach(pendingFuture -> pendingFuture.cancel(true));
+					throw e.getCause() instanceof Exception exception ? exception : e;
+				}
+			}
+		}
+		catch(Exception e)
+		{
+			executorService.shutdownNow();
+			executorService.awaitTermination(1, TimeUnit.MINUTES);
+			for(Partition partition : partitionList)
+			{
+				Files.deleteIfExists(partition.path);
+			}
+			throw e;
+		}
+		finally
+		{
+			executorService.shutdown();
+		}
+
+		if(isMerge)
+		{
+			mergePartitions(format, partitionList, outputPath);
+		}
+		else
+		{
+			writeManifest(format, partitionList, outputPath);
+		}
+
+		long timeNanos = System.nanoTime() - startTime;
+		long rowCount = partitionList.stream().mapToLong(partition -> partition.rowCount).sum();
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("output", outputPath.toString());
+		result.put("format", format.name());
+		result.put("merged", isMerge);
+		result.put("row_count", rowCount);
+		result.put("byte_count", partitionList.stream().mapToLong(partition -> partition.byteCount).sum());
+		result.put("partition_count", partitionList.size());
+		result.put("parallelism", Math.min(parallelism, partitionList.size()));
+		result.put("time_ms", TimeUnit.NANOSECONDS.toMillis(timeNanos));
+		result.put("rows_per_second", timeNanos == 0 ? 0D : rowCount * 1_000_000_000D / timeNanos);
+
+		LOGGER.info("Exported " + rowCount + " rows of " + selectQuery.tableName + " to " + outputPath + " in " + partitionList.size() + " partitions");
+		return result;
+	}
+
+	// Bounded by cores and by the read pool, leaving one connection free for regular requests
+	private static int getDefaultParallelism()
+	{
+		int parallelism = AppProperties.getIntProperty("db.access.export.parallelism", 0);
+		if(parallelism > 0)
+		{
+			return parallelism;
+		}
+
+		parallelism = Runtime.getRuntime().availableProcessors();
+		int poolSize = DBUtil.getReadPoolSize();
+		if(poolSize > 0)
+		{
+			parallelism = Math.min(parallelism, poolSize - 1);
+		}
+		return Math.max(1, parallelism);
+	}
+
+	private static List<Partition> getPartitionList(SelectQuery selectQuery, Path outputPath, int parallelism) throws Exception
+	{
+		List<Partition> partitionList = new ArrayList<>();
+		List<String> pkList = DBUtil.getPKList(selectQuery.tableName);
+
+		// Composite keys, grouped/limited queries and explicit ordering cannot be split into independent PK ranges
+		boolean isPartitionable = pkList.size() == 1 && Objects.isNull(selectQuery.range) && Objects.isNull(selectQuery.groupByClause) && selectQuery.sortColumnList.isEmpty();
+		if(!isPartitionable || parallelism == 1)
+		{
+			partitionList.add(new Partition(0, null, null, getPartitionPath(outputPath, 0)));
+			return partitionList;
+		}
+
+		Column pkColumn = Column.getColumn(selectQuery.tableName, pkList.get(0));
+
+		Function countFunction = Function.createFunction(Function.Constants.COUNT, pkColumn);
+		countFunction.setAliasName(ROW_COUNT_ALIAS);
+		Function minFunction = Function.createFunction(Function.Constants.MIN, pkColumn);
+		minFunction.setAliasName(MIN_PK_ALIAS);
+		Function maxFunction = Function.createFunction(Function.Constants.MAX, pkColumn);
+		maxFunction.setAliasName(MAX_PK_ALIAS);
+		SelectQuery statsQuery = copyOf(selectQuery, selectQuery.criteria);
+		statsQuery.selectColumnList = List.of(countFunction, minFunction, maxFunction);
+
+		Object[] stats = getFirstValues(statsQuery);
+		long rowCount = Objects.isNull(stats) || Objects.isNull(stats[0]) ? 0L : ((Number) stats[0]).longValue();
+
+		long minPartitionRowCount = AppProperties.getLongProperty("db.access.export.partition.min.rows", 10000L);
+		int partitionCount = (int) Math.max(1L, Math.min((long) parallelism * PARTITIONS_PER_THREAD, rowCount / Math.max(1L, minPartitionRowCount)));
+
+		// Only the first and last ranges are open, so rows added after the count still land in some partition
+		List<Object> boundaryPKList = partitionCount == 1 ? List.of() : isIntegral(stats[1]) && isIntegral(stats[2])
+			? getRangeBoundaries(((Number) stats[1]).longValue(), ((Number) stats[2]).longValue(), partitionCount)
+			: getKeysetBoundaries(selectQuery, pkColumn, partitionCount, (rowCount + partitionCount - 1) / partitionCount);
+
+		for(int i = 0; i <= boundaryPKList.size(); i++)
+		{
+			Object lowerPK = i == 0 ? null : boundaryPKList.get(i - 1);
+			Object upperPK = i == boundaryPKList.size() ? null : boundaryPKList.get(i);
+			partitionList.add(new Partition(i, lowerPK, upperPK, getPartitionPath(outputPath, i)));
+		}
+		return partitionList;
+	}
+
+	private static boolean isIntegral(Object value)
+	{
+		return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+	}
+
+	// Splits MIN..MAX of an integral PK into equal value ranges, which balances the partitions as far as the keys are dense
+	private static List<Object> getRangeBoundaries(long minPK, long maxPK, int partitionCount)
+	{
+		List<Object> boundaryPKList = new ArrayList<>();
+		BigInteger span = BigInteger.valueOf(maxPK).subtract(BigInteger.valueOf(minPK)).add(BigInteger.ONE);
+		long previousPK = minPK;
+		for(int i = 1; i < partitionCount; i++)
+		{
+			long boundaryPK = BigInteger.valueOf(minPK).add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitionCount))).longValue();
+			if(boundaryPK > previousPK)
+			{
+				boundaryPKList.add(boundaryPK);
+				previousPK = boundaryPK;
+			}
+		}
+		return boundaryPKList;
+	}
+
+	// Walks the PK index from one boundary to the next, so each probe skips one partition worth of rows instead of counting from the start
+	private static List<Object> getKeysetBoundaries(SelectQuery selectQuery, Column pkColumn, int partitionCount, long partitionRowCount) throws Exception
+	{
+		List<Object> boundaryPKList = new ArrayList<>();
+		int offset = (int) Math.min(Integer.MAX_VALUE - 1, partitionRowCount - 1);
+		Object previousPK = null;
+		for(int i = 1; i < partitionCount; i++)
+		{
+			Criteria criteria = selectQuery.criteria;
+			if(Objects.nonNull(previousPK))
+			{
+				Criteria keysetCriteria = new Criteria(pkColumn.tableName, pkColumn.columnName, previousPK, Criteria.Constants.GREATER_THAN);
+				criteria = Objects.isNull(criteria) ? keysetCriteria : criteria.and(keysetCriteria);
+			}
+
+			SelectQuery boundaryQuery = copyOf(selectQuery, criteria);
+			boundaryQuery.selectColumnList = List.of(pkColumn);
+			boundaryQuery.addSortColumn(new SortColumn(pkColumn, true));
+			boundaryQuery.setRange(new Range(Objects.isNull(previousPK) ? offset + 1 : offset, 1));
+
+			Object[] values = getFirstValues(boundaryQuery);
+			if(Objects.isNull(values) || Objects.isNull(values[0]))
+			{
+				break;
+			}
+			previousPK = values[0];
+			boundaryPKList.add(previousPK);
+		}
+		return boundaryPKList;
+	}
+
+	private static Object[] getFirstValues(SelectQuery selectQuery) throws Exception
+	{
+		try(RowIterator rowIterator = new RowIterator(selectQuery))
+		{
+			return rowIterator.hasNext() ? rowIterator.next().values : null;
+		}
+	}
+
+	private static SelectQuery copyOf(SelectQuery selectQuery, Criteria criteria)
+	{
+		SelectQuery copy = new SelectQuery(selectQuery.tableName);
+		copy.criteria = criteria;
+		copy.joinList = selectQuery.joinList;
+		copy.selectColumnList = selectQuery.selectColumnList;
+		copy.fetchSize = selectQuery.fetchSize;
+		return copy;
+	}
+
+	private static Path getPartitionPath(Path outputPath, int index)
+	{
+		return outputPath.resolveSibling(outputPath.getFileName() + String.format(".part-%05d", index));
+	}
+
+	private static void exportPartition(SelectQuery selectQuery, Format format, Partition partition, boolean needHeader) throws Exception
+	{
+		long startTime = System.nanoTime();
+
+		SelectQuery partitionQuery = selectQuery;
+		if(Objects.nonNull(partition.lowerPK) || Objects.nonNull(partition.upperPK))
+		{
+			String pk = DBUtil.getPKList(selectQuery.tableName).get(0);
+			Criteria criteria = selectQuery.criteria;
+			if(Objects.nonNull(partition.lowerPK))
+			{
+				Criteria lowerCriteria = new Criteria(selectQuery.tableName, pk, partition.lowerPK, Criteria.Constants.GREATER_THAN_EQUAL);
+				criteria = Objects.isNull(criteria) ? lowerCriteria : criteria.and(lowerCriteria);
+			}
+			if(Objects.nonNull(partition.upperPK))
+			{
+				Criteria upperCriteria = new Criteria(selectQuery.tableName, pk, partition.upperPK, Criteria.Constants.LESS_THAN);
+				criteria = Objects.isNull(criteria) ? upperCriteria : criteria.and(upperCriteria);
+			}
+			partitionQuery = copyOf(selectQuery, criteria);
+		}
+
+		try(RowIterator rowIterator = new RowIterator(partitionQuery); ExportWriter exportWriter = new ExportWriter(partition.path))
+		{
+			String[] headers = getHeaders(partitionQuery, rowIterator.getRowLayout());
+			partition.headers = headers;
+			if(needHeader && format == Format.CSV)
+			{
+				exportWriter.write(toCSVLine(headers));
+			}
+
+			StringBuilder lineBuilder = new StringBuilder();
+			while(rowIterator.hasNext())
+			{
+				Object[] values = rowIterator.next().values;
+				lineBuilder.setLength(0);
+				if(format == Format.CSV)
+				{
+					appendCSVLine(values, headers.length, lineBuilder);
+				}
+				else
+				{
+					appendJSONLine(headers, values, lineBuilder);
+				}
+				exportWriter.write(lineBuilder);
+				partition.rowCount++;
+			}
+
+			partition.byteCount = exportWriter.getByteCount();
+		}
+
+		partition.timeNanos = System.nanoTime() - startTime;
+	}
+
+	private static String[] getHeaders(SelectQuery selectQuery, RowLayout rowLayout)
+	{
+		String[] headers = new String[rowLayout.getSelectColumnCount()];
+		for(int i = 0; i < headers.length; i++)
+		{
+			String key = rowLayout.getKey(i);
+			headers[i] = selectQuery.joinList.isEmpty() ? key.substring(key.indexOf('.') + 1) : key;
+		}
+		return headers;
+	}
+
+	private static String toCSVLine(String[] headers)
+	{
+		StringBuilder lineBuilder = new StringBuilder();
+		appendCSVLine(headers, headers.length, lineBuilder);
+		return lineBuilder.toString();
+	}
+
+	private static void appendCSVLine(Object[] values, int columnCount, StringBuilder lineBuilder)
+	{
+		for(int i = 0; i < columnCount; i++)
+		{
+			if(i > 0)
+			{
+				lineBuilder.append(',');
+			}
+
+			Object value = values[i];
+			if(Objects.isNull(value))
+			{
+				continue;
+			}
+
+			String valueString = String.valueOf(value);
+			if(valueString.indexOf(',') == -1 && valueString.indexOf('"') == -1 && valueString.indexOf('\n') == -1 && valueString.indexOf('\r') == -1)
+			{
+				lineBuilder.append(valueString);
+				continue;
+			}
+
+			lineBuilder.append('"');
+			for(int j = 0; j < valueString.length(); j++)
+			{
+				char c = valueString.charAt(j);
+				if(c == '"')
+				{
+					lineBuilder.append('"');
+				}
+				lineBuilder.append(c);
+			}
+			lineBuilder.append('"');
+		}
+		lineBuilder.append('\n');
+	}
+
+	private static void appendJSONLine(String[] headers, Object[] values, StringBuilder lineBuilder)
+	{
+		lineBuilder.append('{');
+		for(int i = 0; i < headers.length; i++)
+		{
+			if(i > 0)
+			{
+				lineBuilder.append(',');
+			}
+			lineBuilder.append(JSONObject.quote(headers[i])).append(':');
+
+			Object value = values[i];
+			if(Objects.isNull(value))
+			{
+				lineBuilder.append("null");
+			}
+			else if(value instanceof Number || value instanceof Boolean)
+			{
+				lineBuilder.append(value);
+			}
+			else
+			{
+				lineBuilder.append(JSONObject.quote(String.valueOf(value)));
+			}
+		}
+		lineBuilder.append("}\n");
+	}
+
+	private static void mergePartitions(Format format, List<Partition> partitionList, Path outputPath) throws Exception
+	{
+		if(partitionList.size() == 1)
+		{
+			Files.move(partitionList.get(0).path, outputPath, StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
+
+		try(FileChannel outputChannel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			if(format == Format.CSV)
+			{
+				String[] headers = partitionList.get(0).headers;
+				outputChannel.write(ByteBuffer.wrap(toCSVLine(headers).getBytes(StandardCharsets.UTF_8)));
+			}
+
+			for(Partition partition : partitionList)
+			{
+				try(FileChannel partChannel = FileChannel.open(partition.path, StandardOpenOption.READ))
+				{
+					long position = 0;
+					long size = partChannel.size();
+					while(position < size)
+					{
+						position += partChannel.transferTo(position, size - position, outputChannel);
+					}
+				}
+				Files.delete(partition.path);
+			}
+		}
+	}
+
+	private static void writeManifest(Format format, List<Partition> partitionList, Path outputPath) throws IOException
+	{
+		JSONArray partArray = new JSONArray();
+		for(Partition partition : partitionList)
+		{
+			Path partPath = partition.path.resolveSibling(partition.path.getFileName() + format.extension);
+			Files.move(partition.path, partPath, StandardCopyOption.REPLACE_EXISTING);
+
+			JSONObject part = new JSONObject();
+			part.put("index", partition.index);
+			part.put("file", partPath.getFileName().toString());
+			part.put("lower_pk", Objects.isNull(partition.lowerPK) ? JSONObject.NULL : partition.lowerPK);
+			part.put("upper_pk", Objects.isNull(partition.upperPK) ? JSONObject.NULL : partition.upperPK);
+			part.put("row_count", partition.rowCount);
+			part.put("byte_count", partition.byteCount);
+			part.put("time_ms", TimeUnit.NANOSECONDS.toMillis(partition.timeNanos));
+			partArray.put(part);
+		}
+
+		JSONObject manifest = new JSONObject();
+		manifest.put("format", format.name());
+		manifest.put("parts", partArray);
+		Files.writeString(outputPath, manifest.toString(2), StandardCharsets.UTF_8);
+	}
+
+	// Rows are encoded into one reused buffer and handed to the channel only when it fills up
+	private static class ExportWriter implements AutoCloseable
+	{
+		private final FileChannel fileChannel;
+		private final ByteBuffer byteBuffer;
+		private long byteCount;
+
+		private ExportWriter(Path path) throws IOException
+		{
+			this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.byteBuffer = ByteBuffer.allocateDirect(AppProperties.getIntProperty("db.access.export.buffer.size", 262144));
+		}
+
+		private void write(CharSequence text) throws IOException
+		{
+			byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+			byteCount += bytes.length;
+
+			if(bytes.length > byteBuffer.remaining())
+			{
+				flush();
+			}
+
+			if(bytes.length > byteBuffer.capacity())
+			{
+				ByteBuffer largeBuffer = ByteBuffer.wrap(bytes);
+				while(largeBuffer.hasRemaining())
+				{
+					fileChannel.write(largeBuffer);
+				}
+				return;
+			}
+
+			byteBuffer.put(bytes);
+		}
+
+		private void flush() throws IOException
+		{
+			byteBuffer.flip();
+			while(byteBuffer.hasRemaining())
+			{
+				fileChannel.write(byteBuffer);
+			}
+			byteBuffer.clear();
+		}
+
+		private long getByteCount()
+		{
+			return byteCount;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			try
+			{
+				flush();
+			}
+			catch(IOException e)
+			{
+				LOGGER.log(Level.SEVERE, "Exception occurred while flushing export buffer", e);
+				throw e;
+			}
+			finally
+			{
+				fileChannel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.server.framework.persistence;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+public class ConnectionPool
+{
+	private final String name;
+	private final DataSource dataSource;
+	private final boolean isShared;
+
+	private final LongAdder acquireCount = new LongAdder();
+	private final LongAdder acquireTimeNanos = new LongAdder();
+	private final AtomicLong maxAcquireTimeNanos = new AtomicLong();
+	private final LongAdder acquireTimeoutCount = new LongAdder();
+	private final LongAdder acquireFailureCount = new LongAdder();
+
+	ConnectionPool(String name, DataSource dataSource, boolean isShared)
+	{
+		this.name = name;
+		this.dataSource = dataSource;
+		this.isShared = isShared;
+	}
+
+	Connection getConnection() throws Exception
+	{
+		long startTime = System.nanoTime();
+		try
+		{
+			Connection connection = dataSource.getConnection();
+			long waitTime = System.nanoTime() - startTime;
+			acquireCount.increment();
+			acquireTimeNanos.add(waitTime);
+			maxAcquireTimeNanos.accumulateAndGet(waitTime, Math::max);
+			return connection;
+		}
+		catch(SQLTransientConnectionException e)
+		{
+			acquireTimeoutCount.increment();
+			throw e;
+		}
+		catch(Exception e)
+		{
+			acquireFailureCount.increment();
+			throw e;
+		}
+	}
+
+	String getName()
+	{
+		return name;
+	}
+
+	// -1 when the pool size is not known, e.g. a non Hikari data source shared from spring
+	int getMaximumPoolSize()
+	{
+		return dataSource instanceof HikariDataSource hikariDataSource ? hikariDataSource.getMaximumPoolSize() : -1;
+	}
+
+	Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("name", name);
+		metrics.put("shared_with_spring", isShared);
+
+		long acquired = acquireCount.sum();
+		metrics.put("acquire_count", acquired);
+		metrics.put("acquire_timeout_count", acquireTimeoutCount.sum());
+		metrics.put("acquire_failure_count", acquireFailureCount.sum());
+		metrics.put("avg_wait_time_ms", acquired == 0 ? 0D : (double) TimeUnit.NANOSECONDS.toMicros(acquireTimeNanos.sum() / acquired) / 1000D);
+		metrics.put("max_wait_time_ms", (double) TimeUnit.NANOSECONDS.toMicros(maxAcquireTimeNanos.get()) / 1000D);
+
+		if(dataSource instanceof HikariDataSource hikariDataSource)
+		{
+			metrics.put("maximum_pool_size", hikariDataSource.getMaximumPoolSize());
+			metrics.put("minimum_idle", hikariDataSource.getMinimumIdle());
+			metrics.put("connection_timeout_ms", hikariDataSource.getConnectionTimeout());
+
+			HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
+			if(Objects.nonNull(poolMXBean))
+			{
+				metrics.put("active_connections", poolMXBean.getActiveConnections());
+				metrics.put("idle_connections", poolMXBean.getIdleConnections());
+				metrics.put("total_connections", poolMXBean.getTotalConnections());
+				metrics.put("threads_awaiting_connection", poolMXBean.getThreadsAwaitingConnection());
+			}
+		}
+
+		return metrics;
+	}
+}
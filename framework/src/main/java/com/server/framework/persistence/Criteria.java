@@ -45,7 +45,7 @@ public class Criteria
 		private boolean matches(Object lhsValue, Object rhsValue)
 		{
 			String lhsValueString = String.valueOf(lhsValue);
-			String rhsValueString = String.valueOf(lhsValue);
+			String rhsValueString = String.valueOf(rhsValue);
 			return switch(comparator)
 				{
 					case Constants.EQUAL -> Objects.equals(lhsValue, rhsValue);
@@ -57,8 +57,8 @@ public class Criteria
 					case Constants.LESS_THAN_EQUAL -> Long.parseLong(lhsValueString) <= Long.parseLong(rhsValueString);
 					case Constants.GREATER_THAN_EQUAL -> Long.parseLong(lhsValueString) >= Long.parseLong(rhsValueString);
 					case Constants.LIKE -> StringUtils.contains(lhsValueString, rhsValueString);
-					case Constants.IN -> ((List) rhsValue).contains(rhsValue);
-					case Constants.NOT_IN -> !((List) rhsValue).contains(rhsValue);
+					case Constants.IN -> ((List) rhsValue).contains(lhsValue);
+					case Constants.NOT_IN -> !((List) rhsValue).contains(lhsValue);
 					default -> false;
 				};
 		}
@@ -1,114 +1,177 @@
 package com.server.framework.persistence;
 
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+import javax.sql.DataSource;
+
+import com.server.framework.common.AppContextHolder;
 import com.server.framework.common.AppProperties;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 public class DBUtil
 {
-	private static final HikariDataSource dataSource;
+	private static final ConnectionPool txnPool;
+	private static final ConnectionPool readPool;
+	// Short internal transactions which run while the caller may hold a txnPool connection, so that they never wait on that pool
+	private static final ConnectionPool systemPool;
+	// Created on first use, only instances keeping rate limits in the database need it
+	private static volatile ConnectionPool throttlePool;
 	public static final String schemaName = AppProperties.getProperty("db.server.schema");
 
 
 	static
+	{
+		if(AppProperties.getBooleanProperty("db.access.pool.shared", false))
+		{
+			txnPool = new ConnectionPool("spring", AppContextHolder.getBean(DataSource.class), true);
+			readPool = txnPool;
+		}
+		else
+		{
+			txnPool = new ConnectionPool("DataAccessTxnPool", createDataSource("DataAccessTxnPool", AppProperties.getIntProperty("db.access.pool.size", 5)), false);
+
+			int readPoolSize = AppProperties.getIntProperty("db.access.pool.read.size", 0);
+			readPool = readPoolSize > 0 ? new ConnectionPool("DataAccessReadPool", createDataSource("DataAccessReadPool", readPoolSize), false) : txnPool;
+		}
+
+		systemPool = new ConnectionPool("DataAccessSystemPool", createDataSource("DataAccessSystemPool", Math.max(1, AppProperties.getIntProperty("db.access.pool.system.size", 2))), false);
+	}
+
+	private static HikariDataSource createDataSource(String poolName, int poolSize)
 	{
 		HikariConfig config = new HikariConfig();
 		String jdbcUrl = AppProperties.getProperty("spring.datasource.url");
 		config.setJdbcUrl(jdbcUrl);
 		config.setUsername(AppProperties.getProperty("spring.datasource.username"));
 		config.setPassword(AppProperties.getProperty("spring.datasource.password"));
-		config.setMaximumPoolSize(1);
-		config.setMinimumIdle(1);
+		config.setMaximumPoolSize(poolSize);
+		config.setMinimumIdle(Math.min(AppProperties.getIntProperty("db.access.pool.minimum.idle", 1), poolSize));
 		config.setIdleTimeout(30000);
-		config.setConnectionTimeout(30000);
-		config.setPoolName("MyHikariCP");
+		config.setConnectionTimeout(AppProperties.getLongProperty("db.access.pool.connection.timeout.ms", 30000L));
+		config.setPoolName(poolName);
 		config.setAutoCommit(false);
 
-		dataSource = new HikariDataSource(config);
-	}
+		if(jdbcUrl.startsWith("jdbc:mysql"))
+		{
+			config.addDataSourceProperty("cachePrepStmts", "true");
+			config.addDataSourceProperty("prepStmtCacheSize", "250");
+			config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+			config.addDataSourceProperty("rewriteBatchedStatements", "true");
+		}
 
-	private static final Map<String, List<String>> tablePkList = new HashMap<>();
-	private static final Map<String, List<String>> tableFkList = new HashMap<>();
+		return new HikariDataSource(config);
+	}
 
 	public static List<String> columnList(String tableName) throws Exception
 	{
-		List<String> columnList = new ArrayList<>();
-		try(Connection connection = DBUtil.getServerDBConnection())
-		{
-			DatabaseMetaData databaseMetaData = connection.getMetaData();
-
-			ResultSet columnResultSet = databaseMetaData.getColumns(null, DBUtil.schemaName, tableName, null);
-			while(columnResultSet.next())
-			{
-				String columnName = columnResultSet.getString("COLUMN_NAME");
-				columnList.add(columnName);
-			}
-		}
-		return columnList;
+		return SchemaCatalog.getTableSchema(tableName).getColumnList();
 	}
 
 	public static List<String> getPKList(String tableName) throws Exception
 	{
-		if(tablePkList.containsKey(tableName))
+		return SchemaCatalog.getTableSchema(tableName).getPKList();
+	}
+
+	public static List<String> getFKList(String tableName)
+	{
+		try
 		{
-			return tablePkList.get(tableName);
+			return SchemaCatalog.getTableSchema(tableName).getFKList();
 		}
-		List<String> pkList = new ArrayList<>();
-		try(Connection connection = DBUtil.getServerDBConnection())
+		catch(Exception e)
 		{
-			ResultSet resultSet = connection.getMetaData().getPrimaryKeys(null, schemaName, tableName);
-			while(resultSet.next())
-			{
-				pkList.add(resultSet.getString("COLUMN_NAME"));
-			}
-			tablePkList.put(tableName, pkList);
 		}
-		return pkList;
+		return new ArrayList<>();
 	}
 
-	public static List<String> getFKList(String tableName)
+	public static Connection getServerDBConnection() throws Exception
 	{
-		if(tableFkList.containsKey(tableName))
+		Connection connection = readPool.getConnection();
+		connection.setAutoCommit(true); //HirakiCP wil automatically reset it to false based on config after connection is returned to pool
+		return connection;
+	}
+
+	public static Connection getServerDBConnectionForRead() throws Exception
+	{
+		Connection connection = DataAccess.Transaction.getActiveTxnFromTL();
+		return Objects.isNull(connection) ? getServerDBConnection() : connection;
+	}
+
+	public static Connection getServerDBConnectionForTxn() throws Exception
+	{
+		Connection connection = DataAccess.Transaction.getActiveTxnFromTL();
+		if(Objects.nonNull(connection))
 		{
-			return tableFkList.get(tableName);
+			return connection;
 		}
 
-		List<String> fkList = new ArrayList<>();
-		try(Connection connection = DBUtil.getServerDBConnection())
-		{
-			ResultSet resultSet = connection.getMetaData().getImportedKeys(null, schemaName, tableName);
+		connection = txnPool.getConnection();
+		connection.setAutoCommit(false); // Shared spring pool hands out auto-commit connections by default
+		return connection;
+	}
+
+	// Connection outside of any active DataAccess.Transaction, for work that has to commit independently of the caller
+	public static Connection getIsolatedServerDBConnectionForTxn() throws Exception
+	{
+		Connection connection = txnPool.getConnection();
+		connection.setAutoCommit(false);
+		return connection;
+	}
+
+	// Connection of the system pool, for id segment reservation and similar bookkeeping. Callers keep it for a single short transaction
+	// and never open a DataAccess.Transaction or take another connection while holding it.
+	public static Connection getSystemDBConnection() throws Exception
+	{
+		Connection connection = systemPool.getConnection();
+		connection.setAutoCommit(false);
+		return connection;
+	}
 
-			while(resultSet.next())
+	// Connection of a pool of its own for the jdbc rate limit store, which takes a row lock per lease on the request path
+	public static Connection getThrottleDBConnection() throws Exception
+	{
+		ConnectionPool pool = throttlePool;
+		if(Objects.isNull(pool))
+		{
+			synchronized(DBUtil.class)
 			{
-				fkList.add(resultSet.getString("FKCOLUMN_NAME"));
+				if(Objects.isNull(throttlePool))
+				{
+					throttlePool = new ConnectionPool("DataAccessThrottlePool", createDataSource("DataAccessThrottlePool", Math.max(1, AppProperties.getIntProperty("throttle.jdbc.pool.size", 2))), false);
+				}
+				pool = throttlePool;
 			}
-			tableFkList.put(tableName, fkList);
-		}
-		catch(Exception e)
-		{
 		}
-		return fkList;
+
+		Connection connection = pool.getConnection();
+		connection.setAutoCommit(false);
+		return connection;
 	}
 
-	public static Connection getServerDBConnection() throws Exception
+	static int getReadPoolSize()
 	{
-		Connection connection =  dataSource.getConnection();
-		connection.setAutoCommit(true); //HirakiCP wil automatically reset it to false based on config after connection is returned to pool
-		return connection;
+		return readPool.getMaximumPoolSize();
 	}
 
-	public static Connection getServerDBConnectionForTxn() throws Exception
+	public static List<Map<String, Object>> getPoolMetrics()
 	{
-		return Objects.isNull(DataAccess.Transaction.getActiveTxnFromTL()) ? dataSource.getConnection() : DataAccess.Transaction.getActiveTxnFromTL();
+		List<Map<String, Object>> poolMetricsList = new ArrayList<>();
+		poolMetricsList.add(txnPool.getMetrics());
+		if(readPool != txnPool)
+		{
+			poolMetricsList.add(readPool.getMetrics());
+		}
+		poolMetricsList.add(systemPool.getMetrics());
+		if(Objects.nonNull(throttlePool))
+		{
+			poolMetricsList.add(throttlePool.getMetrics());
+		}
+		return poolMetricsList;
 	}
 
 }
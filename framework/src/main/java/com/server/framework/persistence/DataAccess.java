@@ -7,10 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import com.server.framework.common.DateUtil;
 import com.server.framework.job.CustomRunnable;
 
 public class DataAccess
@@ -39,6 +36,7 @@ public class DataAccess
 			Connection connection = TRANSACTION_TL.get();
 			if(Objects.nonNull(connection))
 			{
+				ResultCache.onTxnRollback();
 				if(!connection.isClosed())
 				{
 					connection.rollback();
@@ -48,7 +46,8 @@ public class DataAccess
 				TRANSACTION_TL.remove();
 			}
 
-			TRANSACTION_TL.set(DBUtil.getServerDBConnectionForTxn());
+			connection = DBUtil.getServerDBConnectionForTxn();
+			TRANSACTION_TL.set(connection);
 		}
 
 		public static void commit() throws Exception
@@ -62,6 +61,7 @@ public class DataAccess
 			connection.commit();
 			connection.close();
 			TRANSACTION_TL.remove();
+			ResultCache.onTxnCommit();
 		}
 
 		public static void rollback()
@@ -77,6 +77,7 @@ public class DataAccess
 				connection.rollback();
 				connection.close();
 				TRANSACTION_TL.remove();
+				ResultCache.onTxnRollback();
 			}
 			catch(Exception e)
 			{
@@ -135,33 +136,17 @@ public class DataAccess
 		{
 			connection = DBUtil.getServerDBConnectionForTxn();
 
-			for(String table : dataObject.getTables())
+			try(StatementCache statementCache = StatementCache.open(connection))
 			{
-
-				PreparedStatement preparedStatement = connection.prepareStatement(DataAccessUtil.getInsertQueryString(table), PreparedStatement.RETURN_GENERATED_KEYS);
-
-				for(Row row : dataObject.getRows(table))
-				{
-					if(DBUtil.columnList(row.tableName).contains("CreatedTime"))
-					{
-						row.set("CreatedTime", DateUtil.getCurrentTimeInMillis());
-					}
-					int i = 1;
-					for(String columnName : DBUtil.columnList(table))
-					{
-						preparedStatement.setObject(i++, row.get(columnName));
-					}
-
-					preparedStatement.addBatch();
-				}
-
-				preparedStatement.executeBatch();
+				BatchInsertEngine.insert(statementCache, dataObject);
 			}
 
 			if(Objects.isNull(Transaction.getActiveTxnFromTL()))
 			{
 				connection.commit();
 			}
+
+			ResultCache.onTableModified(dataObject.getTables());
 		}
 		catch(Exception e)
 		{
@@ -176,47 +161,52 @@ public class DataAccess
 
 	public static DataObject get(SelectQuery selectQuery) throws Exception
 	{
+		List<Object> placeHolderList = new ArrayList<>();
+		QueryPlan queryPlan = QueryPlanCache.getSelectPlan(selectQuery, placeHolderList);
 
-		DataObject dataObject = new DataObject();
-
-		Connection connection = null;
-
-		try
+		if(!ResultCache.isCacheable(selectQuery))
 		{
-			connection = DBUtil.getServerDBConnectionForTxn();
-
-			List<String> selectColumnList = new ArrayList<>();
-			List<Object> placeHolderList = new ArrayList<>();
+			return get(selectQuery, queryPlan, placeHolderList);
+		}
 
-			DataAccessUtil.populateSelectColumnAndPlaceHolderListForSelectQuery(selectQuery, selectColumnList, placeHolderList);
+		DataObject dataObject = ResultCache.get(selectQuery, queryPlan, placeHolderList);
+		if(Objects.nonNull(dataObject))
+		{
+			return dataObject;
+		}
 
-			PreparedStatement preparedStatement = connection.prepareStatement(DataAccessUtil.getSelectQueryString(selectQuery, selectColumnList, placeHolderList));
+		long[] generations = ResultCache.getGenerations(selectQuery);
+		dataObject = get(selectQuery, queryPlan, placeHolderList);
+		ResultCache.put(selectQuery, queryPlan, placeHolderList, generations, dataObject);
+		return dataObject;
+	}
 
-			int i = 1;
-			for(Object columnValue : placeHolderList)
-			{
-				preparedStatement.setObject(i++, columnValue);
-			}
+	private static DataObject get(SelectQuery selectQuery, QueryPlan queryPlan, List<Object> placeHolderList) throws Exception
+	{
+		DataObject dataObject = new DataObject();
 
-			ResultSet resultSet = preparedStatement.executeQuery();
+		Connection connection = null;
 
-			boolean isWithoutJoin = selectQuery.joinList.isEmpty();
+		try
+		{
+			connection = DBUtil.getServerDBConnectionForRead();
 
-			while(resultSet.next())
+			try(StatementCache statementCache = StatementCache.open(connection))
 			{
-				Row row = isWithoutJoin ? new Row(selectQuery.tableName) : new RowWrapper(selectQuery.tableName);
+				PreparedStatement preparedStatement = statementCache.prepareStatement(queryPlan.getSql());
 
-				for(String selectColumn : selectColumnList)
+				int i = 1;
+				for(Object columnValue : placeHolderList)
 				{
-					Pattern pattern = Pattern.compile(".* AS \"(.*)\"");
-					Matcher matcher = pattern.matcher(selectColumn);
+					preparedStatement.setObject(i++, columnValue);
+				}
 
-					selectColumn = matcher.matches() ? matcher.group(1) : selectColumn;
-					String columnName = isWithoutJoin ? selectColumn.split("\\.")[1] : selectColumn;
-					row.set(columnName, resultSet.getObject(selectColumn));
+				try(ResultSet resultSet = preparedStatement.executeQuery())
+				{
+					DataAccessUtil.populateDataObject(selectQuery, queryPlan, resultSet, dataObject);
 				}
-				dataObject.addRow(row);
 			}
+
 			return dataObject;
 		}
 		finally
@@ -226,6 +216,22 @@ public class DataAccess
 
 	}
 
+	public static void stream(SelectQuery selectQuery, RowConsumer rowConsumer) throws Exception
+	{
+		try(RowIterator rowIterator = iterator(selectQuery))
+		{
+			while(rowIterator.hasNext())
+			{
+				rowConsumer.accept(rowIterator.next());
+			}
+		}
+	}
+
+	public static RowIterator iterator(SelectQuery selectQuery) throws Exception
+	{
+		return new RowIterator(selectQuery);
+	}
+
 	public static int update(UpdateQuery updateQuery) throws Exception
 	{
 		Connection connection = null;
@@ -234,21 +240,27 @@ public class DataAccess
 			connection = DBUtil.getServerDBConnectionForTxn();
 
 			List<Object> valuePlaceHolderList = new ArrayList<>();
-			PreparedStatement preparedStatement = connection.prepareStatement(DataAccessUtil.getUpdateQueryString(updateQuery, valuePlaceHolderList));
-
-			int i = 1;
-			for(Object columnValue : valuePlaceHolderList)
+			int updatedRows;
+			try(StatementCache statementCache = StatementCache.open(connection))
 			{
-				preparedStatement.setObject(i++, columnValue);
-			}
+				PreparedStatement preparedStatement = statementCache.prepareStatement(QueryPlanCache.getUpdatePlan(updateQuery, valuePlaceHolderList).getSql());
 
-			int updatedRows = preparedStatement.executeUpdate();
+				int i = 1;
+				for(Object columnValue : valuePlaceHolderList)
+				{
+					preparedStatement.setObject(i++, columnValue);
+				}
+
+				updatedRows = preparedStatement.executeUpdate();
+			}
 
 			if(Objects.isNull(Transaction.getActiveTxnFromTL()))
 			{
 				connection.commit();
 			}
 
+			ResultCache.onTableModified(List.of(updateQuery.tableName));
+
 			return updatedRows;
 		}
 		catch(Exception e)
@@ -270,20 +282,25 @@ public class DataAccess
 			connection = DBUtil.getServerDBConnectionForTxn();
 
 			List<Object> valuePlaceHolderList = new ArrayList<>();
-			PreparedStatement preparedStatement = connection.prepareStatement(DataAccessUtil.getDeleteQueryString(tableName, criteria, valuePlaceHolderList));
-
-			int i = 1;
-			for(Object columnValue : valuePlaceHolderList)
+			try(StatementCache statementCache = StatementCache.open(connection))
 			{
-				preparedStatement.setObject(i++, columnValue);
-			}
+				PreparedStatement preparedStatement = statementCache.prepareStatement(QueryPlanCache.getDeletePlan(tableName, criteria, valuePlaceHolderList).getSql());
+
+				int i = 1;
+				for(Object columnValue : valuePlaceHolderList)
+				{
+					preparedStatement.setObject(i++, columnValue);
+				}
 
-			preparedStatement.execute();
+				preparedStatement.execute();
+			}
 
 			if(Objects.isNull(Transaction.getActiveTxnFromTL()))
 			{
 				connection.commit();
 			}
+
+			ResultCache.onTableModified(List.of(tableName));
 		}
 		catch(Exception e)
 		{
@@ -1,89 +1,39 @@
 package com.server.framework.persistence;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.server.framework.common.CustomConsumer;
+import com.server.framework.id.IdAllocator;
 
 public class DataAccessUtil
 {
-	private static final AtomicLong BATCH_END = new AtomicLong(-1L);
-	private static final AtomicLong CURRENT_PK = new AtomicLong(-1L);
+	private static final Pattern ALIAS_PATTERN = Pattern.compile(".* AS \"(.*)\"");
 
 	static long getNextPK() throws Exception
 	{
-
-		if(!(Objects.equals(CURRENT_PK.get(), -1L) || Objects.equals(CURRENT_PK.get(), BATCH_END.get())))
-		{
-			return CURRENT_PK.getAndIncrement();
-		}
-
-		synchronized(CURRENT_PK)
-		{
-			SelectQuery selectQuery = new SelectQuery("BatchTable");
-			DataObject dataObject = DataAccess.get(selectQuery);
-			if(dataObject.isEmpty())
-			{
-				Row row = new Row("BatchTable");
-				row.set("AccountId", 1);
-				row.set("BatchStart", 1000000001000L);
-
-				dataObject.addRow(row);
-
-				DataAccess.add(dataObject);
-
-				CURRENT_PK.set(1000000000100L);
-				BATCH_END.set(1000000001000L - 1L);
-			}
-			else
-			{
-				Long batchStart = (Long) dataObject.getFirstRow("BatchTable").get("BatchStart");
-				long updatedBatchEnd = batchStart + 1000L;
-
-				CURRENT_PK.set(batchStart);
-				BATCH_END.set(updatedBatchEnd - 1L);
-
-				UpdateQuery updateQuery = new UpdateQuery("BatchTable");
-				updateQuery.setValue("BatchStart", updatedBatchEnd);
-
-				DataAccess.update(updateQuery);
-			}
-		}
-
-		return CURRENT_PK.getAndIncrement();
+		return IdAllocator.nextId();
 	}
 
 	static String getInsertQueryString(String table) throws Exception
 	{
-		StringBuilder insertQuery = new StringBuilder("INSERT INTO " + table);
-		insertQuery.append(" ( ");
-		StringBuilder valuesPart = new StringBuilder(" (");
-		for(String columnName : DBUtil.columnList(table))
+		String insertQuery = SchemaCatalog.getTableSchema(table).getInsertQuery();
+		if(Objects.isNull(insertQuery))
 		{
-			insertQuery.append(columnName);
-			insertQuery.append(",");
-
-			valuesPart.append("?,");
+			throw new Exception("No columns found for table " + table);
 		}
-
-		insertQuery.deleteCharAt(insertQuery.length() - 1);
-		valuesPart.deleteCharAt(valuesPart.length() - 1);
-
-		insertQuery.append(")");
-		insertQuery.append(" VALUES ");
-		insertQuery.append(valuesPart);
-		insertQuery.append(")");
-
-		return insertQuery.toString();
-
+		return insertQuery;
 	}
 
 	static String getCriteriaString(Criteria criteria, List<Object> criteriaPlaceHolderList)
@@ -121,8 +71,9 @@ public class DataAccessUtil
 
 			if(criterion.columnValue instanceof List<?> placeHolderValueList)
 			{
-				criteriaPlaceHolderList.addAll(placeHolderValueList);
-				String placeHolders = String.join(",", "?".repeat(placeHolderValueList.size()).split(StringUtils.EMPTY));
+				List<?> bucketedValueList = QueryPlanCache.getBucketedList(placeHolderValueList);
+				criteriaPlaceHolderList.addAll(bucketedValueList);
+				String placeHolders = StringUtils.repeat("?", ",", bucketedValueList.size());
 				return "(" + criterion.column.tableName + "." + criterion.column.columnName + StringUtils.SPACE + criterion.comparator + StringUtils.SPACE + "(" + placeHolders + "))";
 			}
 
@@ -240,7 +191,7 @@ public class DataAccessUtil
 
 		for(Row row : rowList)
 		{
-			for(Map.Entry<String, Object> objectEntry : row.rowMap.entrySet())
+			for(Map.Entry<String, Object> objectEntry : row.getRowMap().entrySet())
 			{
 				if(objectEntry.getValue() instanceof UVH)
 				{
@@ -281,11 +232,7 @@ public class DataAccessUtil
 		{
 			CustomConsumer<String> generateSelectColumnForTable = tableName->
 			{
-				List<String> columnList = DBUtil.columnList(tableName);
-				for(String columnName : columnList)
-				{
-					selectColumnList.add(tableName + "." + columnName);
-				}
+				selectColumnList.addAll(SchemaCatalog.getTableSchema(tableName).getSelectColumnList());
 			};
 
 			List<String> tableList = new ArrayList<>();
@@ -331,4 +278,57 @@ public class DataAccessUtil
 			}
 		}
 	}
+
+	static List<String> getRowColumnNameList(List<String> selectColumnList, boolean isWithoutJoin)
+	{
+		List<String> rowColumnNameList = new ArrayList<>(selectColumnList.size());
+		for(String selectColumn : selectColumnList)
+		{
+			// Function aliases carry no table prefix and are kept whole, with or without joins
+			Matcher matcher = ALIAS_PATTERN.matcher(selectColumn);
+			if(matcher.matches())
+			{
+				rowColumnNameList.add(matcher.group(1));
+				continue;
+			}
+			rowColumnNameList.add(isWithoutJoin ? selectColumn.split("\\.")[1] : selectColumn);
+		}
+		return rowColumnNameList;
+	}
+
+	static RowLayout getRowLayout(SelectQuery selectQuery, QueryPlan queryPlan, ResultSetMetaData resultSetMetaData) throws Exception
+	{
+		RowLayout rowLayout = queryPlan.getRowLayout();
+		if(Objects.nonNull(rowLayout))
+		{
+			return rowLayout;
+		}
+
+		List<String> selectColumnList = queryPlan.getSelectColumnList();
+		if(resultSetMetaData.getColumnCount() != selectColumnList.size())
+		{
+			throw new Exception("Result column count " + resultSetMetaData.getColumnCount() + " does not match select column count " + selectColumnList.size());
+		}
+
+		boolean isWithoutJoin = selectQuery.joinList.isEmpty();
+		rowLayout = new RowLayout(selectQuery.tableName, getRowColumnNameList(selectColumnList, isWithoutJoin), isWithoutJoin);
+		queryPlan.setRowLayout(rowLayout);
+		return rowLayout;
+	}
+
+	static void populateDataObject(SelectQuery selectQuery, QueryPlan queryPlan, ResultSet resultSet, DataObject dataObject) throws Exception
+	{
+		RowLayout rowLayout = getRowLayout(selectQuery, queryPlan, resultSet.getMetaData());
+		int columnCount = rowLayout.getSelectColumnCount();
+
+		while(resultSet.next())
+		{
+			Object[] values = rowLayout.newValues();
+			for(int columnIndex = 0; columnIndex < columnCount; columnIndex++)
+			{
+				values[columnIndex] = resultSet.getObject(columnIndex + 1);
+			}
+			dataObject.addRow(rowLayout.newRow(values));
+		}
+	}
 }
@@ -1,26 +1,47 @@
 package com.server.framework.persistence;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class DataObject
 {
 	private transient Map<String, List<Row>> tableUniqueRowList = new HashMap<>();
+	private transient List<Row> rowList = new ArrayList<>();
+	private transient DataObjectIndex dataObjectIndex;
+
+	// Bumped by the rows on every change, DataObjectIndex compares it on use so that its indexes do not go stale
+	transient int modCount;
+	// Set once a row is in more than one DataObject; its changes bump only the counter of the first, so neither is indexed any more
+	transient boolean hasSharedRows;
 
 	public void addRow(Row row)
 	{
+		if(Objects.isNull(row.dataObject))
+		{
+			row.dataObject = this;
+		}
+		else if(row.dataObject != this)
+		{
+			row.dataObject.hasSharedRows = true;
+			hasSharedRows = true;
+		}
+
 		String tableName = row instanceof RowWrapper ? "NULL" : row.getTableName();
-		List<Row> rowList = tableUniqueRowList.getOrDefault(tableName, new ArrayList<>());
+		tableUniqueRowList.computeIfAbsent(tableName, key -> new ArrayList<>()).add(row);
+
 		rowList.add(row);
-		tableUniqueRowList.put(tableName, rowList);
+		if(Objects.nonNull(dataObjectIndex))
+		{
+			dataObjectIndex.onRowAdded(row, rowList.size() - 1);
+		}
 	}
 
 	public List<Row> getRows()
 	{
-		return tableUniqueRowList.values().stream().flatMap(Collection::stream).toList();
+		return List.copyOf(rowList);
 	}
 
 	public Row getFirstRow(String tableName)
@@ -40,27 +61,23 @@ public class DataObject
 
 	public List<Row> getRows(Criteria criteria)
 	{
-		List<Row> filteredRowList = new ArrayList<>();
-		for(Row row : getRows())
+		if(Objects.isNull(dataObjectIndex))
 		{
-			if(criteria.matches(row))
-			{
-				filteredRowList.add(row);
-			}
+			dataObjectIndex = new DataObjectIndex(this, rowList);
 		}
-		return filteredRowList;
+		return dataObjectIndex.getRows(criteria);
 	}
 
 	public boolean isEmpty()
 	{
-		return getRows().isEmpty();
+		return rowList.isEmpty();
 	}
 
 	public String toString()
 	{
 		StringBuilder dataObjectBuilder = new StringBuilder();
 		dataObjectBuilder.append("<Rows>").append(System.lineSeparator());
-		for(Row row : getRows())
+		for(Row row : rowList)
 		{
 			dataObjectBuilder.append(row).append(System.lineSeparator());
 		}
@@ -0,0 +1,180 @@
+package com.server.framework.persistence;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.commons.lang3.StringUtils;
+
+// Lazy hash indexes over the rows of a DataObject. A Criteria tree is planned into index lookups on its equality predicates and the
+// complete Criteria is then applied as a residual filter on the candidate rows, so results are identical to a full scan.
+class DataObjectIndex
+{
+	// Below this size a scan is cheaper than building and probing an index
+	static final int MIN_INDEXED_ROW_COUNT = 32;
+
+	private final DataObject dataObject;
+	private final List<Row> rowList;
+	private final Map<String, Map<Object, BitSet>> columnIndexMap = new HashMap<>();
+	// DataObject.modCount when the indexes were built
+	private int indexedModCount;
+
+	DataObjectIndex(DataObject dataObject, List<Row> rowList)
+	{
+		this.dataObject = dataObject;
+		this.rowList = rowList;
+	}
+
+	List<Row> getRows(Criteria criteria)
+	{
+		List<Row> filteredRowList = new ArrayList<>();
+
+		if(!columnIndexMap.isEmpty() && (dataObject.modCount != indexedModCount || dataObject.hasSharedRows))
+		{
+			columnIndexMap.clear();
+		}
+
+		BitSet candidateRows = rowList.size() < MIN_INDEXED_ROW_COUNT || dataObject.hasSharedRows ? null : plan(criteria);
+		if(Objects.isNull(candidateRows))
+		{
+			for(Row row : rowList)
+			{
+				if(criteria.matches(row))
+				{
+					filteredRowList.add(row);
+				}
+			}
+			return filteredRowList;
+		}
+
+		for(int position = candidateRows.nextSetBit(0); position >= 0; position = candidateRows.nextSetBit(position + 1))
+		{
+			Row row = rowList.get(position);
+			if(criteria.matches(row))
+			{
+				filteredRowList.add(row);
+			}
+		}
+		return filteredRowList;
+	}
+
+	// Returns the positions of rows which can match, or null when no index narrows the criteria
+	private BitSet plan(Criteria criteria)
+	{
+		if(Objects.isNull(criteria.leftCriteria))
+		{
+			Criteria.Criterion criterion = criteria.criterion;
+			if(Objects.isNull(criterion) || criterion.column instanceof Function)
+			{
+				return null;
+			}
+
+			if(StringUtils.equals(Criteria.Constants.EQUAL, criterion.comparator) && Objects.nonNull(criterion.columnValue) && !(criterion.columnValue instanceof List))
+			{
+				return lookup(criterion.column, criterion.columnValue);
+			}
+
+			// Null values are not indexed, so an IN list holding null falls back to a scan
+			if(StringUtils.equals(Criteria.Constants.IN, criterion.comparator) && criterion.columnValue instanceof List<?> valueList && valueList.size() < rowList.size() && !containsNull(valueList))
+			{
+				BitSet candidateRows = new BitSet(rowList.size());
+				for(Object value : valueList)
+				{
+					candidateRows.or(lookup(criterion.column, value));
+				}
+				return candidateRows;
+			}
+
+			return null;
+		}
+
+		if(Objects.isNull(criteria.rightCriteria))
+		{
+			return plan(criteria.leftCriteria);
+		}
+
+		BitSet leftCandidateRows = plan(criteria.leftCriteria);
+		BitSet rightCandidateRows = plan(criteria.rightCriteria);
+
+		if(StringUtils.equals(Criteria.Constants.AND, criteria.operator))
+		{
+			if(Objects.isNull(leftCandidateRows) || Objects.isNull(rightCandidateRows))
+			{
+				return Objects.isNull(leftCandidateRows) ? rightCandidateRows : leftCandidateRows;
+			}
+			leftCandidateRows.and(rightCandidateRows);
+			return leftCandidateRows;
+		}
+
+		if(Objects.isNull(leftCandidateRows) || Objects.isNull(rightCandidateRows))
+		{
+			return null;
+		}
+		leftCandidateRows.or(rightCandidateRows);
+		return leftCandidateRows;
+	}
+
+	private static boolean containsNull(List<?> valueList)
+	{
+		for(Object value : valueList)
+		{
+			if(Objects.isNull(value))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private BitSet lookup(Column column, Object value)
+	{
+		BitSet positions = getColumnIndex(column).get(value);
+		return Objects.isNull(positions) ? new BitSet() : (BitSet) positions.clone();
+	}
+
+	private Map<Object, BitSet> getColumnIndex(Column column)
+	{
+		String columnKey = column.tableName + "." + column.columnName;
+		Map<Object, BitSet> columnIndex = columnIndexMap.get(columnKey);
+		if(Objects.isNull(columnIndex))
+		{
+			if(columnIndexMap.isEmpty())
+			{
+				indexedModCount = dataObject.modCount;
+			}
+			columnIndex = new HashMap<>();
+			for(int position = 0; position < rowList.size(); position++)
+			{
+				addToIndex(columnIndex, column.tableName, column.columnName, rowList.get(position), position);
+			}
+			columnIndexMap.put(columnKey, columnIndex);
+		}
+		return columnIndex;
+	}
+
+	private static void addToIndex(Map<Object, BitSet> columnIndex, String tableName, String columnName, Row row, int position)
+	{
+		Object value = row.get(tableName, columnName);
+		if(Objects.nonNull(value))
+		{
+			columnIndex.computeIfAbsent(value, key -> new BitSet()).set(position);
+		}
+	}
+
+	void onRowAdded(Row row, int position)
+	{
+		if(columnIndexMap.isEmpty())
+		{
+			return;
+		}
+		for(Map.Entry<String, Map<Object, BitSet>> columnIndexEntry : columnIndexMap.entrySet())
+		{
+			String columnKey = columnIndexEntry.getKey();
+			int separatorIndex = columnKey.indexOf('.');
+			addToIndex(columnIndexEntry.getValue(), columnKey.substring(0, separatorIndex), columnKey.substring(separatorIndex + 1), row, position);
+		}
+	}
+}
@@ -25,5 +25,6 @@ public class Function extends Column
 		public static final String SUM = "SUM";
 		public static final String MAX = "MAX";
 		public static final String MIN = "MIN";
+		public static final String COUNT = "COUNT";
 	}
 }
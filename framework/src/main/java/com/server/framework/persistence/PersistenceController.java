@@ -0,0 +1,73 @@
+package com.server.framework.persistence;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.server.framework.builder.ApiResponseBuilder;
+import com.server.framework.id.IdAllocator;
+
+@RestController
+@RequestMapping("/api/v1/admin/persistence")
+public class PersistenceController
+{
+	private static final Logger LOGGER = Logger.getLogger(PersistenceController.class.getName());
+
+	@GetMapping("/pool/metrics")
+	public ResponseEntity<Map<String, Object>> getPoolMetrics()
+	{
+		try
+		{
+			Map<String, Object> response = ApiResponseBuilder.success("Pool metrics retrieved successfully", DBUtil.getPoolMetrics());
+			return ResponseEntity.ok(response);
+		}
+		catch(Exception e)
+		{
+			LOGGER.log(Level.SEVERE, "Exception occurred while fetching pool metrics", e);
+			Map<String, Object> response = ApiResponseBuilder.error("Failed to retrieve pool metrics: " + e.getMessage(), 500);
+			return ResponseEntity.internalServerError().body(response);
+		}
+	}
+
+	@GetMapping("/batch/metrics")
+	public ResponseEntity<Map<String, Object>> getBatchMetrics()
+	{
+		try
+		{
+			Map<String, Object> data = new HashMap<>();
+			data.put("tables", BatchInsertEngine.getMetrics());
+			data.put("statement_cache", StatementCache.getMetrics());
+			return ResponseEntity.ok(ApiResponseBuilder.success("Batch metrics retrieved successfully", data));
+		}
+		catch(Exception e)
+		{
+			LOGGER.log(Level.SEVERE, "Exception occurred while fetching batch metrics", e);
+			Map<String, Object> response = ApiResponseBuilder.error("Failed to retrieve batch metrics: " + e.getMessage(), 500);
+			return ResponseEntity.internalServerError().body(response);
+		}
+	}
+
+	@GetMapping("/id/metrics")
+	public ResponseEntity<Map<String, Object>> getIdAllocatorMetrics()
+	{
+		return ResponseEntity.ok(ApiResponseBuilder.success("Id allocator metrics retrieved successfully", IdAllocator.getMetrics()));
+	}
+
+	@GetMapping("/query/plan/metrics")
+	public ResponseEntity<Map<String, Object>> getQueryPlanMetrics()
+	{
+		return ResponseEntity.ok(ApiResponseBuilder.success("Query plan cache metrics retrieved successfully", QueryPlanCache.getMetrics()));
+	}
+
+	@GetMapping("/result/cache/metrics")
+	public ResponseEntity<Map<String, Object>> getResultCacheMetrics()
+	{
+		return ResponseEntity.ok(ApiResponseBuilder.success("Result cache metrics retrieved successfully", ResultCache.getMetrics()));
+	}
+}
@@ -0,0 +1,44 @@
+package com.server.framework.persistence;
+
+import java.util.Collections;
+import java.util.List;
+
+final class QueryPlan
+{
+	private final String fingerprint;
+	private final String sql;
+	private final List<String> selectColumnList;
+	private volatile RowLayout rowLayout;
+
+	QueryPlan(String fingerprint, String sql, List<String> selectColumnList)
+	{
+		this.fingerprint = fingerprint;
+		this.sql = sql;
+		this.selectColumnList = Collections.unmodifiableList(selectColumnList);
+	}
+
+	String getFingerprint()
+	{
+		return fingerprint;
+	}
+
+	String getSql()
+	{
+		return sql;
+	}
+
+	List<String> getSelectColumnList()
+	{
+		return selectColumnList;
+	}
+
+	RowLayout getRowLayout()
+	{
+		return rowLayout;
+	}
+
+	void setRowLayout(RowLayout rowLayout)
+	{
+		this.rowLayout = rowLayout;
+	}
+}
@@ -0,0 +1,279 @@
+package com.server.framework.persistence;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.server.framework.common.AppProperties;
+
+// Generated SQL keyed by the structural fingerprint of a query (its shape without bound values). On a hit the query tree is walked only
+// to collect bind values, in the same order the SQL generation would have added them.
+class QueryPlanCache
+{
+	private static final int MAX_BUCKETED_IN_LIST_SIZE = 1024;
+
+	private static final LongAdder HIT_COUNT = new LongAdder();
+	private static final LongAdder MISS_COUNT = new LongAdder();
+
+	private static final Map<String, QueryPlan> QUERY_PLAN_MAP = new LinkedHashMap<>(16, 0.75F, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, QueryPlan> eldest)
+		{
+			return size() > AppProperties.getIntProperty("db.access.query.plan.cache.size", 1000);
+		}
+	};
+
+	static QueryPlan getSelectPlan(SelectQuery selectQuery, List<Object> placeHolderList) throws Exception
+	{
+		StringBuilder fingerprint = new StringBuilder("S|").append(selectQuery.tableName);
+
+		fingerprint.append("|C:");
+		for(Column column : selectQuery.selectColumnList)
+		{
+			if(column instanceof Function function)
+			{
+				appendFunction(function, fingerprint, placeHolderList);
+				fingerprint.append(" AS ");
+			}
+			fingerprint.append(column).append(",");
+		}
+
+		fingerprint.append("|J:");
+		for(Join join : selectQuery.joinList)
+		{
+			fingerprint.append(join.joinType).append(" ").append(join.referenceTableName).append(" ").append(join.baseTableName).append(".").append(join.baseTableColumnName).append("=").append(join.referenceTableName).append(".").append(join.referenceTableColumnName).append(",");
+		}
+
+		if(Objects.nonNull(selectQuery.criteria))
+		{
+			fingerprint.append("|W:");
+			appendCriteria(selectQuery.criteria, fingerprint, placeHolderList);
+		}
+
+		if(Objects.nonNull(selectQuery.groupByClause))
+		{
+			fingerprint.append("|G:");
+			for(Column column : selectQuery.groupByClause.columnList)
+			{
+				fingerprint.append(column).append(",");
+			}
+			if(Objects.nonNull(selectQuery.groupByClause.criteria))
+			{
+				fingerprint.append("|H:");
+				appendCriteria(selectQuery.groupByClause.criteria, fingerprint, placeHolderList);
+			}
+		}
+
+		fingerprint.append("|O:");
+		for(SortColumn sortColumn : selectQuery.sortColumnList)
+		{
+			fingerprint.append(sortColumn.column.tableName).append(".").append(sortColumn.column.columnName).append(sortColumn.isAscending ? "+" : "-").append(",");
+		}
+
+		if(Objects.nonNull(selectQuery.range))
+		{
+			fingerprint.append("|R:").append(selectQuery.range.startIndex).append(",").append(selectQuery.range.numOfObjects);
+		}
+
+		if(selectQuery.needLock)
+		{
+			fingerprint.append("|L");
+		}
+
+		QueryPlan queryPlan = getPlan(fingerprint.toString());
+		if(Objects.nonNull(queryPlan))
+		{
+			return queryPlan;
+		}
+
+		List<String> selectColumnList = new ArrayList<>();
+		List<Object> generatedPlaceHolderList = new ArrayList<>();
+		DataAccessUtil.populateSelectColumnAndPlaceHolderListForSelectQuery(selectQuery, selectColumnList, generatedPlaceHolderList);
+		String sql = DataAccessUtil.getSelectQueryString(selectQuery, selectColumnList, generatedPlaceHolderList);
+
+		// SELECT * on a table which is not created yet has no columns to expand, so it is not cached
+		queryPlan = new QueryPlan(fingerprint.toString(), sql, selectColumnList);
+		return selectColumnList.isEmpty() ? queryPlan : putPlan(queryPlan);
+	}
+
+	static QueryPlan getUpdatePlan(UpdateQuery updateQuery, List<Object> placeHolderList)
+	{
+		StringBuilder fingerprint = new StringBuilder("U|").append(updateQuery.tableName).append("|V:");
+		for(Map.Entry<String, Object> objectEntry : updateQuery.columnNameValueMap.entrySet())
+		{
+			fingerprint.append(objectEntry.getKey()).append(",");
+			placeHolderList.add(objectEntry.getValue());
+		}
+
+		if(Objects.nonNull(updateQuery.criteria))
+		{
+			fingerprint.append("|W:");
+			appendCriteria(updateQuery.criteria, fingerprint, placeHolderList);
+		}
+
+		QueryPlan queryPlan = getPlan(fingerprint.toString());
+		if(Objects.nonNull(queryPlan))
+		{
+			return queryPlan;
+		}
+
+		String sql = DataAccessUtil.getUpdateQueryString(updateQuery, new ArrayList<>());
+		return putPlan(new QueryPlan(fingerprint.toString(), sql, new ArrayList<>()));
+	}
+
+	static QueryPlan getDeletePlan(String tableName, Criteria criteria, List<Object> placeHolderList)
+	{
+		StringBuilder fingerprint = new StringBuilder("D|").append(tableName);
+		if(Objects.nonNull(criteria))
+		{
+			fingerprint.append("|W:");
+			appendCriteria(criteria, fingerprint, placeHolderList);
+		}
+
+		QueryPlan queryPlan = getPlan(fingerprint.toString());
+		if(Objects.nonNull(queryPlan))
+		{
+			return queryPlan;
+		}
+
+		String sql = DataAccessUtil.getDeleteQueryString(tableName, criteria, new ArrayList<>());
+		return putPlan(new QueryPlan(fingerprint.toString(), sql, new ArrayList<>()));
+	}
+
+	// Mirrors DataAccessUtil.getCriteriaString so that bind values are collected in the same order
+	private static void appendCriteria(Criteria criteria, StringBuilder fingerprint, List<Object> placeHolderList)
+	{
+		if(Objects.isNull(criteria.leftCriteria))
+		{
+			Criteria.Criterion criterion = criteria.criterion;
+			if(Objects.isNull(criterion))
+			{
+				return;
+			}
+
+			if(criterion.column instanceof Function function)
+			{
+				appendFunction(function, fingerprint, placeHolderList);
+				fingerprint.append(criterion.comparator).append("?");
+				placeHolderList.add(criterion.columnValue);
+				return;
+			}
+
+			fingerprint.append("(").append(criterion.column.tableName).append(".").append(criterion.column.columnName).append(" ").append(criterion.comparator);
+			if(criterion.columnValue instanceof List<?> placeHolderValueList)
+			{
+				List<?> bucketedValueList = getBucketedList(placeHolderValueList);
+				placeHolderList.addAll(bucketedValueList);
+				fingerprint.append(" [").append(bucketedValueList.size()).append("])");
+				return;
+			}
+
+			placeHolderList.add(criterion.columnValue);
+			fingerprint.append(" ?)");
+			return;
+		}
+
+		fingerprint.append("(");
+		appendCriteria(criteria.leftCriteria, fingerprint, placeHolderList);
+		if(Objects.nonNull(criteria.rightCriteria))
+		{
+			fingerprint.append(criteria.operator);
+			appendCriteria(criteria.rightCriteria, fingerprint, placeHolderList);
+		}
+		fingerprint.append(")");
+	}
+
+	private static void appendFunction(Function function, StringBuilder fingerprint, List<Object> placeHolderList)
+	{
+		fingerprint.append(function.name).append("(");
+		for(Object arg : function.args)
+		{
+			if(arg instanceof Column column)
+			{
+				fingerprint.append(column.tableName).append(".").append(column.columnName);
+			}
+			else
+			{
+				fingerprint.append("?");
+				placeHolderList.add(arg);
+			}
+			fingerprint.append(",");
+		}
+		fingerprint.append(")");
+	}
+
+	// IN lists are padded with their last value up to the next power of two, so lists of similar size share one plan
+	static List<?> getBucketedList(List<?> valueList)
+	{
+		int size = valueList.size();
+		if(size <= 1 || size > MAX_BUCKETED_IN_LIST_SIZE || Integer.bitCount(size) == 1)
+		{
+			return valueList;
+		}
+
+		int bucketSize = Integer.highestOneBit(size) << 1;
+		List<Object> bucketedValueList = new ArrayList<>(bucketSize);
+		bucketedValueList.addAll(valueList);
+		Object lastValue = valueList.get(size - 1);
+		while(bucketedValueList.size() < bucketSize)
+		{
+			bucketedValueList.add(lastValue);
+		}
+		return bucketedValueList;
+	}
+
+	private static QueryPlan getPlan(String fingerprint)
+	{
+		QueryPlan queryPlan;
+		synchronized(QUERY_PLAN_MAP)
+		{
+			queryPlan = QUERY_PLAN_MAP.get(fingerprint);
+		}
+
+		if(Objects.nonNull(queryPlan))
+		{
+			HIT_COUNT.increment();
+		}
+		else
+		{
+			MISS_COUNT.increment();
+		}
+		return queryPlan;
+	}
+
+	private static QueryPlan putPlan(QueryPlan queryPlan)
+	{
+		synchronized(QUERY_PLAN_MAP)
+		{
+			QUERY_PLAN_MAP.put(queryPlan.getFingerprint(), queryPlan);
+		}
+		return queryPlan;
+	}
+
+	static void clear()
+	{
+		synchronized(QUERY_PLAN_MAP)
+		{
+			QUERY_PLAN_MAP.clear();
+		}
+	}
+
+	static Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		long hitCount = HIT_COUNT.sum();
+		long missCount = MISS_COUNT.sum();
+		metrics.put("hit_count", hitCount);
+		metrics.put("miss_count", missCount);
+		metrics.put("hit_ratio", hitCount + missCount == 0 ? 0D : (double) hitCount / (hitCount + missCount));
+		synchronized(QUERY_PLAN_MAP)
+		{
+			metrics.put("size", QUERY_PLAN_MAP.size());
+		}
+		return metrics;
+	}
+}
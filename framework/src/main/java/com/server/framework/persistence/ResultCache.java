@@ -0,0 +1,276 @@
+package com.server.framework.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.server.framework.common.AppProperties;
+
+// Read-through cache for SelectQuery results marked cacheable. Every table carries a generation number which is bumped after a write to it
+// commits; an entry is only served while the generations of all its tables are unchanged since it was loaded.
+// Writes made by other nodes are not seen, so entries also expire after db.access.result.cache.ttl.seconds.
+class ResultCache
+{
+	private static final ThreadLocal<Set<String>> TXN_MODIFIED_TABLE_TL = new ThreadLocal<>();
+	private static final Map<String, AtomicLong> TABLE_GENERATION_MAP = new ConcurrentHashMap<>();
+	private static final Map<String, TableCacheStats> TABLE_CACHE_STATS_MAP = new ConcurrentHashMap<>();
+
+	private static final Map<CacheKey, CacheEntry> RESULT_MAP = new LinkedHashMap<>(16, 0.75F, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest)
+		{
+			return size() > AppProperties.getIntProperty("db.access.result.cache.size", 1000);
+		}
+	};
+
+	private static class TableCacheStats
+	{
+		private final LongAdder hitCount = new LongAdder();
+		private final LongAdder missCount = new LongAdder();
+		private final LongAdder invalidationCount = new LongAdder();
+	}
+
+	private static class CacheKey
+	{
+		private final String fingerprint;
+		private final List<Object> placeHolderList;
+
+		private CacheKey(String fingerprint, List<Object> placeHolderList)
+		{
+			this.fingerprint = fingerprint;
+			this.placeHolderList = placeHolderList;
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			return object instanceof CacheKey cacheKey && fingerprint.equals(cacheKey.fingerprint) && placeHolderList.equals(cacheKey.placeHolderList);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * fingerprint.hashCode() + placeHolderList.hashCode();
+		}
+	}
+
+	private static class CacheEntry
+	{
+		private final RowLayout rowLayout;
+		private final List<Object[]> valueList;
+		private final String[] tables;
+		private final long[] generations;
+		private final long expiryTime;
+
+		private CacheEntry(RowLayout rowLayout, List<Object[]> valueList, String[] tables, long[] generations, long expiryTime)
+		{
+			this.rowLayout = rowLayout;
+			this.valueList = valueList;
+			this.tables = tables;
+			this.generations = generations;
+			this.expiryTime = expiryTime;
+		}
+	}
+
+	static boolean isCacheable(SelectQuery selectQuery) throws Exception
+	{
+		return selectQuery.isCacheable && !selectQuery.needLock && Objects.isNull(DataAccess.Transaction.getActiveTxnFromTL());
+	}
+
+	static DataObject get(SelectQuery selectQuery, QueryPlan queryPlan, List<Object> placeHolderList)
+	{
+		CacheKey cacheKey = new CacheKey(queryPlan.getFingerprint(), placeHolderList);
+		TableCacheStats tableCacheStats = getTableCacheStats(selectQuery.tableName);
+
+		CacheEntry cacheEntry;
+		synchronized(RESULT_MAP)
+		{
+			cacheEntry = RESULT_MAP.get(cacheKey);
+			if(Objects.nonNull(cacheEntry) && !isValid(cacheEntry))
+			{
+				RESULT_MAP.remove(cacheKey);
+				cacheEntry = null;
+			}
+		}
+
+		if(Objects.isNull(cacheEntry))
+		{
+			tableCacheStats.missCount.increment();
+			return null;
+		}
+
+		tableCacheStats.hitCount.increment();
+
+		// Callers are free to modify the returned rows, so every hit gets its own copy of the values
+		DataObject dataObject = new DataObject();
+		for(Object[] values : cacheEntry.valueList)
+		{
+			dataObject.addRow(cacheEntry.rowLayout.newRow(values.clone()));
+		}
+		return dataObject;
+	}
+
+	// Generations have to be captured before the query runs, so that a write committed while it runs makes the loaded result invalid
+	static long[] getGenerations(SelectQuery selectQuery)
+	{
+		List<String> tableList = getTableList(selectQuery);
+		long[] generations = new long[tableList.size()];
+		for(int i = 0; i < tableList.size(); i++)
+		{
+			generations[i] = getGeneration(tableList.get(i)).get();
+		}
+		return generations;
+	}
+
+	static void put(SelectQuery selectQuery, QueryPlan queryPlan, List<Object> placeHolderList, long[] generations, DataObject dataObject)
+	{
+		RowLayout rowLayout = queryPlan.getRowLayout();
+		if(Objects.isNull(rowLayout))
+		{
+			return;
+		}
+
+		List<Object[]> valueList = new ArrayList<>();
+		for(Row row : dataObject.getRows())
+		{
+			if(Objects.isNull(row.values))
+			{
+				return;
+			}
+			valueList.add(row.values.clone());
+		}
+
+		long expiryTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(AppProperties.getLongProperty("db.access.result.cache.ttl.seconds", 60L));
+		CacheEntry cacheEntry = new CacheEntry(rowLayout, valueList, getTableList(selectQuery).toArray(new String[0]), generations, expiryTime);
+		if(!isValid(cacheEntry))
+		{
+			return;
+		}
+
+		synchronized(RESULT_MAP)
+		{
+			RESULT_MAP.put(new CacheKey(queryPlan.getFingerprint(), new ArrayList<>(placeHolderList)), cacheEntry);
+		}
+	}
+
+	static void onTableModified(Collection<String> tableList) throws Exception
+	{
+		if(Objects.nonNull(DataAccess.Transaction.getActiveTxnFromTL()))
+		{
+			Set<String> modifiedTableSet = TXN_MODIFIED_TABLE_TL.get();
+			if(Objects.isNull(modifiedTableSet))
+			{
+				modifiedTableSet = new HashSet<>();
+				TXN_MODIFIED_TABLE_TL.set(modifiedTableSet);
+			}
+			modifiedTableSet.addAll(tableList);
+			return;
+		}
+
+		invalidate(tableList);
+	}
+
+	static void onTxnCommit()
+	{
+		Set<String> modifiedTableSet = TXN_MODIFIED_TABLE_TL.get();
+		TXN_MODIFIED_TABLE_TL.remove();
+		if(Objects.nonNull(modifiedTableSet))
+		{
+			invalidate(modifiedTableSet);
+		}
+	}
+
+	static void onTxnRollback()
+	{
+		TXN_MODIFIED_TABLE_TL.remove();
+	}
+
+	private static void invalidate(Collection<String> tableList)
+	{
+		for(String table : tableList)
+		{
+			getGeneration(table).incrementAndGet();
+			getTableCacheStats(table).invalidationCount.increment();
+		}
+	}
+
+	private static boolean isValid(CacheEntry cacheEntry)
+	{
+		if(System.nanoTime() - cacheEntry.expiryTime > 0)
+		{
+			return false;
+		}
+
+		for(int i = 0; i < cacheEntry.tables.length; i++)
+		{
+			if(getGeneration(cacheEntry.tables[i]).get() != cacheEntry.generations[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static List<String> getTableList(SelectQuery selectQuery)
+	{
+		List<String> tableList = new ArrayList<>();
+		tableList.add(selectQuery.tableName);
+		for(Join join : selectQuery.joinList)
+		{
+			if(!tableList.contains(join.baseTableName))
+			{
+				tableList.add(join.baseTableName);
+			}
+			if(!tableList.contains(join.referenceTableName))
+			{
+				tableList.add(join.referenceTableName);
+			}
+		}
+		return tableList;
+	}
+
+	private static AtomicLong getGeneration(String table)
+	{
+		return TABLE_GENERATION_MAP.computeIfAbsent(table, key -> new AtomicLong());
+	}
+
+	private static TableCacheStats getTableCacheStats(String table)
+	{
+		return TABLE_CACHE_STATS_MAP.computeIfAbsent(table, key -> new TableCacheStats());
+	}
+
+	static Map<String, Object> getMetrics()
+	{
+		List<Map<String, Object>> tableMetricsList = new ArrayList<>();
+		TABLE_CACHE_STATS_MAP.forEach((table, tableCacheStats) -> {
+			long hitCount = tableCacheStats.hitCount.sum();
+			long missCount = tableCacheStats.missCount.sum();
+
+			Map<String, Object> tableMetrics = new LinkedHashMap<>();
+			tableMetrics.put("table", table);
+			tableMetrics.put("hit_count", hitCount);
+			tableMetrics.put("miss_count", missCount);
+			tableMetrics.put("hit_ratio", hitCount + missCount == 0 ? 0D : (double) hitCount / (hitCount + missCount));
+			tableMetrics.put("invalidation_count", tableCacheStats.invalidationCount.sum());
+			tableMetricsList.add(tableMetrics);
+		});
+
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		synchronized(RESULT_MAP)
+		{
+			metrics.put("size", RESULT_MAP.size());
+		}
+		metrics.put("tables", tableMetricsList);
+		return metrics;
+	}
+}
@@ -3,20 +3,36 @@ package com.server.framework.persistence;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.apache.commons.lang3.StringUtils;
 
 public class Row
 {
 	String tableName;
-	Map<String, Object> rowMap = new LinkedHashMap<>();
+	Map<String, Object> rowMap;
+
+	// Rows read through DataAccess are backed by a shared layout and a value array until a column outside the layout is set
+	RowLayout rowLayout;
+	Object[] values;
+
+	// The DataObject the row was first added to, whose modification counter every change bumps
+	transient DataObject dataObject;
 
 	public Row(String tableName)
 	{
 		this.tableName = tableName;
+		this.rowMap = new LinkedHashMap<>();
 		initPK();
 	}
 
+	Row(String tableName, RowLayout rowLayout, Object[] values)
+	{
+		this.tableName = tableName;
+		this.rowLayout = rowLayout;
+		this.values = values;
+	}
+
 	public void initPK()
 	{
 		try
@@ -36,30 +52,49 @@ public class Row
 
 	public void set(String columnName, Object columnValue)
 	{
-		rowMap.put(tableName + "."  + columnName, columnValue);
+		set(tableName, columnName, columnValue);
 	}
 
 	public void set(String tableName, String columnName, Object columnValue)
 	{
+		markModified();
+		if(Objects.nonNull(rowLayout))
+		{
+			int index = rowLayout.getIndex(tableName, columnName);
+			if(index != -1)
+			{
+				values[index] = columnValue;
+				return;
+			}
+			inflate();
+		}
 		rowMap.put(tableName + "." + columnName, columnValue);
 	}
 
 	public Object get(String columnName)
 	{
-		return rowMap.get(tableName + "." +  columnName);
+		return get(tableName, columnName);
 	}
 
 	public Object get(String tableName, String columnName)
 	{
+		if(Objects.nonNull(rowLayout))
+		{
+			int index = rowLayout.getIndex(tableName, columnName);
+			return index == -1 ? null : values[index];
+		}
 		return rowMap.get(tableName + "." + columnName);
 	}
+
 	public Object get(Column column)
 	{
-		return rowMap.get(column.tableName + "." + column.columnName);
+		return get(column.tableName, column.columnName);
 	}
 
 	public Map<String, Object> getRowMap()
 	{
+		markModified();
+		inflate();
 		return rowMap;
 	}
 
@@ -68,14 +103,48 @@ public class Row
 		return tableName;
 	}
 
+	void markModified()
+	{
+		if(Objects.nonNull(dataObject))
+		{
+			dataObject.modCount++;
+		}
+	}
+
+	void inflate()
+	{
+		if(Objects.isNull(rowLayout))
+		{
+			return;
+		}
+
+		rowMap = new LinkedHashMap<>();
+		for(int i = 0; i < rowLayout.size(); i++)
+		{
+			rowMap.putIfAbsent(rowLayout.getKey(i), values[i]);
+		}
+		rowLayout = null;
+		values = null;
+	}
+
 	public String toString()
 	{
 		StringBuilder rowBuilder = new StringBuilder();
 		rowBuilder.append("<");
 
-		for(Map.Entry<String, Object> rowEntry : rowMap.entrySet())
+		if(Objects.nonNull(rowLayout))
+		{
+			for(int i = 0; i < rowLayout.size(); i++)
+			{
+				rowBuilder.append(rowLayout.getKey(i)).append("=").append(values[i]).append(StringUtils.SPACE);
+			}
+		}
+		else
 		{
-			rowBuilder.append(rowEntry.getKey()).append("=").append(rowEntry.getValue()).append(StringUtils.SPACE);
+			for(Map.Entry<String, Object> rowEntry : rowMap.entrySet())
+			{
+				rowBuilder.append(rowEntry.getKey()).append("=").append(rowEntry.getValue()).append(StringUtils.SPACE);
+			}
 		}
 		rowBuilder.append("/>");
 		return rowBuilder.toString();
@@ -0,0 +1,7 @@
+package com.server.framework.persistence;
+
+@FunctionalInterface
+public interface RowConsumer
+{
+	void accept(Row row) throws Exception;
+}
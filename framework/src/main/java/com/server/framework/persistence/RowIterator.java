@@ -0,0 +1,186 @@
+package com.server.framework.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import com.server.framework.common.AppProperties;
+
+// Forward-only cursor over a SelectQuery. The same Row buffer is refilled on every next() call, so callers must copy values they want to keep.
+public class RowIterator implements Iterator<Row>, AutoCloseable
+{
+	private final boolean isTxnConnection;
+	private final RowLayout rowLayout;
+	private final Object[] values;
+	private Row row;
+
+	private Connection connection;
+	private PreparedStatement preparedStatement;
+	private ResultSet resultSet;
+	private boolean hasFetched;
+	private boolean hasNext;
+	private boolean isClosed;
+
+	RowIterator(SelectQuery selectQuery) throws Exception
+	{
+		isTxnConnection = Objects.nonNull(DataAccess.Transaction.getActiveTxnFromTL());
+		try
+		{
+			connection = DBUtil.getServerDBConnectionForRead();
+			if(!isTxnConnection)
+			{
+				connection.setAutoCommit(false); // Cursor based fetch (e.g. PostgreSQL) is honoured only outside auto-commit mode
+			}
+
+			List<Object> placeHolderList = new ArrayList<>();
+			QueryPlan queryPlan = QueryPlanCache.getSelectPlan(selectQuery, placeHolderList);
+
+			preparedStatement = connection.prepareStatement(queryPlan.getSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			preparedStatement.setFetchSize(getFetchSize(selectQuery));
+
+			int i = 1;
+			for(Object columnValue : placeHolderList)
+			{
+				preparedStatement.setObject(i++, columnValue);
+			}
+
+			resultSet = preparedStatement.executeQuery();
+
+			rowLayout = DataAccessUtil.getRowLayout(selectQuery, queryPlan, resultSet.getMetaData());
+			values = rowLayout.newValues();
+			row = rowLayout.newRow(values);
+		}
+		catch(Exception e)
+		{
+			close();
+			throw e;
+		}
+	}
+
+	private static int getFetchSize(SelectQuery selectQuery)
+	{
+		if(Objects.nonNull(selectQuery.fetchSize))
+		{
+			return selectQuery.fetchSize;
+		}
+
+		// MySQL Connector/J streams row by row only for Integer.MIN_VALUE unless cursor fetch is enabled in the URL
+		String jdbcUrl = AppProperties.getProperty("spring.datasource.url", "");
+		if(jdbcUrl.startsWith("jdbc:mysql") && !jdbcUrl.contains("useCursorFetch=true"))
+		{
+			return Integer.MIN_VALUE;
+		}
+
+		return AppProperties.getIntProperty("db.access.stream.fetch.size", 1000);
+	}
+
+	RowLayout getRowLayout()
+	{
+		return rowLayout;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if(isClosed)
+		{
+			return false;
+		}
+
+		if(!hasFetched)
+		{
+			try
+			{
+				hasNext = resultSet.next();
+				hasFetched = true;
+			}
+			catch(Exception e)
+			{
+				close();
+				throw new RuntimeException("Exception occurred while fetching next row", e);
+			}
+
+			if(!hasNext)
+			{
+				close();
+			}
+		}
+
+		return hasNext;
+	}
+
+	@Override
+	public Row next()
+	{
+		if(!hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+
+		try
+		{
+			for(int i = 0; i < rowLayout.getSelectColumnCount(); i++)
+			{
+				values[i] = resultSet.getObject(i + 1);
+			}
+
+			// Consumer might have set a column outside the layout, which detaches the row from the shared buffer
+			if(row.values != values)
+			{
+				row = rowLayout.newRow(values);
+			}
+		}
+		catch(Exception e)
+		{
+			close();
+			throw new RuntimeException("Exception occurred while reading row", e);
+		}
+
+		hasFetched = false;
+		return row;
+	}
+
+	@Override
+	public void close()
+	{
+		if(isClosed)
+		{
+			return;
+		}
+		isClosed = true;
+
+		try
+		{
+			if(Objects.nonNull(resultSet))
+			{
+				resultSet.close();
+			}
+			if(Objects.nonNull(preparedStatement))
+			{
+				preparedStatement.close();
+			}
+		}
+		catch(Exception e)
+		{
+		}
+		finally
+		{
+			try
+			{
+				if(!isTxnConnection && Objects.nonNull(connection) && !connection.isClosed())
+				{
+					connection.rollback();
+					connection.close();
+				}
+			}
+			catch(Exception e)
+			{
+			}
+		}
+	}
+}
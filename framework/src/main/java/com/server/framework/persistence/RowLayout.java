@@ -0,0 +1,102 @@
+package com.server.framework.persistence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Column to slot mapping resolved once per query, shared by every Row read from that query
+final class RowLayout
+{
+	private final String tableName;
+	private final boolean isWithoutJoin;
+	private final String[] keys;
+	private final Map<String, Integer> keyIndexMap;
+	private final Map<String, Map<String, Integer>> tableColumnIndexMap;
+	private final int[] pkSlots;
+
+	RowLayout(String tableName, List<String> rowColumnNameList, boolean isWithoutJoin) throws Exception
+	{
+		this.tableName = tableName;
+		this.isWithoutJoin = isWithoutJoin;
+
+		List<String> keyList = new ArrayList<>(rowColumnNameList.size());
+		for(String rowColumnName : rowColumnNameList)
+		{
+			keyList.add(isWithoutJoin ? tableName + "." + rowColumnName : rowColumnName);
+		}
+
+		// PK columns which are not selected still carry a UVH, same as a Row created through initPK
+		List<Integer> pkSlotList = new ArrayList<>();
+		for(String pk : DBUtil.getPKList(tableName))
+		{
+			String key = tableName + "." + pk;
+			if(!keyList.contains(key))
+			{
+				pkSlotList.add(keyList.size());
+				keyList.add(key);
+			}
+		}
+
+		this.keys = keyList.toArray(new String[0]);
+		this.pkSlots = pkSlotList.stream().mapToInt(Integer::intValue).toArray();
+		this.keyIndexMap = new HashMap<>();
+		this.tableColumnIndexMap = new HashMap<>();
+
+		for(int i = 0; i < keys.length; i++)
+		{
+			keyIndexMap.putIfAbsent(keys[i], i);
+
+			int separatorIndex = keys[i].indexOf('.');
+			if(separatorIndex != -1)
+			{
+				tableColumnIndexMap.computeIfAbsent(keys[i].substring(0, separatorIndex), table -> new HashMap<>()).putIfAbsent(keys[i].substring(separatorIndex + 1), i);
+			}
+		}
+	}
+
+	int size()
+	{
+		return keys.length;
+	}
+
+	// Number of slots filled from the ResultSet, the remaining ones are unselected PK slots
+	int getSelectColumnCount()
+	{
+		return keys.length - pkSlots.length;
+	}
+
+	String getKey(int index)
+	{
+		return keys[index];
+	}
+
+	int getIndex(String key)
+	{
+		Integer index = keyIndexMap.get(key);
+		return Objects.isNull(index) ? -1 : index;
+	}
+
+	int getIndex(String tableName, String columnName)
+	{
+		Map<String, Integer> columnIndexMap = tableColumnIndexMap.get(tableName);
+		Integer index = Objects.isNull(columnIndexMap) ? null : columnIndexMap.get(columnName);
+		return Objects.isNull(index) ? -1 : index;
+	}
+
+	Object[] newValues()
+	{
+		Object[] values = new Object[keys.length];
+		for(int pkSlot : pkSlots)
+		{
+			values[pkSlot] = new UVH();
+		}
+		return values;
+	}
+
+	Row newRow(Object[] values)
+	{
+		return isWithoutJoin ? new Row(tableName, this, values) : new RowWrapper(tableName, this, values);
+	}
+}
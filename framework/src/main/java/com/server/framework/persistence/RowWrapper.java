@@ -1,5 +1,7 @@
 package com.server.framework.persistence;
 
+import java.util.Objects;
+
 class RowWrapper extends Row
 {
 
@@ -8,12 +10,33 @@ class RowWrapper extends Row
 		super(tableName);
 	}
 
+	RowWrapper(String tableName, RowLayout rowLayout, Object[] values)
+	{
+		super(tableName, rowLayout, values);
+	}
+
 	@Override public void set(String columnAlias, Object value)
 	{
+		markModified();
+		if(Objects.nonNull(rowLayout))
+		{
+			int index = rowLayout.getIndex(columnAlias);
+			if(index != -1)
+			{
+				values[index] = value;
+				return;
+			}
+			inflate();
+		}
 		rowMap.put(columnAlias, value);
 	}
 	@Override public Object get(String columnAlias)
 	{
+		if(Objects.nonNull(rowLayout))
+		{
+			int index = rowLayout.getIndex(columnAlias);
+			return index != -1 ? values[index] : super.get(columnAlias);
+		}
 		return rowMap.getOrDefault(columnAlias, super.get(columnAlias));
 	}
 }
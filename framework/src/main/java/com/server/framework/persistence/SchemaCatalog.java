@@ -0,0 +1,94 @@
+package com.server.framework.persistence;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+public class SchemaCatalog
+{
+	private static final Logger LOGGER = Logger.getLogger(SchemaCatalog.class.getName());
+
+	private static final Map<String, TableSchema> TABLE_SCHEMA_MAP = new ConcurrentHashMap<>();
+
+	public static TableSchema getTableSchema(String tableName) throws Exception
+	{
+		TableSchema tableSchema = TABLE_SCHEMA_MAP.get(tableName);
+		if(Objects.nonNull(tableSchema))
+		{
+			return tableSchema;
+		}
+
+		tableSchema = loadTableSchema(tableName);
+
+		// Tables which are not created yet (e.g. before hibernate ddl-auto runs) are not cached so that they get picked up once created
+		if(tableSchema.getColumnList().isEmpty())
+		{
+			return tableSchema;
+		}
+
+		TableSchema existingTableSchema = TABLE_SCHEMA_MAP.putIfAbsent(tableName, tableSchema);
+		return Objects.nonNull(existingTableSchema) ? existingTableSchema : tableSchema;
+	}
+
+	public static void invalidate(String tableName)
+	{
+		TABLE_SCHEMA_MAP.remove(tableName);
+		QueryPlanCache.clear();
+		LOGGER.info("Schema cache invalidated for table " + tableName);
+	}
+
+	public static void invalidateAll()
+	{
+		TABLE_SCHEMA_MAP.clear();
+		QueryPlanCache.clear();
+		LOGGER.info("Schema cache invalidated for all tables");
+	}
+
+	private static TableSchema loadTableSchema(String tableName) throws Exception
+	{
+		List<String> columnList = new ArrayList<>();
+		Map<String, Integer> columnTypeMap = new LinkedHashMap<>();
+		List<String> pkList = new ArrayList<>();
+		Map<String, String> fkReferenceTableMap = new LinkedHashMap<>();
+
+		try(Connection connection = DBUtil.getServerDBConnection())
+		{
+			DatabaseMetaData databaseMetaData = connection.getMetaData();
+
+			try(ResultSet columnResultSet = databaseMetaData.getColumns(null, DBUtil.schemaName, tableName, null))
+			{
+				while(columnResultSet.next())
+				{
+					String columnName = columnResultSet.getString("COLUMN_NAME");
+					columnList.add(columnName);
+					columnTypeMap.put(columnName, columnResultSet.getInt("DATA_TYPE"));
+				}
+			}
+
+			try(ResultSet pkResultSet = databaseMetaData.getPrimaryKeys(null, DBUtil.schemaName, tableName))
+			{
+				while(pkResultSet.next())
+				{
+					pkList.add(pkResultSet.getString("COLUMN_NAME"));
+				}
+			}
+
+			try(ResultSet fkResultSet = databaseMetaData.getImportedKeys(null, DBUtil.schemaName, tableName))
+			{
+				while(fkResultSet.next())
+				{
+					fkReferenceTableMap.put(fkResultSet.getString("FKCOLUMN_NAME"), fkResultSet.getString("PKTABLE_NAME"));
+				}
+			}
+		}
+
+		return new TableSchema(tableName, columnList, pkList, fkReferenceTableMap, columnTypeMap);
+	}
+}
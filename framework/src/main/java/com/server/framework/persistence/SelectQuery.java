@@ -13,6 +13,8 @@ public class SelectQuery
 	Range range;
 	List<Column> selectColumnList = new ArrayList<>();
 	GroupByClause groupByClause;
+	Integer fetchSize;
+	boolean isCacheable = false;
 
 	public SelectQuery(String tableName)
 	{
@@ -38,6 +40,16 @@ public class SelectQuery
 		this.range = range;
 	}
 
+	public void setFetchSize(int fetchSize)
+	{
+		this.fetchSize = fetchSize;
+	}
+
+	public void setCacheable()
+	{
+		this.isCacheable = true;
+	}
+
 	public void setLock()
 	{
 		this.needLock = true;
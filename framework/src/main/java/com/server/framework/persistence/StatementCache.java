@@ -0,0 +1,157 @@
+package com.server.framework.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.server.framework.common.AppProperties;
+
+// Prepared statements keyed by SQL text, kept per physical connection so that they survive across pool checkouts. The pool closes the
+// statements prepared through its connection proxy when the connection is returned, so statements are prepared on the unwrapped physical
+// connection, which one checkout at a time owns. Each connection keeps the last db.access.statement.cache.size statements, 0 turns the
+// cache off. Caches of connections the pool has closed are dropped when the next connection is seen for the first time.
+class StatementCache implements AutoCloseable
+{
+	private static final Map<Connection, StatementCache> CONNECTION_CACHES = new IdentityHashMap<>();
+	private static final LongAdder HIT_COUNT = new LongAdder();
+	private static final LongAdder MISS_COUNT = new LongAdder();
+	private static final LongAdder EVICTION_COUNT = new LongAdder();
+
+	private final Connection connection;
+	private final boolean isShared;
+	private final Map<String, PreparedStatement> statementMap;
+
+	private StatementCache(Connection connection, boolean isShared, int maxSize)
+	{
+		this.connection = connection;
+		this.isShared = isShared;
+		this.statementMap = new LinkedHashMap<>(16, 0.75F, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest)
+			{
+				if(size() <= maxSize)
+				{
+					return false;
+				}
+				EVICTION_COUNT.increment();
+				closeQuietly(eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	static StatementCache open(Connection connection)
+	{
+		int maxSize = AppProperties.getIntProperty("db.access.statement.cache.size", 100);
+		Connection physicalConnection = unwrap(connection);
+		if(maxSize <= 0 || Objects.isNull(physicalConnection))
+		{
+			return new StatementCache(connection, false, Integer.MAX_VALUE);
+		}
+
+		synchronized(CONNECTION_CACHES)
+		{
+			StatementCache statementCache = CONNECTION_CACHES.get(physicalConnection);
+			if(Objects.isNull(statementCache))
+			{
+				removeClosedConnections();
+				statementCache = new StatementCache(physicalConnection, true, maxSize);
+				CONNECTION_CACHES.put(physicalConnection, statementCache);
+			}
+			return statementCache;
+		}
+	}
+
+	private static Connection unwrap(Connection connection)
+	{
+		try
+		{
+			return connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : null;
+		}
+		catch(Exception e)
+		{
+			return null;
+		}
+	}
+
+	private static void removeClosedConnections()
+	{
+		Iterator<StatementCache> iterator = CONNECTION_CACHES.values().iterator();
+		while(iterator.hasNext())
+		{
+			StatementCache statementCache = iterator.next();
+			boolean isClosed;
+			try
+			{
+				isClosed = statementCache.connection.isClosed();
+			}
+			catch(Exception e)
+			{
+				isClosed = true;
+			}
+			if(isClosed)
+			{
+				iterator.remove();
+				statementCache.statementMap.clear();
+			}
+		}
+	}
+
+	PreparedStatement prepareStatement(String sql) throws Exception
+	{
+		PreparedStatement preparedStatement = statementMap.get(sql);
+		if(Objects.nonNull(preparedStatement) && !preparedStatement.isClosed())
+		{
+			HIT_COUNT.increment();
+			preparedStatement.clearParameters();
+			preparedStatement.clearBatch();
+			return preparedStatement;
+		}
+
+		MISS_COUNT.increment();
+		preparedStatement = connection.prepareStatement(sql);
+		statementMap.put(sql, preparedStatement);
+		return preparedStatement;
+	}
+
+	// Statements of a physical connection stay open for the next checkout
+	@Override
+	public void close()
+	{
+		if(!isShared)
+		{
+			statementMap.values().forEach(StatementCache::closeQuietly);
+			statementMap.clear();
+		}
+	}
+
+	private static void closeQuietly(PreparedStatement preparedStatement)
+	{
+		try
+		{
+			preparedStatement.close();
+		}
+		catch(Exception e)
+		{
+		}
+	}
+
+	static Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("hit_count", HIT_COUNT.sum());
+		metrics.put("miss_count", MISS_COUNT.sum());
+		metrics.put("eviction_count", EVICTION_COUNT.sum());
+		synchronized(CONNECTION_CACHES)
+		{
+			metrics.put("connection_count", CONNECTION_CACHES.size());
+		}
+		return metrics;
+	}
+}
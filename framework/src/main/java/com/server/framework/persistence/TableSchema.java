@@ -0,0 +1,117 @@
+package com.server.framework.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class TableSchema
+{
+	private final String tableName;
+	private final List<String> columnList;
+	private final List<String> pkList;
+	private final List<String> fkList;
+	private final Map<String, String> fkReferenceTableMap;
+	private final Map<String, Integer> columnTypeMap;
+	private final List<String> selectColumnList;
+	private final String insertQuery;
+
+	TableSchema(String tableName, List<String> columnList, List<String> pkList, Map<String, String> fkReferenceTableMap, Map<String, Integer> columnTypeMap)
+	{
+		this.tableName = tableName;
+		this.columnList = Collections.unmodifiableList(new ArrayList<>(columnList));
+		this.pkList = Collections.unmodifiableList(new ArrayList<>(pkList));
+		this.fkList = Collections.unmodifiableList(new ArrayList<>(fkReferenceTableMap.keySet()));
+		this.fkReferenceTableMap = Collections.unmodifiableMap(new LinkedHashMap<>(fkReferenceTableMap));
+		this.columnTypeMap = Collections.unmodifiableMap(new LinkedHashMap<>(columnTypeMap));
+
+		List<String> qualifiedColumnList = new ArrayList<>(columnList.size());
+		for(String columnName : columnList)
+		{
+			qualifiedColumnList.add(tableName + "." + columnName);
+		}
+		this.selectColumnList = Collections.unmodifiableList(qualifiedColumnList);
+		this.insertQuery = buildInsertQuery(tableName, columnList);
+	}
+
+	private static String buildInsertQuery(String tableName, List<String> columnList)
+	{
+		if(columnList.isEmpty())
+		{
+			return null;
+		}
+
+		StringBuilder insertQuery = new StringBuilder("INSERT INTO " + tableName);
+		insertQuery.append(" ( ");
+		StringBuilder valuesPart = new StringBuilder(" (");
+		for(String columnName : columnList)
+		{
+			insertQuery.append(columnName);
+			insertQuery.append(",");
+
+			valuesPart.append("?,");
+		}
+
+		insertQuery.deleteCharAt(insertQuery.length() - 1);
+		valuesPart.deleteCharAt(valuesPart.length() - 1);
+
+		insertQuery.append(")");
+		insertQuery.append(" VALUES ");
+		insertQuery.append(valuesPart);
+		insertQuery.append(")");
+
+		return insertQuery.toString();
+	}
+
+	public String getTableName()
+	{
+		return tableName;
+	}
+
+	public List<String> getColumnList()
+	{
+		return columnList;
+	}
+
+	public List<String> getPKList()
+	{
+		return pkList;
+	}
+
+	public List<String> getFKList()
+	{
+		return fkList;
+	}
+
+	public Map<String, String> getFKReferenceTableMap()
+	{
+		return fkReferenceTableMap;
+	}
+
+	public Integer getColumnType(String columnName)
+	{
+		return columnTypeMap.get(columnName);
+	}
+
+	public Map<String, Integer> getColumnTypeMap()
+	{
+		return columnTypeMap;
+	}
+
+	public boolean hasColumn(String columnName)
+	{
+		return columnTypeMap.containsKey(columnName);
+	}
+
+	// Fully qualified "Table.Column" list used for SELECT * expansion
+	public List<String> getSelectColumnList()
+	{
+		return selectColumnList;
+	}
+
+	public String getInsertQuery()
+	{
+		return insertQuery;
+	}
+}
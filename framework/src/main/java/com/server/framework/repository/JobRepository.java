@@ -1,6 +1,7 @@
 package com.server.framework.repository;
 
 import com.server.framework.entity.JobEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -17,6 +18,29 @@ public interface JobRepository extends JpaRepository<JobEntity, Long> {
     @Modifying
     @Query("UPDATE Job j SET j.status = -1")
     void markAllJobsAsNotRunning();
+
+    // Hands back jobs whose owner stopped renewing their lease, and rows dispatched before leases existed
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.status = -1 WHERE j.status <> -1 AND (j.leaseExpiryTime IS NULL OR j.leaseExpiryTime < :currentTime)")
+    int releaseExpiredLeases(@Param("currentTime") Long currentTime);
+
+    @Query("SELECT j.id FROM Job j WHERE j.scheduledTime <= :executionTime AND j.status = -1 ORDER BY j.scheduledTime")
+    List<Long> findClaimableJobIds(@Param("executionTime") Long executionTime, Pageable pageable);
+
+    // The status condition makes the claim atomic, a job another node claimed in between is left out
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.status = 0, j.leaseOwner = :leaseOwner, j.leaseExpiryTime = :leaseExpiryTime WHERE j.id IN :ids AND j.status = -1")
+    int claimJobs(@Param("ids") List<Long> ids, @Param("leaseOwner") String leaseOwner, @Param("leaseExpiryTime") Long leaseExpiryTime);
+
+    @Query("SELECT j FROM Job j WHERE j.id IN :ids AND j.leaseOwner = :leaseOwner AND j.status = 0")
+    List<JobEntity> findClaimedJobs(@Param("ids") List<Long> ids, @Param("leaseOwner") String leaseOwner);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Job j SET j.leaseExpiryTime = :leaseExpiryTime WHERE j.leaseOwner = :leaseOwner AND j.status <> -1")
+    int renewLeases(@Param("leaseOwner") String leaseOwner, @Param("leaseExpiryTime") Long leaseExpiryTime);
     
     List<JobEntity> findByTaskName(String taskName);
     
@@ -11,6 +11,10 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
     
     Optional<UserEntity> findByName(String name);
+
+    Optional<UserEntity> findFirstByName(String name);
+
+    Optional<UserEntity> findFirstByNameIgnoreCase(String name);
     
     Optional<UserEntity> findByNameAndPassword(String name, String password);
 
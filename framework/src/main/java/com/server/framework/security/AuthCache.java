@@ -0,0 +1,169 @@
+package com.server.framework.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.server.framework.common.AppProperties;
+import com.server.framework.entity.UserEntity;
+
+// Users resolved from bearer tokens and session cookies, so that an authenticated request needs no database round trip. Keys are hashes of
+// the credentials and values are snapshots without the password; every hit gets its own UserEntity. Entries live for
+// security.auth.cache.ttl.seconds at most, which also bounds how long a revocation made on another instance goes unnoticed. Revocations
+// made here drop the entries at once and again after the surrounding transaction commits, so that a request which read the old rows
+// meanwhile cannot put them back.
+public final class AuthCache
+{
+	private static final class Snapshot
+	{
+		private final Long userId;
+		private final String name;
+		private final Integer roleType;
+		private final long expiryTime;
+
+		private Snapshot(UserEntity userEntity, long expiryTime)
+		{
+			this.userId = userEntity.getId();
+			this.name = userEntity.getName();
+			this.roleType = userEntity.getRoleType();
+			this.expiryTime = expiryTime;
+		}
+	}
+
+	private static final Map<String, Snapshot> SNAPSHOT_MAP = new LinkedHashMap<>(16, 0.75F, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest)
+		{
+			return size() > AppProperties.getIntProperty("security.auth.cache.size", 10000);
+		}
+	};
+
+	// Bumped on every invalidation, a lookup that raced with one is not cached
+	private static final AtomicLong GENERATION = new AtomicLong();
+
+	private static final LongAdder HIT_COUNT = new LongAdder();
+	private static final LongAdder MISS_COUNT = new LongAdder();
+	private static final LongAdder INVALIDATION_COUNT = new LongAdder();
+
+	private AuthCache()
+	{
+	}
+
+	public static UserEntity getByToken(String token, Supplier<Optional<UserEntity>> userLoader)
+	{
+		return get(tokenKey(token), userLoader);
+	}
+
+	public static UserEntity getBySession(String sessionId, Supplier<Optional<UserEntity>> userLoader)
+	{
+		return get(sessionKey(sessionId), userLoader);
+	}
+
+	private static UserEntity get(String key, Supplier<Optional<UserEntity>> userLoader)
+	{
+		long now = System.currentTimeMillis();
+		Snapshot snapshot;
+		synchronized(SNAPSHOT_MAP)
+		{
+			snapshot = SNAPSHOT_MAP.get(key);
+		}
+		if(snapshot != null && snapshot.expiryTime > now)
+		{
+			HIT_COUNT.increment();
+			return new UserEntity(snapshot.userId, snapshot.name, null, snapshot.roleType);
+		}
+
+		MISS_COUNT.increment();
+		long generation = GENERATION.get();
+		UserEntity userEntity = userLoader.get().orElse(null);
+		if(userEntity == null)
+		{
+			return null;
+		}
+
+		snapshot = new Snapshot(userEntity, now + TimeUnit.SECONDS.toMillis(AppProperties.getLongProperty("security.auth.cache.ttl.seconds", 60L)));
+		synchronized(SNAPSHOT_MAP)
+		{
+			if(generation == GENERATION.get())
+			{
+				SNAPSHOT_MAP.put(key, snapshot);
+			}
+		}
+		return new UserEntity(snapshot.userId, snapshot.name, null, snapshot.roleType);
+	}
+
+	public static void invalidateToken(String token)
+	{
+		String key = tokenKey(token);
+		invalidate(() -> SNAPSHOT_MAP.remove(key));
+	}
+
+	public static void invalidateSession(String sessionId)
+	{
+		String key = sessionKey(sessionId);
+		invalidate(() -> SNAPSHOT_MAP.remove(key));
+	}
+
+	// Drops every token and session of the user, for bulk revocation and for changes to the user itself
+	public static void invalidateUser(Long userId)
+	{
+		invalidate(() -> SNAPSHOT_MAP.values().removeIf(snapshot -> snapshot.userId.equals(userId)));
+	}
+
+	private static void invalidate(Runnable remover)
+	{
+		Runnable invalidator = () -> {
+			synchronized(SNAPSHOT_MAP)
+			{
+				GENERATION.incrementAndGet();
+				remover.run();
+			}
+		};
+
+		INVALIDATION_COUNT.increment();
+		invalidator.run();
+		if(TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+			{
+				@Override
+				public void afterCommit()
+				{
+					invalidator.run();
+				}
+			});
+		}
+	}
+
+	private static String tokenKey(String token)
+	{
+		return "T" + DigestUtils.sha256Hex(token);
+	}
+
+	private static String sessionKey(String sessionId)
+	{
+		return "S" + DigestUtils.sha256Hex(sessionId);
+	}
+
+	public static Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		synchronized(SNAPSHOT_MAP)
+		{
+			metrics.put("size", SNAPSHOT_MAP.size());
+		}
+		metrics.put("hit_count", HIT_COUNT.sum());
+		metrics.put("miss_count", MISS_COUNT.sum());
+		metrics.put("invalidation_count", INVALIDATION_COUNT.sum());
+		return metrics;
+	}
+}
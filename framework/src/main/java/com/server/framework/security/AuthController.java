@@ -94,6 +94,11 @@ public class AuthController {
     @RequestMapping("/logout")
     public void logout(HttpServletRequest request, HttpServletResponse response) throws IOException
     {
+        String sessionId = SecurityUtil.getSessionId();
+        if (sessionId != null && !sessionId.isEmpty()) {
+            loginService.deleteSession(sessionId);
+        }
+
         String maxAge = "Max-Age=0";
         StringBuilder header = new StringBuilder()
             .append("iam_token" + "=")
@@ -0,0 +1,132 @@
+package com.server.framework.security;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.server.framework.common.AppProperties;
+import com.server.framework.common.LatencyHistogram;
+
+// Time spent by sampled requests in each phase of SecurityFilter, kept per route. The phases of a request are collected in a thread local
+// array and only added to the histograms of its route when the request ends, when the route is known. One request in
+// security.filter.timing.sample.rate is sampled, 0 turns timing off.
+final class RequestPhaseTimings
+{
+	enum Phase
+	{
+		ZOHO_AUTH, ENDPOINT_VALIDATION, RATE_LIMIT, AUTHENTICATION, HTTP_LOG, CHAIN, TOTAL
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+	private static final int MAX_ROUTE_COUNT = 2000;
+	private static final String OTHER_ROUTE = "*";
+
+	private static final Map<String, LatencyHistogram[]> ROUTE_HISTOGRAMS = new ConcurrentHashMap<>();
+
+	// Start time of the request followed by the nanos of each phase, null while the request is not sampled
+	private static final ThreadLocal<long[]> PHASE_NANOS_TL = new ThreadLocal<>();
+	private static final ThreadLocal<long[]> PHASE_NANOS_CACHE_TL = ThreadLocal.withInitial(() -> new long[PHASES.length + 1]);
+
+	private RequestPhaseTimings()
+	{
+	}
+
+	static void start()
+	{
+		int sampleRate = AppProperties.getIntProperty("security.filter.timing.sample.rate", 1);
+		if(sampleRate <= 0 || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0))
+		{
+			PHASE_NANOS_TL.remove();
+			return;
+		}
+
+		long[] phaseNanos = PHASE_NANOS_CACHE_TL.get();
+		Arrays.fill(phaseNanos, 0L);
+		phaseNanos[0] = System.nanoTime();
+		PHASE_NANOS_TL.set(phaseNanos);
+	}
+
+	// Returns the start time to pass to end(), 0 when the request is not sampled
+	static long begin()
+	{
+		return Objects.isNull(PHASE_NANOS_TL.get()) ? 0L : System.nanoTime();
+	}
+
+	static void end(Phase phase, long startTime)
+	{
+		long[] phaseNanos = PHASE_NANOS_TL.get();
+		if(startTime != 0L && Objects.nonNull(phaseNanos))
+		{
+			phaseNanos[phase.ordinal() + 1] += System.nanoTime() - startTime;
+		}
+	}
+
+	static void finish()
+	{
+		long[] phaseNanos = PHASE_NANOS_TL.get();
+		if(Objects.isNull(phaseNanos))
+		{
+			return;
+		}
+		PHASE_NANOS_TL.remove();
+		phaseNanos[Phase.TOTAL.ordinal() + 1] = System.nanoTime() - phaseNanos[0];
+
+		LatencyHistogram[] histograms = getHistograms(SecurityUtil.getCurrentRoute());
+		for(Phase phase : PHASES)
+		{
+			// Phases a request returned before are left out rather than counted as zero
+			long nanos = phaseNanos[phase.ordinal() + 1];
+			if(nanos > 0)
+			{
+				histograms[phase.ordinal()].recordNanos(nanos);
+			}
+		}
+	}
+
+	private static LatencyHistogram[] getHistograms(String route)
+	{
+		LatencyHistogram[] histograms = ROUTE_HISTOGRAMS.get(route);
+		if(Objects.nonNull(histograms))
+		{
+			return histograms;
+		}
+		if(ROUTE_HISTOGRAMS.size() >= MAX_ROUTE_COUNT)
+		{
+			route = OTHER_ROUTE;
+		}
+		return ROUTE_HISTOGRAMS.computeIfAbsent(route, key -> {
+			LatencyHistogram[] newHistograms = new LatencyHistogram[PHASES.length];
+			for(int i = 0; i < newHistograms.length; i++)
+			{
+				newHistograms[i] = new LatencyHistogram();
+			}
+			return newHistograms;
+		});
+	}
+
+	static Map<String, Object> getMetrics()
+	{
+		Map<String, Object> routeMetrics = new LinkedHashMap<>();
+		ROUTE_HISTOGRAMS.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+			Map<String, Object> phaseMetrics = new LinkedHashMap<>();
+			for(Phase phase : PHASES)
+			{
+				LatencyHistogram histogram = entry.getValue()[phase.ordinal()];
+				if(histogram.getCount() > 0)
+				{
+					phaseMetrics.put(phase.name().toLowerCase(), histogram.getSummary());
+				}
+			}
+			routeMetrics.put(entry.getKey(), phaseMetrics);
+		});
+		return routeMetrics;
+	}
+
+	static void reset()
+	{
+		ROUTE_HISTOGRAMS.clear();
+	}
+}
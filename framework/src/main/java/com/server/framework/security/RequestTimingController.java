@@ -0,0 +1,38 @@
+package com.server.framework.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.server.framework.builder.ApiResponseBuilder;
+import com.server.framework.service.HttpLogService;
+
+@RestController
+@RequestMapping("/api/v1/admin/request")
+public class RequestTimingController
+{
+	@Autowired
+	private HttpLogService httpLogService;
+
+	@GetMapping("/timings")
+	public ResponseEntity<Map<String, Object>> getTimings()
+	{
+		Map<String, Object> data = new LinkedHashMap<>();
+		data.put("routes", RequestPhaseTimings.getMetrics());
+		data.put("http_log_writer", httpLogService.getMetrics());
+		return ResponseEntity.ok(ApiResponseBuilder.success("Request timings retrieved successfully", data));
+	}
+
+	@DeleteMapping("/timings")
+	public ResponseEntity<Map<String, Object>> resetTimings()
+	{
+		RequestPhaseTimings.reset();
+		return ResponseEntity.ok(ApiResponseBuilder.success("Request timings reset successfully", null));
+	}
+}
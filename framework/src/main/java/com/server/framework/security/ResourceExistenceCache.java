@@ -0,0 +1,142 @@
+package com.server.framework.security;
+
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.core.io.ResourceLoader;
+
+import com.server.framework.common.AppProperties;
+
+// Remembers both hits and misses of static resource lookups so that unknown paths do not probe the classpath and disk on every request.
+// Classpath resources are fixed for the life of the process; upload lookups are dropped whenever the uploads directory changes.
+final class ResourceExistenceCache
+{
+	private static final Logger LOGGER = Logger.getLogger(ResourceExistenceCache.class.getName());
+
+	private static final String FILE_PREFIX = "file:";
+
+	private static final Map<String, Boolean> EXISTENCE_MAP = new LinkedHashMap<>(16, 0.75F, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest)
+		{
+			return size() > AppProperties.getIntProperty("security.resource.cache.size", 2000);
+		}
+	};
+
+	// Bumped on every uploads change, a lookup that raced with a change is not cached
+	private static final AtomicLong UPLOADS_GENERATION = new AtomicLong();
+
+	private static volatile boolean isWatchingUploads;
+	private static volatile boolean isWatchAttempted;
+
+	static boolean exists(ResourceLoader resourceLoader, String location)
+	{
+		boolean isFileLocation = location.startsWith(FILE_PREFIX);
+		if(isFileLocation && !isWatchingUploads)
+		{
+			startWatchingUploads();
+			if(!isWatchingUploads)
+			{
+				// Without change notifications a cached answer could go stale, so look it up every time
+				return resourceLoader.getResource(location).exists();
+			}
+		}
+
+		Boolean isExists;
+		synchronized(EXISTENCE_MAP)
+		{
+			isExists = EXISTENCE_MAP.get(location);
+		}
+		if(isExists != null)
+		{
+			return isExists;
+		}
+
+		long generation = UPLOADS_GENERATION.get();
+		isExists = resourceLoader.getResource(location).exists();
+		synchronized(EXISTENCE_MAP)
+		{
+			if(!isFileLocation || generation == UPLOADS_GENERATION.get())
+			{
+				EXISTENCE_MAP.put(location, isExists);
+			}
+		}
+		return isExists;
+	}
+
+	private static synchronized void startWatchingUploads()
+	{
+		if(isWatchAttempted)
+		{
+			return;
+		}
+		isWatchAttempted = true;
+
+		Path uploadsPath = Path.of(SecurityUtil.getUploadsPath());
+		if(!Files.isDirectory(uploadsPath))
+		{
+			LOGGER.info("Uploads directory " + uploadsPath + " does not exist, upload lookups will not be cached");
+			return;
+		}
+
+		try
+		{
+			WatchService watchService = FileSystems.getDefault().newWatchService();
+			uploadsPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+			Thread watcherThread = new Thread(() -> watchUploads(watchService), "uploads-watcher");
+			watcherThread.setDaemon(true);
+			watcherThread.start();
+			isWatchingUploads = true;
+		}
+		catch(Exception e)
+		{
+			LOGGER.log(Level.SEVERE, "Exception occurred while watching uploads directory", e);
+		}
+	}
+
+	private static void watchUploads(WatchService watchService)
+	{
+		try
+		{
+			WatchKey key;
+			while((key = watchService.take()) != null)
+			{
+				// Events are not inspected one by one, any change (including OVERFLOW) drops every cached upload lookup
+				key.pollEvents();
+				clearFileLocations();
+				if(!key.reset())
+				{
+					break;
+				}
+			}
+		}
+		catch(ClosedWatchServiceException | InterruptedException e)
+		{
+			LOGGER.log(Level.INFO, "Stopped watching uploads directory");
+		}
+
+		isWatchingUploads = false;
+		clearFileLocations();
+	}
+
+	private static void clearFileLocations()
+	{
+		synchronized(EXISTENCE_MAP)
+		{
+			UPLOADS_GENERATION.incrementAndGet();
+			EXISTENCE_MAP.keySet().removeIf(location -> location.startsWith(FILE_PREFIX));
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.server.framework.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+// Request mapping patterns indexed by their leading literal segments. A lookup walks the trie along the request path and only tries the
+// pre-parsed patterns hanging off the visited nodes, deepest (most literal) first, so the cost follows the path length rather than the
+// number of endpoints.
+final class RouteIndex
+{
+	private final Node root = new Node();
+	private final int size;
+
+	private static final class Node
+	{
+		private final Map<String, Node> childMap = new HashMap<>();
+		private final List<PathPattern> patternList = new ArrayList<>();
+	}
+
+	RouteIndex(Collection<String> patterns)
+	{
+		PathPatternParser pathPatternParser = new PathPatternParser();
+		for(String pattern : patterns)
+		{
+			Node node = root;
+			for(String segment : pattern.split("/"))
+			{
+				if(segment.isEmpty() && node == root)
+				{
+					continue;
+				}
+				if(!isLiteral(segment))
+				{
+					break;
+				}
+				node = node.childMap.computeIfAbsent(segment, key -> new Node());
+			}
+			node.patternList.add(pathPatternParser.parse(pattern));
+		}
+		this.size = patterns.size();
+		sort(root);
+	}
+
+	private static boolean isLiteral(String segment)
+	{
+		return !segment.isEmpty() && segment.indexOf('{') == -1 && segment.indexOf('*') == -1 && segment.indexOf('?') == -1;
+	}
+
+	private static void sort(Node node)
+	{
+		node.patternList.sort(PathPattern.SPECIFICITY_COMPARATOR);
+		node.childMap.values().forEach(RouteIndex::sort);
+	}
+
+	// Pattern string of the most specific route matching the path, null if none does
+	String match(String path)
+	{
+		PathContainer pathContainer = PathContainer.parsePath(path);
+
+		List<Node> visitedNodeList = new ArrayList<>();
+		Node node = root;
+		visitedNodeList.add(node);
+		for(PathContainer.Element element : pathContainer.elements())
+		{
+			if(!(element instanceof PathContainer.PathSegment pathSegment))
+			{
+				continue;
+			}
+
+			node = pathSegment.valueToMatch().isEmpty() ? null : node.childMap.get(pathSegment.valueToMatch());
+			if(Objects.isNull(node))
+			{
+				break;
+			}
+			visitedNodeList.add(node);
+		}
+
+		for(int i = visitedNodeList.size() - 1; i >= 0; i--)
+		{
+			for(PathPattern pathPattern : visitedNodeList.get(i).patternList)
+			{
+				if(pathPattern.matches(pathContainer))
+				{
+					return pathPattern.getPatternString();
+				}
+			}
+		}
+		return null;
+	}
+
+	int size()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,287 @@
+package com.server.framework.security;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.server.framework.common.AppProperties;
+
+// Masks the values of secret keys in logged payloads. Key names are matched case-insensitively, also as a suffix of a longer name as
+// before (e.g. "x_auth_token"), by an Aho-Corasick automaton built once, so the text is scanned a single time regardless of the number
+// of keys. JSON input is handled token-wise: a whole string value is masked, escapes included, and nested objects are scanned as usual.
+// Other text falls back to the key=value / key:value form.
+public final class SecretMasker
+{
+	private static final String DEFAULT_KEYS = "access_token,refresh_token,token,authtoken,client_id,client_secret,secret,Authorization";
+	private static final String MASKED_VALUE = "\"********\"";
+	private static final int ALPHABET_SIZE = 128;
+
+	private static volatile SecretMasker defaultMasker;
+
+	private final int[][] transitions;
+	private final boolean[] isKeyEnd;
+
+	public SecretMasker(Collection<String> keys)
+	{
+		List<int[]> transitionList = new ArrayList<>();
+		List<Boolean> keyEndList = new ArrayList<>();
+		transitionList.add(newState());
+		keyEndList.add(false);
+
+		for(String key : keys)
+		{
+			int state = 0;
+			for(char c : key.trim().toCharArray())
+			{
+				int symbol = toSymbol(c);
+				if(symbol == -1)
+				{
+					state = -1;
+					break;
+				}
+				if(transitionList.get(state)[symbol] == -1)
+				{
+					transitionList.get(state)[symbol] = transitionList.size();
+					transitionList.add(newState());
+					keyEndList.add(false);
+				}
+				state = transitionList.get(state)[symbol];
+			}
+			if(state > 0)
+			{
+				keyEndList.set(state, true);
+			}
+		}
+
+		this.transitions = transitionList.toArray(new int[0][]);
+		this.isKeyEnd = new boolean[transitions.length];
+		for(int i = 0; i < isKeyEnd.length; i++)
+		{
+			isKeyEnd[i] = keyEndList.get(i);
+		}
+
+		// Breadth first pass turning the trie into a full transition table, where missing edges follow the failure links
+		int[] failures = new int[transitions.length];
+		Queue<Integer> stateQueue = new ArrayDeque<>();
+		for(int symbol = 0; symbol < ALPHABET_SIZE; symbol++)
+		{
+			int next = transitions[0][symbol];
+			if(next == -1)
+			{
+				transitions[0][symbol] = 0;
+			}
+			else
+			{
+				failures[next] = 0;
+				stateQueue.add(next);
+			}
+		}
+
+		while(!stateQueue.isEmpty())
+		{
+			int state = stateQueue.poll();
+			isKeyEnd[state] |= isKeyEnd[failures[state]];
+			for(int symbol = 0; symbol < ALPHABET_SIZE; symbol++)
+			{
+				int next = transitions[state][symbol];
+				if(next == -1)
+				{
+					transitions[state][symbol] = transitions[failures[state]][symbol];
+				}
+				else
+				{
+					failures[next] = transitions[failures[state]][symbol];
+					stateQueue.add(next);
+				}
+			}
+		}
+	}
+
+	// Built from http.log.mask.keys (comma separated) on first use
+	public static SecretMasker getDefault()
+	{
+		if(Objects.isNull(defaultMasker))
+		{
+			synchronized(SecretMasker.class)
+			{
+				if(Objects.isNull(defaultMasker))
+				{
+					defaultMasker = new SecretMasker(Arrays.asList(StringUtils.split(AppProperties.getProperty("http.log.mask.keys", DEFAULT_KEYS), ',')));
+				}
+			}
+		}
+		return defaultMasker;
+	}
+
+	private static int[] newState()
+	{
+		int[] state = new int[ALPHABET_SIZE];
+		Arrays.fill(state, -1);
+		return state;
+	}
+
+	private static int toSymbol(char c)
+	{
+		if(c >= ALPHABET_SIZE)
+		{
+			return -1;
+		}
+		return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+	}
+
+	public String mask(String text)
+	{
+		if(StringUtils.isEmpty(text))
+		{
+			return text;
+		}
+
+		int firstIndex = 0;
+		while(firstIndex < text.length() && Character.isWhitespace(text.charAt(firstIndex)))
+		{
+			firstIndex++;
+		}
+		boolean isJSON = firstIndex < text.length() && (text.charAt(firstIndex) == '{' || text.charAt(firstIndex) == '[');
+
+		StringBuilder maskedBuilder = null;
+		int copiedIndex = 0;
+		int state = 0;
+		int length = text.length();
+
+		for(int i = 0; i < length; i++)
+		{
+			int symbol = toSymbol(text.charAt(i));
+			state = symbol == -1 ? 0 : transitions[state][symbol];
+			if(!isKeyEnd[state])
+			{
+				continue;
+			}
+
+			int[] valueRange = isJSON ? findJSONValue(text, i + 1) : findTextValue(text, i + 1);
+			if(Objects.isNull(valueRange))
+			{
+				continue;
+			}
+
+			if(Objects.isNull(maskedBuilder))
+			{
+				maskedBuilder = new StringBuilder(length);
+			}
+			maskedBuilder.append(text, copiedIndex, valueRange[0]).append(MASKED_VALUE);
+			copiedIndex = valueRange[1];
+			i = valueRange[1] - 1;
+			state = 0;
+		}
+
+		if(Objects.isNull(maskedBuilder))
+		{
+			return text;
+		}
+		return maskedBuilder.append(text, copiedIndex, length).toString();
+	}
+
+	// Start (inclusive) and end (exclusive) of the value token following a key which closes a JSON string, e.g. "token" : "abc"
+	private static int[] findJSONValue(String text, int index)
+	{
+		int length = text.length();
+		if(index >= length || text.charAt(index) != '"')
+		{
+			return null;
+		}
+
+		index = skipWhitespace(text, index + 1);
+		if(index >= length || text.charAt(index) != ':')
+		{
+			return null;
+		}
+
+		int start = skipWhitespace(text, index + 1);
+		if(start >= length)
+		{
+			return null;
+		}
+
+		char c = text.charAt(start);
+		if(c == '"')
+		{
+			int end = start + 1;
+			while(end < length && text.charAt(end) != '"')
+			{
+				end += text.charAt(end) == '\\' ? 2 : 1;
+			}
+			return end < length ? new int[] {start, end + 1} : null;
+		}
+
+		// Objects and arrays are left for the scan to walk into, null has nothing to hide
+		if(c == '{' || c == '[' || c == 'n')
+		{
+			return null;
+		}
+
+		int end = start;
+		while(end < length && ",}] \t\r\n".indexOf(text.charAt(end)) == -1)
+		{
+			end++;
+		}
+		return new int[] {start, end};
+	}
+
+	// Same shape the old masking regex accepted: an optional quote, then = or :, and a token value that may be quoted
+	private static int[] findTextValue(String text, int index)
+	{
+		int length = text.length();
+		if(index < length && (text.charAt(index) == '"' || text.charAt(index) == '\''))
+		{
+			index++;
+		}
+
+		index = skipWhitespace(text, index);
+		if(index >= length || (text.charAt(index) != ':' && text.charAt(index) != '='))
+		{
+			return null;
+		}
+
+		int start = skipWhitespace(text, index + 1);
+		int end = start;
+		if(end < length && (text.charAt(end) == '"' || text.charAt(end) == '\''))
+		{
+			end++;
+		}
+
+		int valueStart = end;
+		while(end < length && isTokenChar(text.charAt(end)))
+		{
+			end++;
+		}
+		if(end == valueStart)
+		{
+			return null;
+		}
+
+		if(end < length && (text.charAt(end) == '"' || text.charAt(end) == '\''))
+		{
+			end++;
+		}
+		return new int[] {start, end};
+	}
+
+	private static boolean isTokenChar(char c)
+	{
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || "-._~+/=".indexOf(c) != -1;
+	}
+
+	private static int skipWhitespace(String text, int index)
+	{
+		while(index < text.length() && Character.isWhitespace(text.charAt(index)))
+		{
+			index++;
+		}
+		return index;
+	}
+}
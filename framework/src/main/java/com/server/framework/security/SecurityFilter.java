@@ -26,7 +26,10 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -73,27 +76,36 @@ public class SecurityFilter implements Filter
 	{
 		Map<RequestMappingInfo, ?> handlerMethods = requestMappingHandlerMapping.getHandlerMethods();
 
+		Set<String> patterns = new LinkedHashSet<>();
 		for(RequestMappingInfo info : handlerMethods.keySet())
 		{
-			SecurityUtil.VALID_ENDPOINTS.addAll(info.getPatternValues());
+			patterns.addAll(info.getPatternValues());
 		}
+		SecurityUtil.routeIndex = new RouteIndex(patterns);
+		LOGGER.info("Route index built with " + patterns.size() + " patterns");
 	}
 
 	@Override
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
 	{
 		String oldThreadName = Thread.currentThread().getName();
+		SecurityRequestWrapper securityRequestWrapper = null;
 
 		try
 		{
 			//Instrumentation code start
 			HttpServletRequest httpServletRequest = (HttpServletRequest) request;
 			boolean isMultipart = AppContextHolder.getBean(MultipartResolver.class).isMultipart(httpServletRequest);
-			_doFilter(!isMultipart ? new SecurityRequestWrapper(httpServletRequest) : request, response, chain);
+			securityRequestWrapper = !isMultipart ? new SecurityRequestWrapper(httpServletRequest) : null;
+			_doFilter(Objects.nonNull(securityRequestWrapper) ? securityRequestWrapper : request, response, chain);
 			//Instrumentation code end
 		}
 		finally
 		{
+			if(Objects.nonNull(securityRequestWrapper))
+			{
+				securityRequestWrapper.close();
+			}
 			cleanupThreadLocals(oldThreadName);
 		}
 	}
@@ -114,8 +126,22 @@ public class SecurityFilter implements Filter
 			return;
 		}
 
+		RequestPhaseTimings.start();
+		try
+		{
+			filterRequest(httpRequest, httpResponse, chain);
+		}
+		finally
+		{
+			RequestPhaseTimings.finish();
+		}
+	}
+
+	private void filterRequest(HttpServletRequest httpRequest, HttpServletResponse httpResponse, FilterChain chain) throws IOException, ServletException
+	{
 		String zohoUserEmail = null;
 
+		long startTime = RequestPhaseTimings.begin();
 		try
 		{
 			if((SecurityUtil.getCurrentRequestURI().equals("/zoho/oauth-tool") && StringUtils.isNotEmpty(SecurityUtil.getCurrentRequest().getParameter("state"))))
@@ -139,18 +165,30 @@ public class SecurityFilter implements Filter
 			}
 			handlerExceptionResolver.resolveException(httpRequest, httpResponse, null, ae);
 		}
+		finally
+		{
+			RequestPhaseTimings.end(RequestPhaseTimings.Phase.ZOHO_AUTH, startTime);
+		}
 
 		setThreadName(zohoUserEmail);
 
 		logRequest();
 
-		if(!validateEndpoint(httpResponse))
+		startTime = RequestPhaseTimings.begin();
+		boolean isValidEndpoint = validateEndpoint(httpResponse);
+		RequestPhaseTimings.end(RequestPhaseTimings.Phase.ENDPOINT_VALIDATION, startTime);
+		if(!isValidEndpoint)
 			return;
 
-		if(!handleRateLimit(httpResponse))
+		startTime = RequestPhaseTimings.begin();
+		boolean isAllowed = handleRateLimit(httpResponse);
+		RequestPhaseTimings.end(RequestPhaseTimings.Phase.RATE_LIMIT, startTime);
+		if(!isAllowed)
 			return;
 
+		startTime = RequestPhaseTimings.begin();
 		UserEntity userEntity = authenticateUser();
+		RequestPhaseTimings.end(RequestPhaseTimings.Phase.AUTHENTICATION, startTime);
 		CURRENT_USER_TL.set(userEntity);
 		setUserDetailsInThread();
 
@@ -281,12 +319,12 @@ public class SecurityFilter implements Filter
 		String bearer = SecurityUtil.extractBearer();
 		if(bearer != null)
 		{
-			return userService.findByToken(bearer).orElse(null);
+			return AuthCache.getByToken(bearer, () -> userService.findByToken(bearer));
 		}
 		else
 		{
 			String sessionId = SecurityUtil.getCookieValue(IAM_TOKEN_COOKIE);
-			return sessionId != null ? userService.findBySession(sessionId).orElse(null) : null;
+			return StringUtils.isNotEmpty(sessionId) ? AuthCache.getBySession(sessionId, () -> userService.findBySession(sessionId)) : null;
 		}
 	}
 
@@ -336,7 +374,7 @@ public class SecurityFilter implements Filter
 		}
 
 		logHttpRequest();
-		chain.doFilter(SecurityUtil.getCurrentRequest(), httpResponse);
+		doChain(httpResponse, chain);
 	}
 
 	private void handleAuthentication(HttpServletResponse httpResponse, FilterChain chain) throws IOException, ServletException
@@ -349,7 +387,7 @@ public class SecurityFilter implements Filter
 				return;
 			}
 			logHttpRequest();
-			chain.doFilter(SecurityUtil.getCurrentRequest(), httpResponse);
+			doChain(httpResponse, chain);
 		}
 		else
 		{
@@ -357,6 +395,19 @@ public class SecurityFilter implements Filter
 		}
 	}
 
+	private void doChain(HttpServletResponse httpResponse, FilterChain chain) throws IOException, ServletException
+	{
+		long startTime = RequestPhaseTimings.begin();
+		try
+		{
+			chain.doFilter(SecurityUtil.getCurrentRequest(), httpResponse);
+		}
+		finally
+		{
+			RequestPhaseTimings.end(RequestPhaseTimings.Phase.CHAIN, startTime);
+		}
+	}
+
 	private void handleUnauthenticatedRequest(HttpServletResponse httpResponse) throws IOException
 	{
 		HttpServletRequest httpRequest = SecurityUtil.getCurrentRequest();
@@ -376,6 +427,7 @@ public class SecurityFilter implements Filter
 	{
 		if(!SecurityUtil.isResourceFetchRequest() && !SecurityUtil.getCurrentRequest().getRequestURI().equals("/api/v1/admin/db/execute"))
 		{
+			long startTime = RequestPhaseTimings.begin();
 			try
 			{
 				httpLogService.logIncoming(SecurityUtil.getCurrentRequest());
@@ -383,6 +435,7 @@ public class SecurityFilter implements Filter
 			catch(Exception ignore)
 			{
 			}
+			RequestPhaseTimings.end(RequestPhaseTimings.Phase.HTTP_LOG, startTime);
 		}
 	}
 
@@ -11,15 +11,13 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tomcat.websocket.server.WsServerContainer;
@@ -27,14 +25,12 @@ import org.json.JSONObject;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.io.ResourceLoader;
-import org.springframework.http.server.PathContainer;
 import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 import org.springframework.web.socket.server.support.WebSocketHttpRequestHandler;
-import org.springframework.web.util.pattern.PathPattern;
-import org.springframework.web.util.pattern.PathPatternParser;
 
 import com.server.framework.common.AppContextHolder;
 import com.server.framework.common.AppProperties;
+import com.server.framework.common.ReadOnlyJSONObject;
 import com.server.framework.service.HttpLogService;
 
 import com.server.framework.entity.UserEntity;
@@ -54,7 +50,10 @@ public class SecurityUtil
 	public static final Function<String, Boolean> IS_SKIP_AUTHENTICATION_ENDPOINTS = requestURI ->
 		SKIP_AUTHENTICATION_ENDPOINTS.stream().anyMatch(requestURI::matches);
 
-	static final Set<String> VALID_ENDPOINTS = new HashSet<>();
+	private static final Pattern RESOURCE_FETCH_PATTERN = Pattern.compile("(/(((resources|css|js|uploads)/.*)|favicon.ico))|(.*\\.(html|css|js|png|jpeg|avif|mp3|mp4)$)");
+
+	static volatile RouteIndex routeIndex = new RouteIndex(List.of());
+	private static final String MATCHED_ROUTE_ATTRIBUTE = "MATCHED_ROUTE";
 
 	public static String getUploadsPath()
 	{
@@ -76,6 +75,28 @@ public class SecurityUtil
 		return getCurrentRequest().getRequestURI();
 	}
 
+	// Mapping pattern the request matched, so that requests differing only in path variables share one key. Requests served outside the
+	// controller mappings share "*".
+	public static String getCurrentRoute()
+	{
+		String route = matchCurrentRoute();
+		return Objects.isNull(route) ? "*" : route;
+	}
+
+	// Endpoint validation, throttling and phase timing all need the route, so the index is matched once and the result kept on the
+	// request. Null when no controller mapping matches.
+	private static String matchCurrentRoute()
+	{
+		HttpServletRequest request = getCurrentRequest();
+		Object route = request.getAttribute(MATCHED_ROUTE_ATTRIBUTE);
+		if(Objects.isNull(route))
+		{
+			route = Objects.requireNonNullElse(routeIndex.match(request.getRequestURI()), StringUtils.EMPTY);
+			request.setAttribute(MATCHED_ROUTE_ATTRIBUTE, route);
+		}
+		return StringUtils.isEmpty((String) route) ? null : (String) route;
+	}
+
 	public static boolean isRequestFromLoopBackAddress()
 	{
 		try
@@ -102,6 +123,24 @@ public class SecurityUtil
 		return StringUtils.defaultIfBlank(ip, request.getRemoteAddr());
 	}
 
+	// Client address which a client cannot choose. Each of the trustedProxyCount proxies in front appends the address it received the
+	// request from to X-Forwarded-For, so the client is that many hops from the right of the header plus the remote address; entries
+	// further left are whatever the client sent.
+	public static String getUnspoofableClientIP(int trustedProxyCount)
+	{
+		HttpServletRequest request = getCurrentRequest();
+		if(request == null)
+			return "127.0.0.1";
+
+		String forwardedFor = request.getHeader("X-Forwarded-For");
+		if(trustedProxyCount <= 0 || StringUtils.isBlank(forwardedFor))
+			return request.getRemoteAddr();
+
+		String[] hops = forwardedFor.split(",");
+		String ip = hops[Math.max(0, hops.length - trustedProxyCount)].trim();
+		return StringUtils.defaultIfBlank(ip, request.getRemoteAddr());
+	}
+
 	public static boolean isLoggedIn()
 	{
 		return getCurrentUser() != null;
@@ -232,13 +271,18 @@ public class SecurityUtil
 	{
 		String path = getCurrentRequest().getRequestURI();
 
-		PathPatternParser parser = new PathPatternParser();
-		boolean isValid = VALID_ENDPOINTS.stream().anyMatch(pattern -> {
-			PathPattern parsedPattern = parser.parse(pattern);
-			return parsedPattern.matches(PathContainer.parsePath(path));
-		});
+		if(Objects.nonNull(matchCurrentRoute()))
+		{
+			return true;
+		}
+
+		if(isResourceFetchRequest() && ResourceExistenceCache.exists(resourceLoader, "classpath:/static" + path))
+		{
+			return true;
+		}
 
-		return isValid || (isResourceFetchRequest() && resourceLoader.getResource("classpath:/static" + path).exists()) || (path.matches("/uploads/.*") && resourceLoader.getResource("file:" + getUploadsPath() + "/" + path.split("/")[2]).exists());
+		String[] pathSegments = path.split("/");
+		return path.startsWith("/uploads/") && pathSegments.length > 2 && ResourceExistenceCache.exists(resourceLoader, "file:" + getUploadsPath() + "/" + pathSegments[2]);
 	}
 
 	public static boolean isValidTomcatWebSocketEndPoint(String endPoint)
@@ -292,7 +336,7 @@ public class SecurityUtil
 
 	public static boolean isResourceFetchRequest(HttpServletRequest request)
 	{
-		return request.getRequestURI().matches("(/(((resources|css|js|uploads)/.*)|favicon.ico))|(.*\\.(html|css|js|png|jpeg|avif|mp3|mp4)$)");
+		return RESOURCE_FETCH_PATTERN.matcher(request.getRequestURI()).matches();
 	}
 
 	public static boolean isLoginRequest()
@@ -419,6 +463,7 @@ public class SecurityUtil
 		return getJSONObject(getCurrentRequest());
 	}
 
+	// The payload is parsed once per request and the same read-only tree is returned to every caller; use toMap() for a mutable copy
 	public static JSONObject getJSONObject(HttpServletRequest request) throws IOException
 	{
 		if(!StringUtils.equals(request.getContentType(), "application/json"))
@@ -427,13 +472,13 @@ public class SecurityUtil
 		}
 		if(Objects.nonNull(request.getAttribute("JSON_PAYLOAD")))
 		{
-			return new JSONObject(((JSONObject) request.getAttribute("JSON_PAYLOAD")).toMap());
+			return (JSONObject) request.getAttribute("JSON_PAYLOAD");
 		}
 		try
 		{
-			JSONObject jsonObject = new JSONObject(request.getReader().lines().collect(Collectors.joining()));
+			JSONObject jsonObject = ReadOnlyJSONObject.parse(request.getReader());
 			request.setAttribute("JSON_PAYLOAD", jsonObject);
-			return new JSONObject(jsonObject.toMap());
+			return jsonObject;
 		}
 		catch(Exception e)
 		{
@@ -3,5 +3,7 @@ package com.server.framework.security.throttle;
 public enum Algorithm
 {
 	TOKEN_BUCKET,
-	SLIDING_WINDOW
+	SLIDING_WINDOW,
+	ATOMIC_TOKEN_BUCKET,
+	SLIDING_WINDOW_COUNTER
 }
@@ -0,0 +1,100 @@
+package com.server.framework.security.throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free TokenBucket. Token count and last refill time share one AtomicLong, so a refill and the take that follows it commit with a
+// single CAS. The time is kept in milliseconds since creation in the upper 40 bits (about 34 years) and the tokens in the lower 24 bits,
+// which caps the capacity at 16M.
+final class AtomicTokenBucket implements RateLimiter
+{
+	private static final int TOKEN_BITS = 24;
+	private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+	private final long capacity;
+	private final long refillTokens;
+	private final long refillIntervalMillis;
+	private final long epochMillis;
+	private final AtomicLong state;
+
+	AtomicTokenBucket(long capacity, long refillTokens, long refillIntervalMillis)
+	{
+		this.capacity = Math.min(capacity, TOKEN_MASK);
+		this.refillTokens = Math.min(refillTokens, this.capacity);
+		this.refillIntervalMillis = Math.max(1L, refillIntervalMillis);
+		this.epochMillis = System.currentTimeMillis();
+		this.state = new AtomicLong(this.capacity);
+	}
+
+	@Override
+	public boolean tryAcquire()
+	{
+		while(true)
+		{
+			long current = state.get();
+			long refilled = refill(current, System.currentTimeMillis() - epochMillis);
+			long tokens = refilled & TOKEN_MASK;
+			if(tokens == 0)
+			{
+				return false;
+			}
+			if(state.compareAndSet(current, refilled - 1))
+			{
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public void consume(long count)
+	{
+		state.updateAndGet(current -> {
+			long refilled = refill(current, System.currentTimeMillis() - epochMillis);
+			return refilled - Math.min(refilled & TOKEN_MASK, Math.max(0L, count));
+		});
+	}
+
+	// Same whole-interval refill as TokenBucket, the refill time only moves forward by complete intervals
+	long refill(long current, long now)
+	{
+		long lastRefillTime = current >>> TOKEN_BITS;
+		long intervals = (now - lastRefillTime) / refillIntervalMillis;
+		if(intervals <= 0)
+		{
+			return current;
+		}
+
+		long tokens = current & TOKEN_MASK;
+		tokens = intervals >= capacity ? capacity : Math.min(capacity, tokens + intervals * refillTokens);
+		return ((lastRefillTime + intervals * refillIntervalMillis) << TOKEN_BITS) | tokens;
+	}
+
+	@Override
+	public long remainingTokens()
+	{
+		return refill(state.get(), System.currentTimeMillis() - epochMillis) & TOKEN_MASK;
+	}
+
+	@Override
+	public long refillEveryMillis()
+	{
+		return refillIntervalMillis;
+	}
+
+	@Override
+	public long capacity()
+	{
+		return capacity;
+	}
+
+	@Override
+	public long lastRefillTimeMs()
+	{
+		return epochMillis + (refill(state.get(), System.currentTimeMillis() - epochMillis) >>> TOKEN_BITS);
+	}
+
+	@Override
+	public String getAlgorithmName()
+	{
+		return "Atomic Token Bucket";
+	}
+}
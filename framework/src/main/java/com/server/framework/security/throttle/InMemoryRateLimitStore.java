@@ -0,0 +1,36 @@
+package com.server.framework.security.throttle;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process local stand-in for the shared store, for single instance setups and for exercising the lease logic without a database
+final class InMemoryRateLimitStore implements RateLimitStore
+{
+	private final Map<String, long[]> bucketMap = new ConcurrentHashMap<>();
+
+	@Override
+	public long acquire(String key, long requested, long capacity, long refillTokens, long refillIntervalMillis)
+	{
+		long now = System.currentTimeMillis();
+		long[] granted = new long[1];
+		bucketMap.compute(key, (bucketKey, bucket) -> {
+			long[] refilled = bucket == null ? new long[] {capacity, now} : RateLimitStore.refill(bucket[0], bucket[1], now, capacity, refillTokens, refillIntervalMillis);
+			granted[0] = Math.min(refilled[0], requested);
+			refilled[0] -= granted[0];
+			return refilled;
+		});
+		return granted[0];
+	}
+
+	@Override
+	public void evictIdle(long lastRefillBeforeTime)
+	{
+		bucketMap.values().removeIf(bucket -> bucket[1] < lastRefillBeforeTime);
+	}
+
+	@Override
+	public String getName()
+	{
+		return "memory";
+	}
+}
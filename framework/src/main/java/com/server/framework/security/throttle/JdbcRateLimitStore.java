@@ -0,0 +1,110 @@
+package com.server.framework.security.throttle;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.server.framework.persistence.DBUtil;
+
+// Shared buckets in the RateLimitBucket table. Each lease is one short transaction holding the row lock of its bucket, run on a pool of
+// its own so that requests holding DataAccess connections never wait on it.
+final class JdbcRateLimitStore implements RateLimitStore
+{
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private static final String SELECT_QUERY = "SELECT Tokens, LastRefillTime FROM RateLimitBucket WHERE BucketKey = ? FOR UPDATE";
+	private static final String INSERT_QUERY = "INSERT INTO RateLimitBucket (BucketKey, Tokens, LastRefillTime) VALUES (?, ?, ?)";
+	private static final String UPDATE_QUERY = "UPDATE RateLimitBucket SET Tokens = ?, LastRefillTime = ? WHERE BucketKey = ?";
+	private static final String DELETE_QUERY = "DELETE FROM RateLimitBucket WHERE LastRefillTime < ?";
+
+	@Override
+	public long acquire(String key, long requested, long capacity, long refillTokens, long refillIntervalMillis) throws Exception
+	{
+		String bucketKey = key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH - 9) + "#" + String.format("%08x", key.hashCode()) : key;
+
+		try(Connection connection = DBUtil.getThrottleDBConnection())
+		{
+			try
+			{
+				// A second attempt is only needed when another instance inserted the same missing bucket first
+				for(int attempt = 0; ; attempt++)
+				{
+					long now = System.currentTimeMillis();
+					long[] bucket = select(connection, bucketKey);
+
+					if(bucket == null)
+					{
+						long granted = Math.min(capacity, requested);
+						try
+						{
+							execute(connection, INSERT_QUERY, bucketKey, capacity - granted, now);
+							connection.commit();
+							return granted;
+						}
+						catch(SQLException e)
+						{
+							connection.rollback();
+							if(attempt > 0)
+							{
+								throw e;
+							}
+							continue;
+						}
+					}
+
+					long[] refilled = RateLimitStore.refill(bucket[0], bucket[1], now, capacity, refillTokens, refillIntervalMillis);
+					long granted = Math.min(refilled[0], requested);
+					execute(connection, UPDATE_QUERY, refilled[0] - granted, refilled[1], bucketKey);
+					connection.commit();
+					return granted;
+				}
+			}
+			catch(SQLException e)
+			{
+				connection.rollback();
+				throw e;
+			}
+		}
+	}
+
+	private static long[] select(Connection connection, String bucketKey) throws SQLException
+	{
+		try(PreparedStatement preparedStatement = connection.prepareStatement(SELECT_QUERY))
+		{
+			preparedStatement.setString(1, bucketKey);
+			try(ResultSet resultSet = preparedStatement.executeQuery())
+			{
+				return resultSet.next() ? new long[] {resultSet.getLong(1), resultSet.getLong(2)} : null;
+			}
+		}
+	}
+
+	private static void execute(Connection connection, String query, Object... values) throws SQLException
+	{
+		try(PreparedStatement preparedStatement = connection.prepareStatement(query))
+		{
+			for(int i = 0; i < values.length; i++)
+			{
+				preparedStatement.setObject(i + 1, values[i]);
+			}
+			preparedStatement.executeUpdate();
+		}
+	}
+
+	@Override
+	public void evictIdle(long lastRefillBeforeTime) throws Exception
+	{
+		try(Connection connection = DBUtil.getThrottleDBConnection())
+		{
+			execute(connection, DELETE_QUERY, lastRefillBeforeTime);
+			connection.commit();
+		}
+	}
+
+	@Override
+	public String getName()
+	{
+		return "jdbc";
+	}
+}
@@ -0,0 +1,150 @@
+package com.server.framework.security.throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Front of a shared bucket in a RateLimitStore. Requests are served from a local lease of leaseSize tokens and only an empty or expired
+// lease goes to the store; a lease size below one token leases a single token, so every request goes to the store. Leases expire after one refill interval so that unused tokens cannot be spent in a later interval; with n
+// instances the global limit is therefore exceeded by at most about n * leaseSize per interval. While the store is unreachable the
+// limiter falls back to a local bucket of the same shape.
+final class LeasedRateLimiter implements RateLimiter
+{
+	private static final Logger LOGGER = Logger.getLogger(LeasedRateLimiter.class.getName());
+
+	private static final long MAX_EXHAUSTED_BACKOFF_MILLIS = 1000L;
+	private static final long STORE_RETRY_MILLIS = 5000L;
+
+	private final RateLimitStore rateLimitStore;
+	private final String key;
+	private final long capacity;
+	private final long refillTokens;
+	private final long refillIntervalMillis;
+	private final long leaseSize;
+	private final RateLimiter fallbackRateLimiter;
+
+	private final AtomicLong leasedTokens = new AtomicLong();
+	private final Object leaseLock = new Object();
+	private volatile long leaseExpiryTime;
+	private volatile long exhaustedUntilTime;
+	private volatile long storeRetryTime;
+
+	LeasedRateLimiter(RateLimitStore rateLimitStore, String key, long capacity, long refillTokens, long refillIntervalMillis, long leaseSize)
+	{
+		this.rateLimitStore = rateLimitStore;
+		this.key = key;
+		this.capacity = capacity;
+		this.refillTokens = refillTokens;
+		this.refillIntervalMillis = Math.max(1L, refillIntervalMillis);
+		this.leaseSize = Math.max(1L, Math.min(leaseSize, capacity));
+		this.fallbackRateLimiter = new AtomicTokenBucket(capacity, refillTokens, refillIntervalMillis);
+	}
+
+	@Override
+	public boolean tryAcquire()
+	{
+		if(takeLeased())
+		{
+			return true;
+		}
+
+		synchronized(leaseLock)
+		{
+			// Another thread may have renewed the lease while this one waited
+			if(takeLeased())
+			{
+				return true;
+			}
+
+			long now = System.currentTimeMillis();
+			if(now < exhaustedUntilTime)
+			{
+				return false;
+			}
+			if(now < storeRetryTime)
+			{
+				return fallbackRateLimiter.tryAcquire();
+			}
+
+			long granted;
+			try
+			{
+				granted = rateLimitStore.acquire(key, leaseSize, capacity, refillTokens, refillIntervalMillis);
+			}
+			catch(Exception e)
+			{
+				LOGGER.log(Level.WARNING, "Exception occurred while leasing tokens from " + rateLimitStore.getName() + " rate limit store, using local limit for " + STORE_RETRY_MILLIS + " ms", e);
+				storeRetryTime = now + STORE_RETRY_MILLIS;
+				return fallbackRateLimiter.tryAcquire();
+			}
+
+			if(granted <= 0)
+			{
+				exhaustedUntilTime = now + Math.min(refillIntervalMillis, MAX_EXHAUSTED_BACKOFF_MILLIS);
+				return false;
+			}
+
+			leaseExpiryTime = now + refillIntervalMillis;
+			leasedTokens.set(granted - 1);
+			return true;
+		}
+	}
+
+	// Spent tokens are already held by the shared bucket in the store
+	@Override
+	public void consume(long count)
+	{
+	}
+
+	private boolean takeLeased()
+	{
+		if(System.currentTimeMillis() > leaseExpiryTime)
+		{
+			return false;
+		}
+
+		long tokens;
+		do
+		{
+			tokens = leasedTokens.get();
+			if(tokens <= 0)
+			{
+				return false;
+			}
+		}
+		while(!leasedTokens.compareAndSet(tokens, tokens - 1));
+		return true;
+	}
+
+	// Only the local lease is known without a store round trip
+	@Override
+	public long remainingTokens()
+	{
+		return System.currentTimeMillis() > leaseExpiryTime ? 0L : Math.max(0L, leasedTokens.get());
+	}
+
+	@Override
+	public long refillEveryMillis()
+	{
+		return refillIntervalMillis;
+	}
+
+	@Override
+	public long capacity()
+	{
+		return capacity;
+	}
+
+	// Chosen so that the Retry-After derived from it points at the next store lookup
+	@Override
+	public long lastRefillTimeMs()
+	{
+		return Math.max(exhaustedUntilTime, System.currentTimeMillis()) - refillIntervalMillis;
+	}
+
+	@Override
+	public String getAlgorithmName()
+	{
+		return "Shared Token Bucket (" + rateLimitStore.getName() + ")";
+	}
+}
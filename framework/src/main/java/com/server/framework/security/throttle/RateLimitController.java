@@ -0,0 +1,67 @@
+package com.server.framework.security.throttle;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.server.framework.builder.ApiResponseBuilder;
+
+// Route is the mapping pattern (e.g. /api/v1/jobs/{id}); without it the default policy is used
+@RestController
+@RequestMapping("/api/v1/admin/throttle")
+public class RateLimitController
+{
+	private static final Logger LOGGER = Logger.getLogger(RateLimitController.class.getName());
+
+	@GetMapping("/metrics")
+	public ResponseEntity<Map<String, Object>> getMetrics()
+	{
+		return ResponseEntity.ok(ApiResponseBuilder.success("Rate limiter metrics retrieved successfully", ThrottleNewHandler.getMetrics()));
+	}
+
+	@GetMapping("/policy")
+	public ResponseEntity<Map<String, Object>> getPolicy(@RequestParam(value = "route", required = false) String route)
+	{
+		return ResponseEntity.ok(ApiResponseBuilder.success("Rate limit policy retrieved successfully", ThrottleNewHandler.getPolicy(route).toMap()));
+	}
+
+	@PutMapping("/policy")
+	public ResponseEntity<Map<String, Object>> updatePolicy(@RequestParam(value = "route", required = false) String route, @RequestBody Map<String, Object> policyMap)
+	{
+		try
+		{
+			RateLimitPolicy policy = RateLimitPolicy.fromMap(policyMap, ThrottleNewHandler.getPolicy(route));
+			ThrottleNewHandler.updatePolicy(route, policy);
+			return ResponseEntity.ok(ApiResponseBuilder.success("Rate limit policy updated successfully", policy.toMap()));
+		}
+		catch(IllegalArgumentException e)
+		{
+			return ResponseEntity.badRequest().body(ApiResponseBuilder.error("Invalid rate limit policy: " + e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+		}
+		catch(Exception e)
+		{
+			LOGGER.log(Level.SEVERE, "Exception occurred while updating rate limit policy", e);
+			return ResponseEntity.internalServerError().body(ApiResponseBuilder.error("Failed to update rate limit policy: " + e.getMessage(), 500));
+		}
+	}
+
+	@DeleteMapping("/policy")
+	public ResponseEntity<Map<String, Object>> removePolicy(@RequestParam("route") String route)
+	{
+		if(!ThrottleNewHandler.removePolicy(route))
+		{
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponseBuilder.error("No rate limit policy for route " + route, HttpStatus.NOT_FOUND.value()));
+		}
+		return ResponseEntity.ok(ApiResponseBuilder.success("Rate limit policy removed, route uses the default policy", ThrottleNewHandler.getPolicy(null).toMap()));
+	}
+}
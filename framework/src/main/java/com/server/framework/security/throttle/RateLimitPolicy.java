@@ -0,0 +1,64 @@
+package com.server.framework.security.throttle;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.server.framework.common.AppProperties;
+
+// Limit applied to every client of one route, or of all routes without a policy of their own
+public final class RateLimitPolicy
+{
+	final long capacity;
+	final long refillTokens;
+	final Duration refillInterval;
+	final Algorithm algorithm;
+
+	public RateLimitPolicy(long capacity, long refillTokens, Duration refillInterval, Algorithm algorithm)
+	{
+		if(capacity <= 0 || refillTokens <= 0 || refillInterval.isNegative() || refillInterval.isZero())
+		{
+			throw new IllegalArgumentException("Capacity, refill tokens and refill interval must be positive");
+		}
+		this.capacity = capacity;
+		this.refillTokens = refillTokens;
+		this.refillInterval = refillInterval;
+		this.algorithm = Objects.requireNonNull(algorithm, "Algorithm is required");
+	}
+
+	// Reads throttle.route.policy.<name>.* falling back to the given policy for missing values
+	static RateLimitPolicy fromProperties(String name, RateLimitPolicy defaultPolicy)
+	{
+		String prefix = "throttle.route.policy." + name + ".";
+		long capacity = AppProperties.getLongProperty(prefix + "capacity", defaultPolicy.capacity);
+		long refillTokens = AppProperties.getLongProperty(prefix + "refill.tokens", capacity);
+		long refillIntervalSeconds = AppProperties.getLongProperty(prefix + "refill.interval.seconds", defaultPolicy.refillInterval.getSeconds());
+		Algorithm algorithm = Algorithm.valueOf(AppProperties.getProperty(prefix + "algorithm", defaultPolicy.algorithm.name()));
+		return new RateLimitPolicy(capacity, refillTokens, Duration.ofSeconds(refillIntervalSeconds), algorithm);
+	}
+
+	static RateLimitPolicy fromMap(Map<String, Object> policyMap, RateLimitPolicy currentPolicy)
+	{
+		long capacity = policyMap.containsKey("capacity") ? Long.parseLong(policyMap.get("capacity").toString()) : currentPolicy.capacity;
+		long refillTokens = policyMap.containsKey("refill_tokens") ? Long.parseLong(policyMap.get("refill_tokens").toString()) : currentPolicy.refillTokens;
+		long refillIntervalSeconds = policyMap.containsKey("refill_interval_seconds") ? Long.parseLong(policyMap.get("refill_interval_seconds").toString()) : currentPolicy.refillInterval.getSeconds();
+		Algorithm algorithm = policyMap.containsKey("algorithm") ? Algorithm.valueOf(policyMap.get("algorithm").toString()) : currentPolicy.algorithm;
+		return new RateLimitPolicy(capacity, refillTokens, Duration.ofSeconds(refillIntervalSeconds), algorithm);
+	}
+
+	RateLimitPolicy withAlgorithm(Algorithm algorithm)
+	{
+		return new RateLimitPolicy(capacity, refillTokens, refillInterval, algorithm);
+	}
+
+	Map<String, Object> toMap()
+	{
+		Map<String, Object> policyMap = new LinkedHashMap<>();
+		policyMap.put("capacity", capacity);
+		policyMap.put("refill_tokens", refillTokens);
+		policyMap.put("refill_interval_seconds", refillInterval.getSeconds());
+		policyMap.put("algorithm", algorithm.name());
+		return policyMap;
+	}
+}
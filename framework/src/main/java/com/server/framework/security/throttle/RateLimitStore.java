@@ -0,0 +1,27 @@
+package com.server.framework.security.throttle;
+
+// Token buckets shared by every app instance. Instances do not take single tokens from it, they lease a batch at a time (see
+// LeasedRateLimiter), so the store sees one call per lease rather than one per request.
+interface RateLimitStore
+{
+	// Takes up to requested tokens from the bucket of the key, creating it full if missing. Returns the number of tokens granted.
+	long acquire(String key, long requested, long capacity, long refillTokens, long refillIntervalMillis) throws Exception;
+
+	// Drops buckets which were last refilled before the given time, whichever registry they belong to
+	void evictIdle(long lastRefillBeforeTime) throws Exception;
+
+	String getName();
+
+	// Token count and last refill time after adding the whole intervals elapsed until now, same rule as TokenBucket
+	static long[] refill(long tokens, long lastRefillTime, long now, long capacity, long refillTokens, long refillIntervalMillis)
+	{
+		long intervals = (now - lastRefillTime) / refillIntervalMillis;
+		if(intervals <= 0)
+		{
+			return new long[] {tokens, lastRefillTime};
+		}
+
+		tokens = intervals >= capacity ? capacity : Math.min(capacity, tokens + intervals * refillTokens);
+		return new long[] {tokens, lastRefillTime + intervals * refillIntervalMillis};
+	}
+}
@@ -4,6 +4,9 @@ interface RateLimiter
 {
 	boolean tryAcquire();
 
+	// Takes up to the given number of tokens at once, used to carry what a client has spent over to the limiter of a new policy
+	void consume(long tokens);
+
 	long remainingTokens();
 
 	long refillEveryMillis();
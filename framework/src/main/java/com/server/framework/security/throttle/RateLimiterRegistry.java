@@ -1,47 +1,398 @@
 package com.server.framework.security.throttle;
 
-import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.server.framework.common.AppProperties;
+import com.server.framework.common.CustomThreadFactory;
 import com.server.framework.security.SecurityUtil;
 
-
+// One limiter per client and route. Buckets idle for longer than it takes them to refill completely are swept in the background, since a
+// recreated bucket starts full anyway. Once maxSize buckets exist, the least recently used tenth is evicted before a new client is added,
+// which keeps the heap flat when the address space is sprayed while every client keeps a bucket of its own. A registry serves one policy
+// and is replaced, not mutated, when the policy changes; the replacement takes over the buckets of its predecessor lazily, carrying the
+// tokens each client has spent over to a limiter of the new policy on the client's next request.
 final class RateLimiterRegistry
 {
-	final Map<String, RateLimiter> buckets = new ConcurrentHashMap<>();
-	final long capacity;
-	final long refillTokens;
+	private static final Logger LOGGER = Logger.getLogger(RateLimiterRegistry.class.getName());
+
+	private static final int MAX_INTERNED_ROUTE_COUNT = 10000;
+	private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("rate-limiter-sweeper-"));
+	private static final Map<String, String> ROUTE_INTERN_MAP = new ConcurrentHashMap<>();
+
+	// One store per process, shared by every registry, so that replacing a registry keeps the buckets held by the memory backend. Its
+	// buckets are evicted by a single sweep using the longest idle timeout of the open registries, as a table-wide eviction with the
+	// timeout of any one registry would drop live buckets of slower refilling policies.
+	private static final Set<RateLimiterRegistry> OPEN_REGISTRIES = ConcurrentHashMap.newKeySet();
+	private static RateLimitStore sharedRateLimitStore;
+	private static ScheduledFuture<?> storeSweepFuture;
+
+	enum KeyClass
+	{
+		LOOPBACK, DEFAULT
+	}
+
+	private static final class LimitConfig
+	{
+		private final long capacity;
+		private final long refillTokens;
+
+		private LimitConfig(long capacity, long refillTokens)
+		{
+			this.capacity = capacity;
+			this.refillTokens = refillTokens;
+		}
+	}
+
+	private static final class BucketKey
+	{
+		private final String ip;
+		private final String route;
+		private final int hash;
+
+		private BucketKey(String ip, String route)
+		{
+			this.ip = ip;
+			this.route = route;
+			this.hash = 31 * ip.hashCode() + route.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			return object instanceof BucketKey bucketKey && hash == bucketKey.hash && ip.equals(bucketKey.ip) && route.equals(bucketKey.route);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+
+	private static final class Bucket
+	{
+		private final RateLimiter rateLimiter;
+		private volatile long lastAccessTime;
+
+		private Bucket(RateLimiter rateLimiter)
+		{
+			this.rateLimiter = rateLimiter;
+			this.lastAccessTime = System.currentTimeMillis();
+		}
+	}
+
+	final Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+	final RateLimitPolicy policy;
 	final long refillIntervalMillis;
-	Algorithm algorithm;
+	final Algorithm algorithm;
+
+	private final LimitConfig[] limitConfigs = new LimitConfig[KeyClass.values().length];
+	private final int maxSize;
+	private final long idleTimeoutMillis;
+	private final ScheduledFuture<?> sweepFuture;
+
+	// Null when limits are kept per instance
+	private final RateLimitStore rateLimitStore;
+	private final long leaseTolerancePercent;
+	private final long instanceCount;
+
+	// Dropped once its buckets would have refilled completely, after which a fresh bucket is the same as a migrated one
+	private volatile RateLimiterRegistry predecessor;
+	private final long predecessorExpiryTime;
+
+	private final LongAdder evictedCount = new LongAdder();
+	private final LongAdder migratedCount = new LongAdder();
+	private final LongAdder lruEvictedCount = new LongAdder();
+	private final AtomicBoolean isEvicting = new AtomicBoolean();
+
+	RateLimiterRegistry(RateLimitPolicy policy)
+	{
+		this(policy, null);
+	}
+
+	RateLimiterRegistry(RateLimitPolicy policy, RateLimiterRegistry predecessor)
+	{
+		this.policy = policy;
+		this.refillIntervalMillis = policy.refillInterval.toMillis();
+		this.algorithm = policy.algorithm;
+
+		limitConfigs[KeyClass.LOOPBACK.ordinal()] = new LimitConfig(1000, 1000);
+		limitConfigs[KeyClass.DEFAULT.ordinal()] = new LimitConfig(policy.capacity, policy.refillTokens);
+
+		long fullRefillMillis = 0;
+		for(KeyClass keyClass : KeyClass.values())
+		{
+			LimitConfig limitConfig = limitConfigs[keyClass.ordinal()];
+			fullRefillMillis = Math.max(fullRefillMillis, ((limitConfig.capacity + limitConfig.refillTokens - 1) / Math.max(1, limitConfig.refillTokens)) * refillIntervalMillis);
+		}
+
+		this.rateLimitStore = getRateLimitStore(AppProperties.getProperty("throttle.backend", "local"));
+		this.leaseTolerancePercent = AppProperties.getLongProperty("throttle.shared.tolerance.percent", 5L);
+		this.instanceCount = Math.max(1L, AppProperties.getLongProperty("throttle.shared.instance.count", 2L));
+
+		this.maxSize = AppProperties.getIntProperty("throttle.registry.max.size", 100000);
+		this.idleTimeoutMillis = Math.max(fullRefillMillis, TimeUnit.SECONDS.toMillis(AppProperties.getLongProperty("throttle.bucket.idle.timeout.seconds", 300L)));
+
+		long sweepIntervalSeconds = AppProperties.getLongProperty("throttle.registry.sweep.interval.seconds", 60L);
+		this.sweepFuture = SWEEPER.scheduleWithFixedDelay(this::sweep, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+
+		if(Objects.nonNull(predecessor))
+		{
+			predecessor.sweepFuture.cancel(false);
+			RateLimiterRegistry previousPredecessor = predecessor.predecessor;
+			predecessor.predecessor = null;
+			if(Objects.nonNull(previousPredecessor))
+			{
+				previousPredecessor.close();
+			}
+			this.predecessorExpiryTime = System.currentTimeMillis() + predecessor.idleTimeoutMillis;
+		}
+		else
+		{
+			this.predecessorExpiryTime = 0L;
+		}
+		this.predecessor = predecessor;
+		OPEN_REGISTRIES.add(this);
+	}
 
-	RateLimiterRegistry(long capacity, long refillTokens, Duration refillInterval, Algorithm algorithm)
+	RateLimiter forKey(String ip, String route)
 	{
-		this.capacity = capacity;
-		this.refillTokens = refillTokens;
-		this.refillIntervalMillis = refillInterval.toMillis();
-		this.algorithm = algorithm;
+		BucketKey bucketKey = new BucketKey(ip, route);
+		Bucket bucket = buckets.get(bucketKey);
+		if(Objects.isNull(bucket))
+		{
+			// Loopback is only resolved for a client seen for the first time
+			KeyClass keyClass = SecurityUtil.isRequestFromLoopBackAddress() ? KeyClass.LOOPBACK : KeyClass.DEFAULT;
+			if(buckets.size() >= maxSize)
+			{
+				evictLeastRecentlyUsed();
+			}
+			bucket = buckets.computeIfAbsent(new BucketKey(ip, intern(route)), key -> {
+				RateLimiter rateLimiter = newRateLimiter(limitConfigs[keyClass.ordinal()], ip + "|" + key.route);
+				carryOver(key, rateLimiter);
+				return new Bucket(rateLimiter);
+			});
+		}
+
+		bucket.lastAccessTime = System.currentTimeMillis();
+		return bucket.rateLimiter;
+	}
+
+	private void carryOver(BucketKey bucketKey, RateLimiter rateLimiter)
+	{
+		RateLimiterRegistry previousRegistry = predecessor;
+		if(Objects.isNull(previousRegistry))
+		{
+			return;
+		}
+
+		Bucket previousBucket = previousRegistry.buckets.remove(bucketKey);
+		if(Objects.nonNull(previousBucket))
+		{
+			RateLimiter previousRateLimiter = previousBucket.rateLimiter;
+			rateLimiter.consume(Math.min(rateLimiter.capacity(), Math.max(0L, previousRateLimiter.capacity() - previousRateLimiter.remainingTokens())));
+			migratedCount.increment();
+		}
+	}
+
+	private static String intern(String route)
+	{
+		String internedRoute = ROUTE_INTERN_MAP.get(route);
+		if(Objects.nonNull(internedRoute))
+		{
+			return internedRoute;
+		}
+		if(ROUTE_INTERN_MAP.size() >= MAX_INTERNED_ROUTE_COUNT)
+		{
+			return route;
+		}
+		internedRoute = ROUTE_INTERN_MAP.putIfAbsent(route, route);
+		return Objects.isNull(internedRoute) ? route : internedRoute;
 	}
 
-	RateLimiter forKey(String key)
+	// The store is only replaced when the backend changes
+	private static synchronized RateLimitStore getRateLimitStore(String backend)
 	{
-		long customerCapacity = SecurityUtil.isRequestFromLoopBackAddress() ? 1000 : AppProperties.getProperty("environment").equals("zoho") ? 100 : capacity;
-		long customerRefillTokens = SecurityUtil.isRequestFromLoopBackAddress() ? 1000: AppProperties.getProperty("environment").equals("zoho") ? 100 : refillTokens;
-		return buckets.computeIfAbsent(key, k -> {
-			switch(algorithm)
+		if(Objects.nonNull(sharedRateLimitStore) && sharedRateLimitStore.getName().equals(backend))
+		{
+			return sharedRateLimitStore;
+		}
+
+		RateLimitStore rateLimitStore;
+		switch(backend)
+		{
+			case "jdbc":
+				rateLimitStore = new JdbcRateLimitStore();
+				break;
+			case "memory":
+				rateLimitStore = new InMemoryRateLimitStore();
+				break;
+			default:
+				return null;
+		}
+
+		if(Objects.nonNull(storeSweepFuture))
+		{
+			storeSweepFuture.cancel(false);
+		}
+		long sweepIntervalSeconds = AppProperties.getLongProperty("throttle.registry.sweep.interval.seconds", 60L);
+		storeSweepFuture = SWEEPER.scheduleWithFixedDelay(() -> sweepStore(rateLimitStore), sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+		sharedRateLimitStore = rateLimitStore;
+		return rateLimitStore;
+	}
+
+	// A bucket idle for longer than every registry using the store takes to refill it completely is full under each of their policies
+	private static void sweepStore(RateLimitStore rateLimitStore)
+	{
+		long idleTimeoutMillis = 0L;
+		for(RateLimiterRegistry registry : OPEN_REGISTRIES)
+		{
+			if(registry.rateLimitStore == rateLimitStore)
 			{
-				case SLIDING_WINDOW:
-					return new SlidingWindow(customerCapacity, refillIntervalMillis);
-				default:
-					return new TokenBucket(customerCapacity, customerRefillTokens, refillIntervalMillis);
+				idleTimeoutMillis = Math.max(idleTimeoutMillis, registry.idleTimeoutMillis);
 			}
-		});
+		}
+		if(idleTimeoutMillis == 0L)
+		{
+			return;
+		}
+
+		try
+		{
+			rateLimitStore.evictIdle(System.currentTimeMillis() - idleTimeoutMillis);
+		}
+		catch(Exception e)
+		{
+			LOGGER.log(Level.WARNING, "Exception occurred while evicting idle buckets from " + rateLimitStore.getName() + " rate limit store", e);
+		}
 	}
 
-	public void switchAlgorithm(Algorithm algorithm)
+	// Share of the capacity each instance may hold locally, so that all instances together stay within the tolerance. When the share
+	// rounds down to nothing every request goes to the store.
+	private long leaseSize(long capacity)
 	{
+		return capacity * leaseTolerancePercent / 100 / instanceCount;
+	}
+
+	// With a shared store the limit is a token bucket held by the store whatever the algorithm
+	private RateLimiter newRateLimiter(LimitConfig limitConfig, String key)
+	{
+		if(Objects.nonNull(rateLimitStore))
+		{
+			long leaseSize = leaseSize(limitConfig.capacity);
+			return new LeasedRateLimiter(rateLimitStore, key, limitConfig.capacity, limitConfig.refillTokens, refillIntervalMillis, leaseSize);
+		}
+
+		switch(algorithm)
+		{
+			case SLIDING_WINDOW:
+				return new SlidingWindow(limitConfig.capacity, refillIntervalMillis);
+			case ATOMIC_TOKEN_BUCKET:
+				return new AtomicTokenBucket(limitConfig.capacity, limitConfig.refillTokens, refillIntervalMillis);
+			case SLIDING_WINDOW_COUNTER:
+				return new SlidingWindowCounter(limitConfig.capacity, refillIntervalMillis);
+			default:
+				return new TokenBucket(limitConfig.capacity, limitConfig.refillTokens, refillIntervalMillis);
+		}
+	}
+
+	void sweep()
+	{
+		RateLimiterRegistry previousRegistry = predecessor;
+		if(Objects.nonNull(previousRegistry) && System.currentTimeMillis() >= predecessorExpiryTime)
+		{
+			predecessor = null;
+			previousRegistry.close();
+		}
+
+		long cutoffTime = System.currentTimeMillis() - idleTimeoutMillis;
+		int sizeBefore = buckets.size();
+		buckets.values().removeIf(bucket -> bucket.lastAccessTime < cutoffTime);
+
+		int evicted = sizeBefore - buckets.size();
+		if(evicted > 0)
+		{
+			evictedCount.add(evicted);
+			LOGGER.fine("Evicted " + evicted + " idle rate limiter buckets");
+		}
+	}
+
+	// One thread evicts while the others go on adding, so the registry may briefly hold a few buckets more than maxSize
+	private void evictLeastRecentlyUsed()
+	{
+		if(!isEvicting.compareAndSet(false, true))
+		{
+			return;
+		}
+		try
+		{
+			long[] accessTimes = new long[buckets.size()];
+			int count = 0;
+			for(Bucket bucket : buckets.values())
+			{
+				if(count == accessTimes.length)
+				{
+					break;
+				}
+				accessTimes[count++] = bucket.lastAccessTime;
+			}
+			if(count == 0)
+			{
+				return;
+			}
+			Arrays.sort(accessTimes, 0, count);
+
+			long cutoffTime = accessTimes[Math.min(count - 1, Math.max(0, count / 10 - 1))];
+			int sizeBefore = buckets.size();
+			buckets.values().removeIf(bucket -> bucket.lastAccessTime <= cutoffTime);
+			int evicted = Math.max(0, sizeBefore - buckets.size());
+			lruEvictedCount.add(evicted);
+			LOGGER.info("Rate limiter registry reached " + maxSize + " buckets, evicted " + evicted + " least recently used");
+		}
+		finally
+		{
+			isEvicting.set(false);
+		}
+	}
+
+	void close()
+	{
+		OPEN_REGISTRIES.remove(this);
+		predecessor = null;
+		sweepFuture.cancel(false);
 		buckets.clear();
-		this.algorithm = algorithm;
+	}
+
+	Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("policy", policy.toMap());
+		metrics.put("backend", Objects.isNull(rateLimitStore) ? "local" : rateLimitStore.getName());
+		if(Objects.nonNull(rateLimitStore))
+		{
+			metrics.put("lease_size", Math.max(1L, Math.min(policy.capacity, leaseSize(policy.capacity))));
+		}
+		metrics.put("bucket_count", buckets.size());
+		metrics.put("max_size", maxSize);
+		metrics.put("idle_timeout_ms", idleTimeoutMillis);
+		metrics.put("evicted_count", evictedCount.sum());
+		metrics.put("lru_evicted_count", lruEvictedCount.sum());
+		metrics.put("migrated_count", migratedCount.sum());
+		RateLimiterRegistry previousRegistry = predecessor;
+		metrics.put("predecessor_bucket_count", Objects.isNull(previousRegistry) ? 0 : previousRegistry.buckets.size());
+		return metrics;
 	}
 }
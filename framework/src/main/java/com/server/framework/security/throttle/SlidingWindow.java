@@ -36,6 +36,17 @@ final class SlidingWindow implements RateLimiter
 		return false;
 	}
 
+	@Override
+	public void consume(long count)
+	{
+		long now = DateUtil.getCurrentTimeInMillis();
+		cleanupExpiredTimestamps(now);
+		for(long i = Math.min(count, maxRequests - requestTimestamps.size()); i > 0; i--)
+		{
+			requestTimestamps.offer(now);
+		}
+	}
+
 	@Override
 	public long remainingTokens()
 	{
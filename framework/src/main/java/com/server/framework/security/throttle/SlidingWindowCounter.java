@@ -0,0 +1,109 @@
+package com.server.framework.security.throttle;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Approximates SlidingWindow with two fixed windows: the previous window's count is weighted by how much of it still overlaps the sliding
+// window. Window index (32 bits) and both counts (16 bits each) are packed into one AtomicLong, so the state is constant size per key
+// and updated with a single CAS. Requests per window are capped at 65535.
+final class SlidingWindowCounter implements RateLimiter
+{
+	private static final long COUNT_MASK = 0xFFFFL;
+
+	private final long maxRequests;
+	private final long windowSizeMillis;
+	private final long epochMillis;
+	private final AtomicLong state = new AtomicLong();
+
+	SlidingWindowCounter(long maxRequests, long windowSizeMillis)
+	{
+		this.maxRequests = Math.min(maxRequests, COUNT_MASK);
+		this.windowSizeMillis = Math.max(1L, windowSizeMillis);
+		this.epochMillis = System.currentTimeMillis();
+	}
+
+	@Override
+	public boolean tryAcquire()
+	{
+		while(true)
+		{
+			long elapsed = System.currentTimeMillis() - epochMillis;
+			long current = state.get();
+			long rolled = roll(current, elapsed / windowSizeMillis);
+
+			if(weightedCount(rolled, elapsed) >= maxRequests * windowSizeMillis)
+			{
+				return false;
+			}
+			if(state.compareAndSet(current, rolled + (1L << 16)))
+			{
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public void consume(long count)
+	{
+		state.updateAndGet(current -> {
+			long rolled = roll(current, (System.currentTimeMillis() - epochMillis) / windowSizeMillis);
+			long currentCount = Math.min(COUNT_MASK, ((rolled >>> 16) & COUNT_MASK) + Math.max(0L, count));
+			return (rolled & ~(COUNT_MASK << 16)) | (currentCount << 16);
+		});
+	}
+
+	// Moves the state to the given window, the current count becomes the previous one when exactly one window has passed
+	static long roll(long current, long windowIndex)
+	{
+		int difference = (int) windowIndex - (int) (current >>> 32);
+		if(difference <= 0)
+		{
+			return current;
+		}
+
+		long previousCount = difference == 1 ? (current >>> 16) & COUNT_MASK : 0L;
+		return (windowIndex << 32) | previousCount;
+	}
+
+	// Estimated requests in the sliding window, scaled by windowSizeMillis to stay in integer arithmetic
+	long weightedCount(long rolled, long elapsed)
+	{
+		long elapsedInWindow = elapsed % windowSizeMillis;
+		long currentCount = (rolled >>> 16) & COUNT_MASK;
+		long previousCount = rolled & COUNT_MASK;
+		return previousCount * (windowSizeMillis - elapsedInWindow) + currentCount * windowSizeMillis;
+	}
+
+	@Override
+	public long remainingTokens()
+	{
+		long elapsed = System.currentTimeMillis() - epochMillis;
+		long rolled = roll(state.get(), elapsed / windowSizeMillis);
+		long weightedCount = weightedCount(rolled, elapsed);
+		return Math.max(0L, maxRequests - (weightedCount + windowSizeMillis - 1) / windowSizeMillis);
+	}
+
+	@Override
+	public long refillEveryMillis()
+	{
+		return windowSizeMillis;
+	}
+
+	@Override
+	public long capacity()
+	{
+		return maxRequests;
+	}
+
+	@Override
+	public long lastRefillTimeMs()
+	{
+		long elapsed = System.currentTimeMillis() - epochMillis;
+		return epochMillis + (elapsed / windowSizeMillis) * windowSizeMillis;
+	}
+
+	@Override
+	public String getAlgorithmName()
+	{
+		return "Sliding Window Counter";
+	}
+}
@@ -1,9 +1,17 @@
 package com.server.framework.security.throttle;
 
+import com.server.framework.common.AppProperties;
 import com.server.framework.common.DateUtil;
+import com.server.framework.security.SecurityUtil;
 import jakarta.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
+
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,21 +24,42 @@ public class ThrottleNewHandler
 
 	private static final Integer MAX_REQUEST_ALLOWED = 100;  // capacity (burst) / max requests per window
 	private static final Integer TOKENS_ADDED_PER_INTERVAL = 100;  // tokens added per interval (for token bucket)
-	private static final Algorithm DEFAULT_ALGORITHM = Algorithm.TOKEN_BUCKET;  // tokens added per interval (for token bucket)
+	private static final Algorithm DEFAULT_ALGORITHM = Algorithm.ATOMIC_TOKEN_BUCKET;  // tokens added per interval (for token bucket)
 	private static final Integer WINDOW_SIZE = 60;  // tokens added per interval (for token bucket)
+	// Proxies in front of the server which append to X-Forwarded-For; clients are keyed by the address the outermost one saw
+	private static final int TRUSTED_PROXY_COUNT = AppProperties.getIntProperty("throttle.trusted.proxy.count", 1);
+
+	// Routes with a policy of their own get a registry of their own, so changing one route's policy leaves the buckets of every other
+	// route in place
+	private static final Map<String, RateLimiterRegistry> ROUTE_REGISTRIES = new ConcurrentHashMap<>();
+	private static volatile RateLimiterRegistry defaultRegistry;
+
+	static
+	{
+		boolean isZohoEnvironment = AppProperties.getProperty("environment", "development").equals("zoho");
+		RateLimitPolicy defaultPolicy = isZohoEnvironment ? new RateLimitPolicy(100, 100, Duration.ofSeconds(WINDOW_SIZE), DEFAULT_ALGORITHM) : new RateLimitPolicy(MAX_REQUEST_ALLOWED, TOKENS_ADDED_PER_INTERVAL, Duration.ofSeconds(WINDOW_SIZE), DEFAULT_ALGORITHM);
+		defaultRegistry = new RateLimiterRegistry(defaultPolicy);
 
-	static RateLimiterRegistry registry = new RateLimiterRegistry(MAX_REQUEST_ALLOWED, TOKENS_ADDED_PER_INTERVAL, Duration.ofSeconds(WINDOW_SIZE), DEFAULT_ALGORITHM);
+		for(String name : StringUtils.split(AppProperties.getProperty("throttle.route.policies", StringUtils.EMPTY), ','))
+		{
+			name = name.trim();
+			String route = AppProperties.getProperty("throttle.route.policy." + name + ".route");
+			if(StringUtils.isBlank(route))
+			{
+				LOGGER.warning("Rate limit policy " + name + " has no route, ignoring it");
+				continue;
+			}
+			ROUTE_REGISTRIES.put(route, new RateLimiterRegistry(RateLimitPolicy.fromProperties(name, defaultPolicy)));
+		}
+	}
 
 	public static boolean tryAcquire(HttpServletResponse response)
 	{
 		try
 		{
-			String ip = getOriginatingUserIP();
-			String uri = getCurrentRequestURI();
-			
-			String userId = ip + "-" + uri;
-
-			RateLimiter limiter = registry.forKey(userId);
+			String route = SecurityUtil.getCurrentRoute();
+			RateLimiterRegistry registry = ROUTE_REGISTRIES.getOrDefault(route, defaultRegistry);
+			RateLimiter limiter = registry.forKey(SecurityUtil.getUnspoofableClientIP(TRUSTED_PROXY_COUNT), route);
 
 			if(!limiter.tryAcquire())
 			{
@@ -58,24 +87,50 @@ public class ThrottleNewHandler
 
 	public static void switchAlgorithm(Algorithm algorithm)
 	{
-		registry.switchAlgorithm(algorithm);
+		updatePolicy(null, defaultRegistry.policy.withAlgorithm(algorithm));
+	}
+
+	public static RateLimitPolicy getPolicy(String route)
+	{
+		return Objects.isNull(route) ? defaultRegistry.policy : ROUTE_REGISTRIES.getOrDefault(route, defaultRegistry).policy;
 	}
 
-	private static String getOriginatingUserIP() {
-		try {
-			// Try to get from SecurityFilter's ThreadLocal
-			return "127.0.0.1"; // Simplified for now
-		} catch (Exception e) {
-			return "127.0.0.1";
+	// A null route updates the default policy. The new registry takes over the buckets of the one it replaces, so clients keep what they
+	// have spent under the old policy.
+	public static synchronized void updatePolicy(String route, RateLimitPolicy policy)
+	{
+		if(Objects.isNull(route))
+		{
+			defaultRegistry = new RateLimiterRegistry(policy, defaultRegistry);
 		}
+		else
+		{
+			ROUTE_REGISTRIES.put(route, new RateLimiterRegistry(policy, ROUTE_REGISTRIES.get(route)));
+		}
+		LOGGER.info("Rate limit policy of " + Objects.toString(route, "default route") + " updated to " + policy.toMap());
 	}
 
-	private static String getCurrentRequestURI() {
-		try {
-			// Try to get from SecurityFilter's ThreadLocal
-			return "/"; // Simplified for now
-		} catch (Exception e) {
-			return "/";
+	// The route falls back to the default policy
+	public static synchronized boolean removePolicy(String route)
+	{
+		RateLimiterRegistry oldRegistry = ROUTE_REGISTRIES.remove(route);
+		if(Objects.isNull(oldRegistry))
+		{
+			return false;
 		}
+		oldRegistry.close();
+		LOGGER.info("Rate limit policy of " + route + " removed");
+		return true;
+	}
+
+	public static Map<String, Object> getMetrics()
+	{
+		Map<String, Object> routeMetrics = new LinkedHashMap<>();
+		ROUTE_REGISTRIES.forEach((route, registry) -> routeMetrics.put(route, registry.getMetrics()));
+
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("default", defaultRegistry.getMetrics());
+		metrics.put("routes", routeMetrics);
+		return metrics;
 	}
 }
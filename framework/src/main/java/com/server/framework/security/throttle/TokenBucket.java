@@ -35,6 +35,13 @@ final class TokenBucket implements RateLimiter
 		return false;
 	}
 
+	@Override
+	public synchronized void consume(long count)
+	{
+		refill();
+		tokens = Math.max(0D, tokens - count);
+	}
+
 	@Override
 	public synchronized long remainingTokens()
 	{
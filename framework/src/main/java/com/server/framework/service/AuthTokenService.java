@@ -3,6 +3,7 @@ package com.server.framework.service;
 import com.server.framework.entity.AuthTokenEntity;
 import com.server.framework.entity.UserEntity;
 import com.server.framework.repository.AuthTokenRepository;
+import com.server.framework.security.AuthCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,10 +31,12 @@ public class AuthTokenService {
 
     public void deleteByUser(UserEntity userEntity) {
         authTokenRepository.deleteByUser(userEntity);
+        AuthCache.invalidateUser(userEntity.getId());
     }
     
     public void deleteByToken(String token) {
         authTokenRepository.deleteByToken(token);
+        AuthCache.invalidateToken(token);
     }
     
     public boolean existsByToken(String token) {
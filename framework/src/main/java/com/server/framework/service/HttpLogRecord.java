@@ -0,0 +1,55 @@
+package com.server.framework.service;
+
+// Immutable snapshot of an HTTP log row taken on the calling thread. Values are raw, masking is left to the writer thread.
+final class HttpLogRecord
+{
+	final long id;
+	final boolean isUpdate;
+	final String url;
+	final String method;
+	final String ip;
+	final String parameters;
+	final String requestHeaders;
+	final String requestData;
+	final String threadName;
+	final long createdTime;
+	final boolean isOutgoing;
+	final Integer statusCode;
+	final String responseHeaders;
+	final String responseData;
+	final String exceptionDetails;
+
+	private HttpLogRecord(long id, boolean isUpdate, String url, String method, String ip, String parameters, String requestHeaders, String requestData, String threadName, long createdTime, boolean isOutgoing, Integer statusCode, String responseHeaders, String responseData, String exceptionDetails)
+	{
+		this.id = id;
+		this.isUpdate = isUpdate;
+		this.url = url;
+		this.method = method;
+		this.ip = ip;
+		this.parameters = parameters;
+		this.requestHeaders = requestHeaders;
+		this.requestData = requestData;
+		this.threadName = threadName;
+		this.createdTime = createdTime;
+		this.isOutgoing = isOutgoing;
+		this.statusCode = statusCode;
+		this.responseHeaders = responseHeaders;
+		this.responseData = responseData;
+		this.exceptionDetails = exceptionDetails;
+	}
+
+	static HttpLogRecord forRequest(long id, String url, String method, String ip, String parameters, String requestHeaders, String requestData, boolean isOutgoing)
+	{
+		return new HttpLogRecord(id, false, url, method, ip, parameters, requestHeaders, requestData, Thread.currentThread().getName(), System.currentTimeMillis(), isOutgoing, null, null, null, null);
+	}
+
+	static HttpLogRecord forResponse(long id, Integer statusCode, String responseHeaders, String responseData, String exceptionDetails)
+	{
+		return new HttpLogRecord(id, true, null, null, null, null, null, null, null, 0L, false, statusCode, responseHeaders, responseData, exceptionDetails);
+	}
+
+	HttpLogRecord withResponse(HttpLogRecord responseRecord)
+	{
+		return new HttpLogRecord(id, false, url, method, ip, parameters, requestHeaders, requestData, threadName, createdTime, isOutgoing, responseRecord.statusCode, responseRecord.responseHeaders, responseRecord.responseData, responseRecord.exceptionDetails);
+	}
+}
@@ -1,16 +1,16 @@
 package com.server.framework.service;
 
-import com.server.framework.entity.HttpLogEntity;
-import com.server.framework.repository.HttpLogRepository;
+import com.server.framework.id.IdAllocator;
+import com.server.framework.security.SecretMasker;
 import com.server.framework.security.SecurityUtil;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.InputStream;
 import java.io.PrintWriter;
@@ -20,58 +20,48 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.zip.GZIPInputStream;
 
 @Service
-@Transactional
 public class HttpLogService
 {
 
-	@Autowired
-	private HttpLogRepository httpLogRepository;
+	@PostConstruct
+	public void init()
+	{
+		HttpLogWriter.start();
+	}
+
+	@PreDestroy
+	public void shutDown()
+	{
+		HttpLogWriter.shutdown();
+	}
 
 	public Long logIncoming(HttpServletRequest request) throws Exception
 	{
-		HttpLogEntity log = new HttpLogEntity();
-		log.setUrl(request.getRequestURL().toString());
-		log.setMethod(request.getMethod());
-		log.setIp(request.getRemoteAddr());
-		log.setParameters(getMasked(buildQueryJson(request.getQueryString())));
-		log.setRequestHeaders(getMasked(buildHeadersJson(request)));
-		log.setRequestData(getMasked(SecurityUtil.getCurrentRequestJSONObject()));
-		log.setThreadName(Thread.currentThread().getName());
-		log.setCreatedTime(System.currentTimeMillis());
-		log.setEntityType(0);
-		log.setIsOutgoing(false);
-		return httpLogRepository.save(log).getId();
+		long id = IdAllocator.nextId();
+		JSONObject requestJSON = SecurityUtil.getCurrentRequestJSONObject();
+		HttpLogWriter.submit(HttpLogRecord.forRequest(id, request.getRequestURL().toString(), request.getMethod(), request.getRemoteAddr(), buildQueryJson(request.getQueryString()), buildHeadersJson(request), Objects.isNull(requestJSON) ? null : requestJSON.toString(), false));
+		return id;
 	}
 
-	public Long logOutgoing(HttpURLConnection connection, String requestJson)
+	public Long logOutgoing(HttpURLConnection connection, String requestJson) throws Exception
 	{
-		HttpLogEntity log = new HttpLogEntity();
-		log.setUrl(getURLString(connection));
-		log.setMethod(connection.getRequestMethod());
-		log.setIp(null);
-		log.setParameters(getMasked(getQuery(connection)));
-		log.setRequestHeaders(getMasked(buildHeadersJson(connection)));
-		log.setRequestData(getMasked(requestJson));
-		log.setThreadName(Thread.currentThread().getName());
-		log.setCreatedTime(System.currentTimeMillis());
-		log.setEntityType(0);
-		log.setIsOutgoing(true);
-		return httpLogRepository.save(log).getId();
+		long id = IdAllocator.nextId();
+		HttpLogWriter.submit(HttpLogRecord.forRequest(id, getURLString(connection), connection.getRequestMethod(), null, getQuery(connection), buildHeadersJson(connection), requestJson, true));
+		return id;
 	}
 
 	public void updateWithResponse(Long httpLogId, HttpURLConnection connection)
 	{
-		Optional<HttpLogEntity> opt = httpLogRepository.findById(httpLogId);
-		if(opt.isEmpty())
-			return;
-		HttpLogEntity log = opt.get();
+		Integer statusCode = null;
+		String responseData = null;
+		String responseHeaders = null;
+		String exceptionDetails = null;
 		try
 		{
-			log.setStatusCode(connection.getResponseCode());
+			statusCode = connection.getResponseCode();
 			String contentType = connection.getContentType();
 			if(contentType != null && contentType.contains("json"))
 			{
@@ -84,21 +74,25 @@ public class HttpLogService
 					is = new GZIPInputStream(is);
 				}
 				byte[] bytes = is == null ? new byte[0] : is.readAllBytes();
-				String responseData = bytes.length == 0 ? StringUtils.EMPTY : new String(bytes);
-				log.setResponseData(getMasked(responseData));
+				responseData = bytes.length == 0 ? StringUtils.EMPTY : new String(bytes);
 			}
-			log.setResponseHeaders(getMasked(buildResponseHeadersJson(connection)));
+			responseHeaders = buildResponseHeadersJson(connection);
 		}
 		catch(Exception e)
 		{
-			log.setExceptionDetails(getExceptionDetails(e));
+			exceptionDetails = getExceptionDetails(e);
 		}
 		finally
 		{
-			httpLogRepository.save(log);
+			HttpLogWriter.submit(HttpLogRecord.forResponse(httpLogId, statusCode, responseHeaders, responseData, exceptionDetails));
 		}
 	}
 
+	public Map<String, Object> getMetrics()
+	{
+		return HttpLogWriter.getMetrics();
+	}
+
 	private String buildQueryJson(String query)
 	{
 		if(query == null || query.isEmpty())
@@ -160,16 +154,13 @@ public class HttpLogService
 		return connection.getURL().getQuery();
 	}
 
-	private String getMasked(Object data)
+	static String getMasked(Object data)
 	{
 		if(Objects.isNull(data))
 		{
 			return null;
 		}
-		return data.toString().replaceAll(
-			"(?i)([\"']?(access_token|refresh_token|token|authtoken|client_id|client_secret|secret|Authorization)[\"']?)\\s*([:=])\\s*([\"'])?([A-Za-z0-9\\-._~+/=]+)([\"'])?",
-			"$1$3\"********\""
-		);
+		return SecretMasker.getDefault().mask(data.toString());
 	}
 
 	private String getExceptionDetails(Exception e)
@@ -0,0 +1,285 @@
+package com.server.framework.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.server.framework.common.AppProperties;
+import com.server.framework.common.RingBuffer;
+import com.server.framework.persistence.DBUtil;
+
+// Takes HTTP log records off the calling thread. Records are queued in a ring buffer and a single writer thread masks them and persists
+// them with JDBC batches. A response update whose insert is still in the same batch is folded into that insert.
+final class HttpLogWriter
+{
+	private static final Logger LOGGER = Logger.getLogger(HttpLogWriter.class.getName());
+
+	private static final String INSERT_QUERY = "INSERT INTO HttpLog (Id, Url, Method, IP, Parameters, RequestHeaders, RequestData, ResponseHeaders, ResponseData, ThreadName, CreatedTime, EntityType, StatusCode, IsOutgoing, ExceptionDetails) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String UPDATE_QUERY = "UPDATE HttpLog SET StatusCode = ?, ResponseHeaders = ?, ResponseData = ?, ExceptionDetails = ? WHERE Id = ?";
+
+	private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	private static final long DROP_WARNING_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	enum OverflowPolicy
+	{
+		DROP, BLOCK
+	}
+
+	private static final LongAdder SUBMITTED_COUNT = new LongAdder();
+	private static final LongAdder DROPPED_COUNT = new LongAdder();
+	private static final LongAdder WRITTEN_COUNT = new LongAdder();
+	private static final LongAdder FAILED_COUNT = new LongAdder();
+
+	private static RingBuffer<HttpLogRecord> ringBuffer;
+	private static OverflowPolicy overflowPolicy;
+	private static Thread writerThread;
+	private static volatile boolean isRunning;
+	private static volatile long lastDropWarningTime;
+
+	static synchronized void start()
+	{
+		if(isRunning)
+		{
+			return;
+		}
+
+		ringBuffer = new RingBuffer<>(AppProperties.getIntProperty("http.log.buffer.size", 8192));
+		overflowPolicy = OverflowPolicy.valueOf(AppProperties.getProperty("http.log.overflow.policy", OverflowPolicy.DROP.name()).toUpperCase());
+		isRunning = true;
+
+		writerThread = new Thread(HttpLogWriter::run, "http-log-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+		LOGGER.info("Started HTTP log writer with buffer size " + ringBuffer.capacity() + " and overflow policy " + overflowPolicy);
+	}
+
+	// Stops taking records and waits for the ones already queued to be written
+	static synchronized void shutdown()
+	{
+		if(!isRunning)
+		{
+			return;
+		}
+
+		isRunning = false;
+		LockSupport.unpark(writerThread);
+		try
+		{
+			writerThread.join(AppProperties.getLongProperty("http.log.shutdown.timeout.ms", 10000L));
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		if(writerThread.isAlive())
+		{
+			LOGGER.warning("HTTP log writer did not finish flushing, " + ringBuffer.size() + " records are lost");
+		}
+	}
+
+	static void submit(HttpLogRecord httpLogRecord)
+	{
+		if(!isRunning)
+		{
+			onDrop();
+			return;
+		}
+
+		SUBMITTED_COUNT.increment();
+		if(ringBuffer.offer(httpLogRecord))
+		{
+			return;
+		}
+
+		if(overflowPolicy == OverflowPolicy.BLOCK)
+		{
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AppProperties.getLongProperty("http.log.block.timeout.ms", 100L));
+			while(isRunning && System.nanoTime() - deadline < 0)
+			{
+				LockSupport.parkNanos(BLOCK_PARK_NANOS);
+				if(ringBuffer.offer(httpLogRecord))
+				{
+					return;
+				}
+			}
+		}
+
+		onDrop();
+	}
+
+	private static void onDrop()
+	{
+		DROPPED_COUNT.increment();
+		long currentTime = System.nanoTime();
+		if(currentTime - lastDropWarningTime > DROP_WARNING_INTERVAL_NANOS)
+		{
+			lastDropWarningTime = currentTime;
+			LOGGER.warning("HTTP log buffer is full, " + DROPPED_COUNT.sum() + " records dropped so far");
+		}
+	}
+
+	private static void run()
+	{
+		int batchSize = AppProperties.getIntProperty("http.log.batch.size", 200);
+		long idleParkNanos = TimeUnit.MILLISECONDS.toNanos(AppProperties.getLongProperty("http.log.flush.interval.ms", 100L));
+
+		List<HttpLogRecord> batch = new ArrayList<>(batchSize);
+		while(true)
+		{
+			HttpLogRecord httpLogRecord;
+			while(batch.size() < batchSize && Objects.nonNull(httpLogRecord = ringBuffer.poll()))
+			{
+				batch.add(httpLogRecord);
+			}
+
+			if(batch.isEmpty())
+			{
+				if(!isRunning)
+				{
+					break;
+				}
+				LockSupport.parkNanos(idleParkNanos);
+				continue;
+			}
+
+			write(batch);
+			batch.clear();
+		}
+		LOGGER.info("HTTP log writer stopped");
+	}
+
+	private static void write(List<HttpLogRecord> batch)
+	{
+		Map<Long, HttpLogRecord> insertMap = new LinkedHashMap<>();
+		List<HttpLogRecord> updateList = new ArrayList<>();
+		for(HttpLogRecord httpLogRecord : batch)
+		{
+			if(!httpLogRecord.isUpdate)
+			{
+				insertMap.put(httpLogRecord.id, httpLogRecord);
+				continue;
+			}
+
+			HttpLogRecord insertRecord = insertMap.get(httpLogRecord.id);
+			if(Objects.nonNull(insertRecord))
+			{
+				insertMap.put(httpLogRecord.id, insertRecord.withResponse(httpLogRecord));
+			}
+			else
+			{
+				updateList.add(httpLogRecord);
+			}
+		}
+
+		try(Connection connection = DBUtil.getIsolatedServerDBConnectionForTxn())
+		{
+			try
+			{
+				if(!insertMap.isEmpty())
+				{
+					try(PreparedStatement preparedStatement = connection.prepareStatement(INSERT_QUERY))
+					{
+						for(HttpLogRecord httpLogRecord : insertMap.values())
+						{
+							bindInsert(preparedStatement, httpLogRecord);
+							preparedStatement.addBatch();
+						}
+						preparedStatement.executeBatch();
+					}
+				}
+
+				if(!updateList.isEmpty())
+				{
+					try(PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_QUERY))
+					{
+						for(HttpLogRecord httpLogRecord : updateList)
+						{
+							bindUpdate(preparedStatement, httpLogRecord);
+							preparedStatement.addBatch();
+						}
+						preparedStatement.executeBatch();
+					}
+				}
+
+				connection.commit();
+				WRITTEN_COUNT.add(insertMap.size() + updateList.size());
+			}
+			catch(SQLException e)
+			{
+				connection.rollback();
+				throw e;
+			}
+		}
+		catch(Exception e)
+		{
+			FAILED_COUNT.add(insertMap.size() + updateList.size());
+			LOGGER.log(Level.SEVERE, "Exception occurred while writing " + batch.size() + " HTTP log records", e);
+		}
+	}
+
+	private static void bindInsert(PreparedStatement preparedStatement, HttpLogRecord httpLogRecord) throws SQLException
+	{
+		preparedStatement.setLong(1, httpLogRecord.id);
+		preparedStatement.setString(2, httpLogRecord.url);
+		preparedStatement.setString(3, httpLogRecord.method);
+		preparedStatement.setString(4, httpLogRecord.ip);
+		preparedStatement.setString(5, HttpLogService.getMasked(httpLogRecord.parameters));
+		preparedStatement.setString(6, HttpLogService.getMasked(httpLogRecord.requestHeaders));
+		preparedStatement.setString(7, HttpLogService.getMasked(httpLogRecord.requestData));
+		preparedStatement.setString(8, HttpLogService.getMasked(httpLogRecord.responseHeaders));
+		preparedStatement.setString(9, HttpLogService.getMasked(httpLogRecord.responseData));
+		preparedStatement.setString(10, httpLogRecord.threadName);
+		preparedStatement.setLong(11, httpLogRecord.createdTime);
+		preparedStatement.setInt(12, 0);
+		setInteger(preparedStatement, 13, httpLogRecord.statusCode);
+		preparedStatement.setBoolean(14, httpLogRecord.isOutgoing);
+		preparedStatement.setString(15, httpLogRecord.exceptionDetails);
+	}
+
+	private static void bindUpdate(PreparedStatement preparedStatement, HttpLogRecord httpLogRecord) throws SQLException
+	{
+		setInteger(preparedStatement, 1, httpLogRecord.statusCode);
+		preparedStatement.setString(2, HttpLogService.getMasked(httpLogRecord.responseHeaders));
+		preparedStatement.setString(3, HttpLogService.getMasked(httpLogRecord.responseData));
+		preparedStatement.setString(4, httpLogRecord.exceptionDetails);
+		preparedStatement.setLong(5, httpLogRecord.id);
+	}
+
+	private static void setInteger(PreparedStatement preparedStatement, int index, Integer value) throws SQLException
+	{
+		if(Objects.isNull(value))
+		{
+			preparedStatement.setNull(index, Types.INTEGER);
+		}
+		else
+		{
+			preparedStatement.setInt(index, value);
+		}
+	}
+
+	static Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("running", isRunning);
+		metrics.put("overflow_policy", String.valueOf(overflowPolicy));
+		metrics.put("buffer_capacity", Objects.isNull(ringBuffer) ? 0 : ringBuffer.capacity());
+		metrics.put("buffer_size", Objects.isNull(ringBuffer) ? 0 : ringBuffer.size());
+		metrics.put("submitted_count", SUBMITTED_COUNT.sum());
+		metrics.put("dropped_count", DROPPED_COUNT.sum());
+		metrics.put("written_count", WRITTEN_COUNT.sum());
+		metrics.put("failed_count", FAILED_COUNT.sum());
+		return metrics;
+	}
+}
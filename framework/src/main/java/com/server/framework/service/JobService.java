@@ -4,17 +4,27 @@ import com.server.framework.common.AppProperties;
 import com.server.framework.common.DateUtil;
 import com.server.framework.entity.JobEntity;
 import com.server.framework.job.CustomRunnable;
+import com.server.framework.job.JobDispatcher;
 import com.server.framework.job.JobStatus;
 import com.server.framework.job.RefreshManager;
+import com.server.framework.job.TimingWheel;
 import com.server.framework.repository.JobRepository;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class JobService
@@ -29,6 +39,30 @@ public class JobService
 	@Autowired
 	private JobWrapper jobWrapper;
 
+	@Lazy
+	@Autowired
+	private JobDispatcher jobDispatcher;
+
+	// Timers of the jobs dispatched to this instance, so that deleting a job also stops its pending run
+	private static final Map<Long, TimingWheel.TimerHandle> JOB_TIMERS = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init()
+	{
+		JobStateWriter.start(AppProperties.getBooleanProperty("job.dispatcher.enabled", true) ? jobDispatcher : null);
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		JobStateWriter.shutdown();
+	}
+
+	public Map<String, Object> getStateWriterMetrics()
+	{
+		return JobStateWriter.getMetrics();
+	}
+
 	public List<JobEntity> getAllJobs()
 	{
 		return jobRepository.findAll();
@@ -39,16 +73,33 @@ public class JobService
 		scheduleJob(runnable, seconds * 1000L);
 	}
 
-	public void scheduleJob(CustomRunnable runnable, long millisecondDelay)
+	public TimingWheel.TimerHandle scheduleJob(CustomRunnable runnable, long millisecondDelay)
 	{
-		RefreshManager.addJobInQueue(runnable, millisecondDelay);
+		return RefreshManager.addJobInQueue(runnable, millisecondDelay);
 	}
 
 	public void scheduleJob(JobEntity jobEntity)
 	{
 		jobEntity.setStatus(JobStatus.JOB_DISPATCHED);
-		jobRepository.save(jobEntity);
-		RefreshManager.addJobInQueue(() -> jobWrapper.executeJob(jobEntity), Math.max(0, jobEntity.getScheduledTime() - DateUtil.getCurrentTimeInMillis()));
+		JobStateWriter.markDispatched(jobEntity);
+		dispatchJob(jobEntity);
+	}
+
+	// Puts an already dispatched job into the in-memory timer, the dispatcher's claim has set its status
+	public void dispatchJob(JobEntity jobEntity)
+	{
+		Long jobId = jobEntity.getId();
+		TimingWheel.TimerHandle[] timerHandle = new TimingWheel.TimerHandle[1];
+		timerHandle[0] = RefreshManager.addJobInQueue(() -> {
+			JOB_TIMERS.remove(jobId, timerHandle[0]);
+			jobWrapper.executeJob(jobEntity);
+		}, Math.max(0, jobEntity.getScheduledTime() - DateUtil.getCurrentTimeInMillis()));
+
+		TimingWheel.TimerHandle oldTimerHandle = JOB_TIMERS.put(jobId, timerHandle[0]);
+		if(Objects.nonNull(oldTimerHandle))
+		{
+			oldTimerHandle.cancel();
+		}
 	}
 
 	public List<JobEntity> findJobsToExecute(Long executionTime)
@@ -71,14 +122,42 @@ public class JobService
 		jobEntity.setIsRecurring(isRecurring);
 		Long jobID = jobRepository.save(jobEntity).getId();
 
-		if(!AppProperties.getBoolean("job.dispatcher.enabled"))
+		if(!AppProperties.getBooleanProperty("job.dispatcher.enabled", true))
 		{
 			scheduleJob(jobEntity);
 		}
+		else if(TransactionSynchronizationManager.isSynchronizationActive())
+		{
+			// The dispatcher cannot claim the job before the caller's transaction commits it
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+			{
+				@Override
+				public void afterCommit()
+				{
+					jobDispatcher.wakeUp(executionTimeInMilliseconds);
+				}
+			});
+		}
+		else
+		{
+			jobDispatcher.wakeUp(executionTimeInMilliseconds);
+		}
 
 		return jobID;
 	}
 
+	// Sets a finished job not running for its next run; with the dispatcher on the write is buffered and wakes the dispatcher once flushed
+	void requeueJob(JobEntity jobEntity)
+	{
+		if(!AppProperties.getBooleanProperty("job.dispatcher.enabled", true))
+		{
+			scheduleJob(jobEntity);
+			return;
+		}
+		jobEntity.setStatus(JobStatus.JOB_NOT_RUNNING);
+		JobStateWriter.markNotRunning(jobEntity);
+	}
+
 	public Optional<JobEntity> getJob(long jobId)
 	{
 		return jobRepository.findById(jobId);
@@ -96,6 +175,11 @@ public class JobService
 	{
 		if(id == -1)
 			return;
+		TimingWheel.TimerHandle timerHandle = JOB_TIMERS.remove(id);
+		if(Objects.nonNull(timerHandle))
+		{
+			timerHandle.cancel();
+		}
 		jobRepository.deleteById(id);
 		configurationService.delete(DigestUtils.sha1Hex(String.valueOf(id)));
 	}
@@ -0,0 +1,271 @@
+package com.server.framework.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import com.server.framework.common.AppProperties;
+import com.server.framework.entity.JobEntity;
+import com.server.framework.job.JobDispatcher;
+import com.server.framework.job.JobStatus;
+import com.server.framework.persistence.DBUtil;
+
+// Write-behind buffer for the state of running jobs. Each job id keeps only its latest pending state, so a job that starts and finishes
+// within one flush interval costs a single row update, and a writer thread flushes the states with JDBC batches. With the dispatcher on,
+// writes only apply to rows this node still holds the lease of. States lost in a crash leave the row dispatched or running under a lease
+// nobody renews; once it expires the dispatcher hands the job back and it runs again.
+final class JobStateWriter
+{
+	private static final Logger LOGGER = Logger.getLogger(JobStateWriter.class.getName());
+
+	private static final String UPDATE_QUERY = "UPDATE Job SET Status = ?, ScheduledTime = ? WHERE Id = ?";
+	private static final String LEASED_UPDATE_QUERY = UPDATE_QUERY + " AND (LeaseOwner IS NULL OR LeaseOwner = ?)";
+	private static final String DELETE_QUERY = "DELETE FROM Job WHERE Id = ?";
+	private static final String LEASED_DELETE_QUERY = DELETE_QUERY + " AND (LeaseOwner IS NULL OR LeaseOwner = ?)";
+	private static final String DELETE_CONFIGURATION_QUERY = "DELETE FROM Configuration WHERE CKey = ?";
+
+	private static final class JobState
+	{
+		private final long jobId;
+		private final int status;
+		private final long scheduledTime;
+		private final boolean isDeleted;
+		// The job is due again, the dispatcher is woken once the state is written
+		private final boolean isRequeued;
+
+		private JobState(long jobId, int status, long scheduledTime, boolean isDeleted, boolean isRequeued)
+		{
+			this.jobId = jobId;
+			this.status = status;
+			this.scheduledTime = scheduledTime;
+			this.isDeleted = isDeleted;
+			this.isRequeued = isRequeued;
+		}
+	}
+
+	private static final Map<Long, JobState> PENDING_STATES = new ConcurrentHashMap<>();
+
+	private static final LongAdder SUBMITTED_COUNT = new LongAdder();
+	private static final LongAdder COALESCED_COUNT = new LongAdder();
+	private static final LongAdder WRITTEN_COUNT = new LongAdder();
+	private static final LongAdder FAILED_COUNT = new LongAdder();
+
+	private static JobDispatcher jobDispatcher;
+	private static Thread writerThread;
+	private static volatile boolean isRunning;
+
+	static synchronized void start(JobDispatcher dispatcher)
+	{
+		if(isRunning)
+		{
+			return;
+		}
+
+		jobDispatcher = dispatcher;
+		isRunning = true;
+
+		writerThread = new Thread(JobStateWriter::run, "job-state-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+		LOGGER.info("Started job state writer with flush interval " + AppProperties.getLongProperty("job.state.flush.interval.ms", 200L) + " ms");
+	}
+
+	// Stops the writer after it has flushed the pending states
+	static synchronized void shutdown()
+	{
+		if(!isRunning)
+		{
+			return;
+		}
+
+		isRunning = false;
+		LockSupport.unpark(writerThread);
+		try
+		{
+			writerThread.join(AppProperties.getLongProperty("job.state.shutdown.timeout.ms", 10000L));
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		if(writerThread.isAlive())
+		{
+			LOGGER.warning("Job state writer did not finish flushing, " + PENDING_STATES.size() + " job states are lost");
+		}
+	}
+
+	static void markRunning(JobEntity jobEntity)
+	{
+		submit(new JobState(jobEntity.getId(), JobStatus.JOB_RUNNING.getStatus(), jobEntity.getScheduledTime(), false, false));
+	}
+
+	static void markDispatched(JobEntity jobEntity)
+	{
+		submit(new JobState(jobEntity.getId(), JobStatus.JOB_DISPATCHED.getStatus(), jobEntity.getScheduledTime(), false, false));
+	}
+
+	static void markNotRunning(JobEntity jobEntity)
+	{
+		submit(new JobState(jobEntity.getId(), JobStatus.JOB_NOT_RUNNING.getStatus(), jobEntity.getScheduledTime(), false, true));
+	}
+
+	// Deletes the job and its configuration entry
+	static void delete(long jobId)
+	{
+		submit(new JobState(jobId, JobStatus.JOB_NOT_RUNNING.getStatus(), 0L, true, false));
+	}
+
+	private static void submit(JobState jobState)
+	{
+		SUBMITTED_COUNT.increment();
+		PENDING_STATES.merge(jobState.jobId, jobState, (pendingState, newState) -> {
+			COALESCED_COUNT.increment();
+			return pendingState.isDeleted ? pendingState : newState;
+		});
+		if(!isRunning)
+		{
+			flush();
+		}
+	}
+
+	private static void run()
+	{
+		while(isRunning)
+		{
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(AppProperties.getLongProperty("job.state.flush.interval.ms", 200L)));
+			flush();
+		}
+		flush();
+		LOGGER.info("Job state writer stopped");
+	}
+
+	private static synchronized void flush()
+	{
+		if(PENDING_STATES.isEmpty())
+		{
+			return;
+		}
+
+		List<JobState> updateList = new ArrayList<>();
+		List<JobState> deleteList = new ArrayList<>();
+		for(Long jobId : PENDING_STATES.keySet())
+		{
+			JobState jobState = PENDING_STATES.remove(jobId);
+			if(Objects.nonNull(jobState))
+			{
+				(jobState.isDeleted ? deleteList : updateList).add(jobState);
+			}
+		}
+
+		String leaseOwner = Objects.isNull(jobDispatcher) ? null : jobDispatcher.getNodeId();
+		try(Connection connection = DBUtil.getIsolatedServerDBConnectionForTxn())
+		{
+			try
+			{
+				if(!updateList.isEmpty())
+				{
+					try(PreparedStatement preparedStatement = connection.prepareStatement(Objects.isNull(leaseOwner) ? UPDATE_QUERY : LEASED_UPDATE_QUERY))
+					{
+						for(JobState jobState : updateList)
+						{
+							preparedStatement.setInt(1, jobState.status);
+							preparedStatement.setLong(2, jobState.scheduledTime);
+							preparedStatement.setLong(3, jobState.jobId);
+							if(Objects.nonNull(leaseOwner))
+							{
+								preparedStatement.setString(4, leaseOwner);
+							}
+							preparedStatement.addBatch();
+						}
+						preparedStatement.executeBatch();
+					}
+				}
+
+				if(!deleteList.isEmpty())
+				{
+					deleteJobs(connection, deleteList, leaseOwner);
+				}
+
+				connection.commit();
+				WRITTEN_COUNT.add(updateList.size() + deleteList.size());
+			}
+			catch(SQLException e)
+			{
+				connection.rollback();
+				throw e;
+			}
+		}
+		catch(Exception e)
+		{
+			// Put back for the next flush unless a newer state came in meanwhile
+			FAILED_COUNT.add(updateList.size() + deleteList.size());
+			updateList.forEach(jobState -> PENDING_STATES.putIfAbsent(jobState.jobId, jobState));
+			deleteList.forEach(jobState -> PENDING_STATES.put(jobState.jobId, jobState));
+			LOGGER.log(Level.SEVERE, "Exception occurred while writing " + (updateList.size() + deleteList.size()) + " job states", e);
+			return;
+		}
+
+		if(Objects.nonNull(leaseOwner))
+		{
+			updateList.stream().filter(jobState -> jobState.isRequeued).forEach(jobState -> jobDispatcher.wakeUp(jobState.scheduledTime));
+		}
+	}
+
+	private static void deleteJobs(Connection connection, List<JobState> deleteList, String leaseOwner) throws SQLException
+	{
+		int[] deletedCounts;
+		try(PreparedStatement preparedStatement = connection.prepareStatement(Objects.isNull(leaseOwner) ? DELETE_QUERY : LEASED_DELETE_QUERY))
+		{
+			for(JobState jobState : deleteList)
+			{
+				preparedStatement.setLong(1, jobState.jobId);
+				if(Objects.nonNull(leaseOwner))
+				{
+					preparedStatement.setString(2, leaseOwner);
+				}
+				preparedStatement.addBatch();
+			}
+			deletedCounts = preparedStatement.executeBatch();
+		}
+
+		try(PreparedStatement preparedStatement = connection.prepareStatement(DELETE_CONFIGURATION_QUERY))
+		{
+			for(int i = 0; i < deletedCounts.length; i++)
+			{
+				// A job another node took over keeps its configuration
+				if(deletedCounts[i] != 0)
+				{
+					preparedStatement.setString(1, DigestUtils.sha1Hex(String.valueOf(deleteList.get(i).jobId)));
+					preparedStatement.addBatch();
+				}
+			}
+			preparedStatement.executeBatch();
+		}
+	}
+
+	static Map<String, Object> getMetrics()
+	{
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("running", isRunning);
+		metrics.put("pending_count", PENDING_STATES.size());
+		metrics.put("submitted_count", SUBMITTED_COUNT.sum());
+		metrics.put("coalesced_count", COALESCED_COUNT.sum());
+		metrics.put("written_count", WRITTEN_COUNT.sum());
+		metrics.put("failed_count", FAILED_COUNT.sum());
+		return metrics;
+	}
+}
@@ -7,39 +7,44 @@ import java.util.logging.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.server.framework.common.AppProperties;
 import com.server.framework.common.DateUtil;
 import com.server.framework.entity.JobEntity;
 import com.server.framework.job.JobStatus;
 import com.server.framework.job.Task;
 import com.server.framework.job.TaskEnum;
-import com.server.framework.repository.JobRepository;
+import com.server.framework.job.TaskLimiter;
 
 @Component
 public class JobWrapper
 {
 	@Autowired
 	private JobService jobService;
-	@Autowired
-	private JobRepository jobRepository;
 
 	private static final Logger LOGGER = Logger.getLogger(JobWrapper.class.getName());
 
 	void executeJob(JobEntity jobEntity)
+	{
+		TaskLimiter.execute(jobEntity.getTaskName(), jobEntity.getId(), jobEntity.getScheduledTime(), () -> runJob(jobEntity));
+	}
+
+	// Returns whether the task ran without an exception
+	private boolean runJob(JobEntity jobEntity)
 	{
 
 		LOGGER.info("Executing job: " + jobEntity.getId() + " - " + jobEntity.getTaskName());
 		Task task = null;
+		boolean isSucceeded = false;
 
 		try
 		{
 			jobEntity.setStatus(JobStatus.JOB_RUNNING);
-			jobRepository.save(jobEntity);
+			JobStateWriter.markRunning(jobEntity);
 
 			task = TaskEnum.getTaskInstance(jobEntity.getTaskName());
 			task.run(jobEntity.getId());
 
 			LOGGER.info("Job " + jobEntity.getId() + " executed successfully");
+			isSucceeded = true;
 		}
 		catch(Exception e)
 		{
@@ -49,28 +54,23 @@ public class JobWrapper
 		{
 			handleJobCompletion(task, jobEntity);
 		}
+		return isSucceeded;
 	}
 
 	private void handleJobCompletion(Task task, JobEntity jobEntity)
 	{
 		try
 		{
-			jobEntity.setStatus(JobStatus.JOB_NOT_RUNNING);
-			jobRepository.save(jobEntity);
-
+			// The next run time goes in the same write that sets the job not running, otherwise a poll in between claims the finished run again
 			if(Boolean.TRUE.equals(jobEntity.getIsRecurring()) && jobEntity.getDayInterval() != null && jobEntity.getDayInterval() > 0)
 			{
 				long nextExecutionTime = jobService.getNextExecutionTimeFromPreviousScheduleTime(jobEntity.getScheduledTime(), jobEntity.getDayInterval());
 
-				jobService.updateNextExecutionTime(jobEntity.getId(), nextExecutionTime);
+				jobEntity.setScheduledTime(nextExecutionTime);
+				jobService.requeueJob(jobEntity);
 
 				LOGGER.info("Recurring job " + jobEntity.getId() + " rescheduled for: " + new java.util.Date(nextExecutionTime));
 
-				if(!AppProperties.getBoolean("job.dispatcher.enabled"))
-				{
-					jobService.scheduleJob(jobEntity);
-				}
-
 				return;
 			}
 
@@ -78,18 +78,14 @@ public class JobWrapper
 			{
 				long nextExecutionTime = DateUtil.getCurrentTimeInMillis() + task.getDelayBeforeAddJobAgain();
 
-				jobService.updateNextExecutionTime(jobEntity.getId(), nextExecutionTime);
+				jobEntity.setScheduledTime(nextExecutionTime);
+				jobService.requeueJob(jobEntity);
 
 				LOGGER.info("Job " + jobEntity.getId() + " rescheduled for: " + DateUtil.getFormattedTime(nextExecutionTime, DateUtil.DATE_WITH_TIME_SECONDS_FORMAT));
-
-				if(!AppProperties.getBoolean("job.dispatcher.enabled"))
-				{
-					jobService.scheduleJob(jobEntity);
-				}
 			}
 			else
 			{
-				jobService.deleteJob(jobEntity.getId());
+				JobStateWriter.delete(jobEntity.getId());
 				LOGGER.info("One-time job " + jobEntity.getId() + " completed and deleted");
 			}
 
@@ -5,6 +5,7 @@ import com.server.framework.entity.SessionManagementEntity;
 import com.server.framework.entity.UserEntity;
 import com.server.framework.repository.SessionManagementRepository;
 import com.server.framework.repository.UserRepository;
+import com.server.framework.security.AuthCache;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +36,11 @@ public class LoginService {
         sessionManagementRepository.save(sm);
     }
 
+    public void deleteSession(String sessionId) {
+        sessionManagementRepository.deleteBySessionId(sessionId);
+        AuthCache.invalidateSession(sessionId);
+    }
+
     public void deleteExpiredSessions() {
         long now = DateUtil.getCurrentTimeInMillis();
         sessionManagementRepository.deleteExpiredSessions(now);
@@ -2,6 +2,7 @@ package com.server.framework.service;
 
 import com.server.framework.entity.SessionManagementEntity;
 import com.server.framework.repository.SessionManagementRepository;
+import com.server.framework.security.AuthCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -46,10 +47,12 @@ public class SessionManagementService {
     
     public void deleteByUserId(Long userId) {
         sessionManagementRepository.deleteByUserId(userId);
+        AuthCache.invalidateUser(userId);
     }
     
     public void deleteBySessionId(String sessionId) {
         sessionManagementRepository.deleteBySessionId(sessionId);
+        AuthCache.invalidateSession(sessionId);
     }
     
     public void deleteExpiredSessions(Long currentTime) {
@@ -6,6 +6,7 @@ import com.server.framework.entity.UserEntity;
 import com.server.framework.repository.AuthTokenRepository;
 import com.server.framework.repository.SessionManagementRepository;
 import com.server.framework.repository.UserRepository;
+import com.server.framework.security.AuthCache;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,8 +26,11 @@ public class UserService {
     @Autowired
     private SessionManagementRepository sessionRepository;
 
+    // Exact matches use the Name index, only differently cased names need the case insensitive query
     public Optional<UserEntity> findByName(String name) {
-        return userRepository.findAll().stream().filter(u -> name != null && name.equalsIgnoreCase(u.getName())).findFirst();
+        if (name == null) return Optional.empty();
+        Optional<UserEntity> userEntity = userRepository.findFirstByName(name);
+        return userEntity.isPresent() ? userEntity : userRepository.findFirstByNameIgnoreCase(name);
     }
 
     public Optional<UserEntity> findByToken(String token) {
@@ -57,10 +61,13 @@ public class UserService {
         userEntity.setName(name);
         userEntity.setPassword(DigestUtils.sha256Hex(password.trim()));
         userEntity.setRoleType(role);
-        return userRepository.save(userEntity);
+        userEntity = userRepository.save(userEntity);
+        AuthCache.invalidateUser(id);
+        return userEntity;
     }
 
     public void deleteById(Long id) {
         userRepository.deleteById(id);
+        AuthCache.invalidateUser(id);
     }
 }
@@ -9,6 +9,7 @@ import java.util.Map;
 import com.server.framework.service.UserService;
 import com.server.framework.dto.UserDto;
 import com.server.framework.builder.ApiResponseBuilder;
+import com.server.framework.security.AuthCache;
 
 @RestController
 @RequestMapping("/api/v1/admin/users")
@@ -34,4 +35,9 @@ public class UserController
 		}
 	}
 
+	@GetMapping("/auth/cache/metrics")
+	public ResponseEntity<Map<String, Object>> getAuthCacheMetrics()
+	{
+		return ResponseEntity.ok(ApiResponseBuilder.success("Auth cache metrics retrieved successfully", AuthCache.getMetrics()));
+	}
 }
@@ -0,0 +1,129 @@
+package com.server.framework.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RingBufferTest
+{
+	@Test
+	void roundsCapacityUpToPowerOfTwo()
+	{
+		assertEquals(4, new RingBuffer<Integer>(1).capacity());
+		assertEquals(8, new RingBuffer<Integer>(5).capacity());
+		assertEquals(8, new RingBuffer<Integer>(8).capacity());
+		assertEquals(1024, new RingBuffer<Integer>(1000).capacity());
+	}
+
+	@Test
+	void rejectsOfferWhenFull()
+	{
+		RingBuffer<Integer> ringBuffer = new RingBuffer<>(4);
+		for(int i = 0; i < 4; i++)
+		{
+			assertTrue(ringBuffer.offer(i));
+		}
+		assertFalse(ringBuffer.offer(4));
+		assertEquals(4, ringBuffer.size());
+
+		assertEquals(0, ringBuffer.poll());
+		assertTrue(ringBuffer.offer(4));
+		assertFalse(ringBuffer.offer(5));
+	}
+
+	// Fills of varying size so that the head and tail cross the end of the array at every offset, for many laps
+	@Test
+	void keepsOrderAcrossWrapAround()
+	{
+		RingBuffer<Integer> ringBuffer = new RingBuffer<>(8);
+		int nextOffered = 0;
+		int nextPolled = 0;
+
+		for(int round = 0; round < 10000; round++)
+		{
+			int offerCount = 1 + round % 8;
+			for(int i = 0; i < offerCount && ringBuffer.offer(nextOffered); i++)
+			{
+				nextOffered++;
+			}
+			assertEquals(nextOffered - nextPolled, ringBuffer.size());
+
+			int pollCount = 1 + (round * 5) % 8;
+			for(int i = 0; i < pollCount; i++)
+			{
+				Integer element = ringBuffer.poll();
+				if(element == null)
+				{
+					break;
+				}
+				assertEquals(nextPolled++, element);
+			}
+		}
+
+		Integer element;
+		while((element = ringBuffer.poll()) != null)
+		{
+			assertEquals(nextPolled++, element);
+		}
+		assertEquals(nextOffered, nextPolled);
+		assertEquals(0, ringBuffer.size());
+		assertNull(ringBuffer.poll());
+	}
+
+	@Test
+	void deliversEveryElementFromConcurrentProducers() throws Exception
+	{
+		int producerCount = 4;
+		int elementsPerProducer = 100000;
+		RingBuffer<Long> ringBuffer = new RingBuffer<>(64);
+
+		List<Thread> producers = new ArrayList<>();
+		for(int producer = 0; producer < producerCount; producer++)
+		{
+			long producerId = producer;
+			Thread thread = new Thread(() -> {
+				for(long sequence = 0; sequence < elementsPerProducer; sequence++)
+				{
+					while(!ringBuffer.offer((producerId << 32) | sequence))
+					{
+						Thread.yield();
+					}
+				}
+			});
+			thread.start();
+			producers.add(thread);
+		}
+
+		// Elements of one producer have to come out in the order it offered them
+		long[] nextSequences = new long[producerCount];
+		int receivedCount = 0;
+		while(receivedCount < producerCount * elementsPerProducer)
+		{
+			Long element = ringBuffer.poll();
+			if(element == null)
+			{
+				Thread.yield();
+				continue;
+			}
+			int producerId = (int) (element >>> 32);
+			assertEquals(nextSequences[producerId]++, element & 0xFFFFFFFFL);
+			receivedCount++;
+		}
+
+		for(Thread producer : producers)
+		{
+			producer.join();
+		}
+		for(long nextSequence : nextSequences)
+		{
+			assertEquals(elementsPerProducer, nextSequence);
+		}
+		assertNull(ringBuffer.poll());
+	}
+}
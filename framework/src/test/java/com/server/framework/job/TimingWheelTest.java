@@ -0,0 +1,129 @@
+package com.server.framework.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// A 1 ms tick keeps level 0 at 512 ms, so timers further out start on level 1 and have to cascade down before they fire
+class TimingWheelTest
+{
+	private TimingWheel timingWheel;
+
+	@BeforeEach
+	void setUp()
+	{
+		timingWheel = new TimingWheel("timing-wheel-test", 1L, TimingWheel.newWorkerPool("timing-wheel-test", 1, false));
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		timingWheel.shutdown();
+	}
+
+	@Test
+	void runsTimerNotBeforeItsDelay() throws Exception
+	{
+		CountDownLatch latch = new CountDownLatch(1);
+		long startTime = System.nanoTime();
+		TimingWheel.TimerHandle timerHandle = timingWheel.schedule(latch::countDown, 30L);
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(30L));
+		assertTrue(timerHandle.isExpired());
+		assertFalse(timerHandle.cancel());
+	}
+
+	@Test
+	void runsPastDeadlineOnNextTick() throws Exception
+	{
+		CountDownLatch latch = new CountDownLatch(1);
+		timingWheel.schedule(latch::countDown, -10L);
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void cascadesTimersInDeadlineOrder() throws Exception
+	{
+		long[] delays = {1100L, 300L, 700L, 520L};
+		List<Long> firedDelays = Collections.synchronizedList(new ArrayList<>());
+		List<Long> lateness = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch latch = new CountDownLatch(delays.length);
+
+		long startTime = System.nanoTime();
+		for(long delay : delays)
+		{
+			timingWheel.schedule(() -> {
+				firedDelays.add(delay);
+				lateness.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) - delay);
+				latch.countDown();
+			}, delay);
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(List.of(300L, 520L, 700L, 1100L), firedDelays);
+		for(long late : lateness)
+		{
+			assertTrue(late >= 0, "Timer fired " + -late + " ms early");
+		}
+	}
+
+	@Test
+	void cancelledTimersNeverRun() throws Exception
+	{
+		AtomicInteger runCount = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(50);
+		List<TimingWheel.TimerHandle> timerHandles = new ArrayList<>();
+		for(int i = 0; i < 100; i++)
+		{
+			timerHandles.add(timingWheel.schedule(() -> {
+				runCount.incrementAndGet();
+				latch.countDown();
+			}, 50L));
+		}
+		for(int i = 0; i < 100; i += 2)
+		{
+			assertTrue(timerHandles.get(i).cancel());
+			assertTrue(timerHandles.get(i).isCancelled());
+			assertFalse(timerHandles.get(i).cancel());
+		}
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		Thread.sleep(100L);
+		assertEquals(50, runCount.get());
+
+		Map<String, Object> metrics = timingWheel.getMetrics();
+		assertEquals(0L, metrics.get("pending_count"));
+		assertEquals(50L, metrics.get("expired_count"));
+		assertEquals(50L, metrics.get("cancelled_count"));
+	}
+
+	@Test
+	void cancelsTimerAfterItCascaded() throws Exception
+	{
+		AtomicInteger runCount = new AtomicInteger();
+		TimingWheel.TimerHandle cancelledHandle = timingWheel.schedule(runCount::incrementAndGet, 700L);
+		CountDownLatch latch = new CountDownLatch(1);
+		timingWheel.schedule(latch::countDown, 900L);
+
+		// By now the level 1 slot holding both timers has cascaded to level 0
+		Thread.sleep(600L);
+		assertTrue(cancelledHandle.cancel());
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(0, runCount.get());
+		assertFalse(cancelledHandle.isExpired());
+	}
+}
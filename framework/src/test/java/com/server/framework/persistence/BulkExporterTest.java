@@ -0,0 +1,80 @@
+package com.server.framework.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.server.framework.common.AppProperties;
+
+// Exports with more than one thread, so the COUNT/MIN/MAX stats query and the partition boundaries are exercised
+class BulkExporterTest
+{
+	private static final int ROW_COUNT = 1000;
+
+	@BeforeAll
+	static void setUp() throws Exception
+	{
+		TestDatabase.start();
+		AppProperties.updateProperty("db.access.export.partition.min.rows", "100");
+		TestDatabase.execute("CREATE TABLE IF NOT EXISTS ExportedRow (Id BIGINT PRIMARY KEY, Name VARCHAR(100))",
+			"TRUNCATE TABLE ExportedRow",
+			"INSERT INTO ExportedRow SELECT X, CONCAT('row-', X) FROM SYSTEM_RANGE(1, " + ROW_COUNT + ")",
+			"CREATE TABLE IF NOT EXISTS ExportedCode (Code VARCHAR(20) PRIMARY KEY, Amount BIGINT)",
+			"TRUNCATE TABLE ExportedCode",
+			"INSERT INTO ExportedCode SELECT CONCAT('code-', LPAD(CAST(X AS VARCHAR), 5, '0')), X FROM SYSTEM_RANGE(1, " + ROW_COUNT + ")");
+	}
+
+	@Test
+	void mergesIntegralKeyPartitions() throws Exception
+	{
+		Path outputPath = Files.createTempDirectory("bulk-export").resolve("rows.csv");
+		Map<String, Object> result = BulkExporter.export(new SelectQuery("ExportedRow"), BulkExporter.Format.CSV, outputPath, true, 4);
+
+		assertTrue((int) result.get("partition_count") > 1);
+		assertEquals((long) ROW_COUNT, result.get("row_count"));
+
+		List<String> lineList = Files.readAllLines(outputPath);
+		assertEquals("Id,Name", lineList.get(0));
+		assertEquals(ROW_COUNT + 1, lineList.size());
+		List<String> expectedLineList = IntStream.rangeClosed(1, ROW_COUNT).mapToObj(id -> id + ",row-" + id).collect(Collectors.toList());
+		assertEquals(expectedLineList, lineList.subList(1, lineList.size()).stream().sorted((first, second) -> Long.compare(Long.parseLong(first.split(",")[0]), Long.parseLong(second.split(",")[0]))).collect(Collectors.toList()));
+	}
+
+	@Test
+	void listsKeysetPartitionsInManifest() throws Exception
+	{
+		Path outputPath = Files.createTempDirectory("bulk-export").resolve("codes.ndjson");
+		Map<String, Object> result = BulkExporter.export(new SelectQuery("ExportedCode"), BulkExporter.Format.NDJSON, outputPath, false, 4);
+
+		JSONArray partArray = new JSONObject(Files.readString(outputPath)).getJSONArray("parts");
+		assertTrue(partArray.length() > 1);
+		assertEquals(result.get("partition_count"), partArray.length());
+
+		long rowCount = 0;
+		long amountSum = 0;
+		for(int i = 0; i < partArray.length(); i++)
+		{
+			JSONObject part = partArray.getJSONObject(i);
+			List<String> lineList = Files.readAllLines(outputPath.resolveSibling(part.getString("file")));
+			assertEquals(part.getLong("row_count"), lineList.size());
+			rowCount += lineList.size();
+			for(String line : lineList)
+			{
+				amountSum += new JSONObject(line).getLong("Amount");
+			}
+		}
+		assertEquals(ROW_COUNT, rowCount);
+		assertEquals((long) ROW_COUNT * (ROW_COUNT + 1) / 2, amountSum);
+	}
+}
@@ -0,0 +1,98 @@
+package com.server.framework.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Enough rows for getRows(Criteria) to go through the indexes; every result is compared with a scan of the same rows
+class DataObjectIndexTest
+{
+	// Above DataObjectIndex.MIN_INDEXED_ROW_COUNT and a multiple of three
+	private static final int ROW_COUNT = 60;
+
+	@BeforeAll
+	static void setUp() throws Exception
+	{
+		TestDatabase.start();
+		TestDatabase.execute("CREATE TABLE IF NOT EXISTS IndexedRow (Id BIGINT PRIMARY KEY, Status VARCHAR(20))");
+	}
+
+	@Test
+	void inListHoldingNullMatchesUnsetValues()
+	{
+		DataObject dataObject = newDataObject();
+		Criteria criteria = new Criteria("IndexedRow", "Status", Arrays.asList("open", null), Criteria.Constants.IN);
+
+		List<Row> rowList = dataObject.getRows(criteria);
+		assertEquals(scan(dataObject, criteria), rowList);
+		assertEquals(ROW_COUNT * 2 / 3, rowList.size());
+	}
+
+	@Test
+	void changesAfterIndexingAreSeen()
+	{
+		DataObject dataObject = newDataObject();
+		Criteria criteria = new Criteria("IndexedRow", "Status", "closed", Criteria.Constants.EQUAL);
+		int closedCount = dataObject.getRows(criteria).size();
+
+		dataObject.getRows().get(0).set("Status", "closed");
+		assertEquals(closedCount + 1, dataObject.getRows(criteria).size());
+
+		dataObject.getRows().get(0).getRowMap().put("IndexedRow.Status", "open");
+		assertEquals(closedCount, dataObject.getRows(criteria).size());
+		assertEquals(scan(dataObject, criteria), dataObject.getRows(criteria));
+	}
+
+	@Test
+	void changesToSharedRowsAreSeenByEveryDataObject()
+	{
+		DataObject firstDataObject = newDataObject();
+		DataObject secondDataObject = new DataObject();
+		for(Row row : firstDataObject.getRows())
+		{
+			secondDataObject.addRow(row);
+		}
+
+		Criteria criteria = new Criteria("IndexedRow", "Status", "open", Criteria.Constants.EQUAL);
+		int openCount = secondDataObject.getRows(criteria).size();
+
+		firstDataObject.getRows().get(1).set("Status", "open");
+		assertEquals(openCount + 1, secondDataObject.getRows(criteria).size());
+		assertEquals(openCount + 1, firstDataObject.getRows(criteria).size());
+	}
+
+	// Status cycles through open, closed and unset
+	private static DataObject newDataObject()
+	{
+		DataObject dataObject = new DataObject();
+		for(int i = 0; i < ROW_COUNT; i++)
+		{
+			Row row = new Row("IndexedRow");
+			row.set("Id", (long) i);
+			if(i % 3 != 2)
+			{
+				row.set("Status", i % 3 == 0 ? "open" : "closed");
+			}
+			dataObject.addRow(row);
+		}
+		return dataObject;
+	}
+
+	private static List<Row> scan(DataObject dataObject, Criteria criteria)
+	{
+		List<Row> rowList = new ArrayList<>();
+		for(Row row : dataObject.getRows())
+		{
+			if(criteria.matches(row))
+			{
+				rowList.add(row);
+			}
+		}
+		return rowList;
+	}
+}
@@ -0,0 +1,145 @@
+package com.server.framework.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.server.framework.common.AppProperties;
+
+// Delete plans are built from the query tree alone, so the fingerprint and bind order checks need no database
+class QueryPlanCacheTest
+{
+	private static final String CACHE_SIZE_KEY = "db.access.query.plan.cache.size";
+
+	@BeforeEach
+	void setUp()
+	{
+		AppProperties.updateProperty(CACHE_SIZE_KEY, "1000");
+		QueryPlanCache.clear();
+	}
+
+	@AfterEach
+	void tearDown()
+	{
+		QueryPlanCache.clear();
+	}
+
+	@Test
+	void sameShapeSharesPlanAndBindsOwnValues()
+	{
+		List<Object> firstPlaceHolderList = new ArrayList<>();
+		QueryPlan firstPlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 1L, Criteria.Constants.EQUAL), firstPlaceHolderList);
+
+		List<Object> secondPlaceHolderList = new ArrayList<>();
+		QueryPlan secondPlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 2L, Criteria.Constants.EQUAL), secondPlaceHolderList);
+
+		assertSame(firstPlan, secondPlan);
+		assertEquals(List.of(1L), firstPlaceHolderList);
+		assertEquals(List.of(2L), secondPlaceHolderList);
+	}
+
+	@Test
+	void differentShapeGetsOwnPlan()
+	{
+		QueryPlan equalPlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 1L, Criteria.Constants.EQUAL), new ArrayList<>());
+		QueryPlan notEqualPlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 1L, Criteria.Constants.NOT_EQUAL), new ArrayList<>());
+		QueryPlan otherColumnPlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Status", 1L, Criteria.Constants.EQUAL), new ArrayList<>());
+		QueryPlan otherTablePlan = QueryPlanCache.getDeletePlan("Task", new Criteria("Task", "Id", 1L, Criteria.Constants.EQUAL), new ArrayList<>());
+		QueryPlan orPlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 1L, Criteria.Constants.EQUAL).or(new Criteria("Job", "Id", 2L, Criteria.Constants.EQUAL)), new ArrayList<>());
+		QueryPlan andPlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 1L, Criteria.Constants.EQUAL).and(new Criteria("Job", "Id", 2L, Criteria.Constants.EQUAL)), new ArrayList<>());
+
+		List<QueryPlan> queryPlanList = List.of(equalPlan, notEqualPlan, otherColumnPlan, otherTablePlan, orPlan, andPlan);
+		assertEquals(queryPlanList.size(), queryPlanList.stream().map(QueryPlan::getFingerprint).distinct().count());
+		assertNotEquals(orPlan.getSql(), andPlan.getSql());
+	}
+
+	@Test
+	void planMatchesGeneratedSqlAndBindOrder()
+	{
+		Criteria criteria = new Criteria("Job", "Status", 3, Criteria.Constants.EQUAL)
+			.and(new Criteria("Job", "Id", Arrays.asList(10L, 11L, 12L), Criteria.Constants.IN))
+			.or(new Criteria("Job", "ScheduledTime", 500L, Criteria.Constants.LESS_THAN));
+
+		List<Object> expectedPlaceHolderList = new ArrayList<>();
+		String expectedSql = DataAccessUtil.getDeleteQueryString("Job", criteria, expectedPlaceHolderList);
+
+		List<Object> placeHolderList = new ArrayList<>();
+		QueryPlan queryPlan = QueryPlanCache.getDeletePlan("Job", criteria, placeHolderList);
+		assertEquals(expectedSql, queryPlan.getSql());
+		assertEquals(expectedPlaceHolderList, placeHolderList);
+		assertEquals(List.of(3, 10L, 11L, 12L, 12L, 500L), placeHolderList);
+
+		// Served from the cache, the values are still collected in SQL order
+		List<Object> cachedPlaceHolderList = new ArrayList<>();
+		assertSame(queryPlan, QueryPlanCache.getDeletePlan("Job", criteria, cachedPlaceHolderList));
+		assertEquals(expectedPlaceHolderList, cachedPlaceHolderList);
+	}
+
+	@Test
+	void inListsOfSimilarSizeShareBucket()
+	{
+		QueryPlan threeValuePlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", List.of(1L, 2L, 3L), Criteria.Constants.IN), new ArrayList<>());
+		QueryPlan fourValuePlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", List.of(1L, 2L, 3L, 4L), Criteria.Constants.IN), new ArrayList<>());
+
+		List<Object> placeHolderList = new ArrayList<>();
+		QueryPlan fiveValuePlan = QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", List.of(1L, 2L, 3L, 4L, 5L), Criteria.Constants.IN), placeHolderList);
+
+		assertSame(threeValuePlan, fourValuePlan);
+		assertNotSame(fourValuePlan, fiveValuePlan);
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 5L, 5L, 5L), placeHolderList);
+	}
+
+	@Test
+	void bucketedListPadsToNextPowerOfTwo()
+	{
+		List<Long> singleValueList = List.of(7L);
+		List<Long> powerOfTwoList = List.of(1L, 2L, 3L, 4L);
+		List<Long> oversizedList = Collections.nCopies(1025, 1L);
+
+		assertSame(singleValueList, QueryPlanCache.getBucketedList(singleValueList));
+		assertSame(powerOfTwoList, QueryPlanCache.getBucketedList(powerOfTwoList));
+		assertSame(oversizedList, QueryPlanCache.getBucketedList(oversizedList));
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 6L, 6L), QueryPlanCache.getBucketedList(List.of(1L, 2L, 3L, 4L, 5L, 6L)));
+		assertEquals(1024, QueryPlanCache.getBucketedList(Collections.nCopies(513, 1L)).size());
+	}
+
+	@Test
+	void countsHitsAndMisses()
+	{
+		long hitCount = (long) QueryPlanCache.getMetrics().get("hit_count");
+		long missCount = (long) QueryPlanCache.getMetrics().get("miss_count");
+
+		QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 1L, Criteria.Constants.EQUAL), new ArrayList<>());
+		QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 2L, Criteria.Constants.EQUAL), new ArrayList<>());
+		QueryPlanCache.getDeletePlan("Job", new Criteria("Job", "Id", 3L, Criteria.Constants.EQUAL), new ArrayList<>());
+
+		assertEquals(hitCount + 2, QueryPlanCache.getMetrics().get("hit_count"));
+		assertEquals(missCount + 1, QueryPlanCache.getMetrics().get("miss_count"));
+		assertEquals(1, QueryPlanCache.getMetrics().get("size"));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedPlan()
+	{
+		AppProperties.updateProperty(CACHE_SIZE_KEY, "2");
+
+		QueryPlan jobPlan = QueryPlanCache.getDeletePlan("Job", null, new ArrayList<>());
+		QueryPlan taskPlan = QueryPlanCache.getDeletePlan("Task", null, new ArrayList<>());
+		assertSame(jobPlan, QueryPlanCache.getDeletePlan("Job", null, new ArrayList<>()));
+		QueryPlanCache.getDeletePlan("Account", null, new ArrayList<>());
+
+		assertEquals(2, QueryPlanCache.getMetrics().get("size"));
+		assertSame(jobPlan, QueryPlanCache.getDeletePlan("Job", null, new ArrayList<>()));
+		assertNotSame(taskPlan, QueryPlanCache.getDeletePlan("Task", null, new ArrayList<>()));
+	}
+}
@@ -0,0 +1,62 @@
+package com.server.framework.persistence;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.server.framework.common.AppProperties;
+
+// In-memory H2 database for tests which go through DataAccess. Spring is not started: AppProperties is handed a plain environment holding
+// the datasource keys, every other setting keeps its default and can be overridden with AppProperties.updateProperty.
+final class TestDatabase
+{
+	private static final String JDBC_URL = "jdbc:h2:mem:framework-test;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=FALSE";
+
+	private static boolean isStarted;
+
+	private TestDatabase()
+	{
+	}
+
+	static synchronized void start() throws Exception
+	{
+		if(isStarted)
+		{
+			return;
+		}
+
+		Map<String, Object> propertyMap = new HashMap<>();
+		propertyMap.put("spring.datasource.url", JDBC_URL);
+		propertyMap.put("spring.datasource.username", "sa");
+		propertyMap.put("spring.datasource.password", "");
+
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new MapPropertySource("test", propertyMap));
+
+		AppProperties appProperties = new AppProperties();
+		Field envField = AppProperties.class.getDeclaredField("env");
+		envField.setAccessible(true);
+		envField.set(appProperties, environment);
+		appProperties.init();
+
+		execute("CREATE TABLE IF NOT EXISTS BatchTable (AccountId BIGINT PRIMARY KEY, BatchStart BIGINT NOT NULL)");
+		isStarted = true;
+	}
+
+	static void execute(String... sqls) throws Exception
+	{
+		try(Connection connection = DriverManager.getConnection(JDBC_URL, "sa", ""); Statement statement = connection.createStatement())
+		{
+			for(String sql : sqls)
+			{
+				statement.execute(sql);
+			}
+		}
+	}
+}
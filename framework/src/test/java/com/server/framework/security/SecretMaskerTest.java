@@ -0,0 +1,72 @@
+package com.server.framework.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SecretMaskerTest
+{
+	private static final List<String> KEYS = List.of("access_token", "refresh_token", "token", "authtoken", "client_id", "client_secret", "secret", "Authorization");
+
+	// HttpLogService.getMasked before SecretMasker
+	private static final String OLD_MASK_REGEX = "(?i)([\"']?(access_token|refresh_token|token|authtoken|client_id|client_secret|secret|Authorization)[\"']?)\\s*([:=])\\s*([\"'])?([A-Za-z0-9\\-._~+/=]+)([\"'])?";
+	private static final String OLD_MASK_REPLACEMENT = "$1$3\"********\"";
+
+	private final SecretMasker secretMasker = new SecretMasker(KEYS);
+
+	@Test
+	void masksWholeJSONStringValue()
+	{
+		assertEquals("{\"access_token\":\"********\",\"user\":\"bob\"}", secretMasker.mask("{\"access_token\":\"abc.def\",\"user\":\"bob\"}"));
+		// The old regex stopped at the first character outside its token class and left the rest of the value in the log
+		assertEquals("{\"token\" : \"********\"}", secretMasker.mask("{\"token\" : \"Bearer a\\\"b c\"}"));
+	}
+
+	@Test
+	void matchesKeysCaseInsensitivelyAndAsSuffix()
+	{
+		assertEquals("{\"X_Auth_Token\":\"********\"}", secretMasker.mask("{\"X_Auth_Token\":\"v1\"}"));
+		assertEquals("{\"AUTHORIZATION\":\"********\"}", secretMasker.mask("{\"AUTHORIZATION\":\"Basic dXNlcg==\"}"));
+	}
+
+	@Test
+	void masksNumbersAndBooleansButNotNull()
+	{
+		assertEquals("{\"client_secret\":\"********\",\"n\":1}", secretMasker.mask("{\"client_secret\":12345,\"n\":1}"));
+		assertEquals("{\"client_secret\":\"********\"}", secretMasker.mask("{\"client_secret\":true}"));
+
+		String nullValue = "{\"token\":null}";
+		assertSame(nullValue, secretMasker.mask(nullValue));
+	}
+
+	@Test
+	void scansIntoNestedObjectsAndArrays()
+	{
+		assertEquals("{\"token\":{\"access_token\":\"********\",\"id\":1}}", secretMasker.mask("{\"token\":{\"access_token\":\"x\",\"id\":1}}"));
+		assertEquals("[{\"名前\":\"値\",\"token\":\"********\"}]", secretMasker.mask("[{\"名前\":\"値\",\"token\":\"y\"}]"));
+	}
+
+	@Test
+	void leavesTextWithoutSecretsUntouched()
+	{
+		for(String text : List.of("{\"note\":\"token\"}", "{\"token\":\"abc", "nothing to see", "token=", ""))
+		{
+			assertSame(text, secretMasker.mask(text));
+		}
+	}
+
+	@Test
+	void masksKeyValueTextLikeOldRegex()
+	{
+		for(String text : List.of("grant_type=password&client_secret=s3cr3t&scope=read", "access_token=abc123&refresh_token=def456", "client_id='42' secret=\"s\"", "token=", "nothing to see"))
+		{
+			assertEquals(text.replaceAll(OLD_MASK_REGEX, OLD_MASK_REPLACEMENT), secretMasker.mask(text));
+		}
+		assertEquals("grant_type=password&client_secret=\"********\"&scope=read", secretMasker.mask("grant_type=password&client_secret=s3cr3t&scope=read"));
+		// Whitespace around the separator is kept, the old regex dropped it
+		assertEquals("Authorization: \"********\" abc", secretMasker.mask("Authorization: Bearer abc"));
+	}
+}
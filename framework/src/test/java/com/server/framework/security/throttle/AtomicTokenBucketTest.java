@@ -0,0 +1,123 @@
+package com.server.framework.security.throttle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class AtomicTokenBucketTest
+{
+	// Packs a refill time (millis since creation) and a token count the way the bucket keeps them
+	private static long state(long refillTime, long tokens)
+	{
+		return (refillTime << 24) | tokens;
+	}
+
+	@Test
+	void refillsWholeIntervalsOnly()
+	{
+		AtomicTokenBucket tokenBucket = new AtomicTokenBucket(10, 2, 100);
+
+		assertEquals(state(0, 0), tokenBucket.refill(state(0, 0), 99));
+		assertEquals(state(100, 2), tokenBucket.refill(state(0, 0), 100));
+		// The 50 ms past the last whole interval count towards the next one
+		assertEquals(state(300, 9), tokenBucket.refill(state(0, 3), 350));
+		assertEquals(state(400, 10), tokenBucket.refill(state(300, 9), 499));
+	}
+
+	@Test
+	void refillStopsAtCapacity()
+	{
+		AtomicTokenBucket tokenBucket = new AtomicTokenBucket(10, 2, 100);
+
+		assertEquals(state(500, 10), tokenBucket.refill(state(0, 9), 500));
+		assertEquals(state(1000, 10), tokenBucket.refill(state(0, 0), 1000));
+		assertEquals(state(TimeUnit.DAYS.toMillis(1000), 10), tokenBucket.refill(state(0, 0), TimeUnit.DAYS.toMillis(1000)));
+	}
+
+	@Test
+	void ignoresClockGoingBackwards()
+	{
+		AtomicTokenBucket tokenBucket = new AtomicTokenBucket(10, 2, 100);
+		assertEquals(state(500, 4), tokenBucket.refill(state(500, 4), 400));
+	}
+
+	@Test
+	void startsFullAndDrains()
+	{
+		AtomicTokenBucket tokenBucket = new AtomicTokenBucket(5, 1, TimeUnit.HOURS.toMillis(1));
+		assertEquals(5, tokenBucket.remainingTokens());
+		for(int i = 0; i < 5; i++)
+		{
+			assertTrue(tokenBucket.tryAcquire());
+		}
+		assertFalse(tokenBucket.tryAcquire());
+		assertEquals(0, tokenBucket.remainingTokens());
+	}
+
+	@Test
+	void refillsOverTime() throws Exception
+	{
+		AtomicTokenBucket tokenBucket = new AtomicTokenBucket(2, 2, 50);
+		assertTrue(tokenBucket.tryAcquire());
+		assertTrue(tokenBucket.tryAcquire());
+		assertFalse(tokenBucket.tryAcquire());
+
+		Thread.sleep(120);
+		assertEquals(2, tokenBucket.remainingTokens());
+		assertTrue(tokenBucket.tryAcquire());
+	}
+
+	@Test
+	void consumeNeverGoesBelowZero()
+	{
+		AtomicTokenBucket tokenBucket = new AtomicTokenBucket(10, 1, TimeUnit.HOURS.toMillis(1));
+		tokenBucket.consume(4);
+		assertEquals(6, tokenBucket.remainingTokens());
+		tokenBucket.consume(100);
+		assertEquals(0, tokenBucket.remainingTokens());
+		assertFalse(tokenBucket.tryAcquire());
+	}
+
+	@Test
+	void capsCapacityAtTokenBits()
+	{
+		assertEquals((1L << 24) - 1, new AtomicTokenBucket(1L << 30, 1L << 30, 1000).capacity());
+	}
+
+	@Test
+	void grantsExactlyCapacityUnderContention() throws Exception
+	{
+		AtomicTokenBucket tokenBucket = new AtomicTokenBucket(1000, 1, TimeUnit.HOURS.toMillis(1));
+		AtomicInteger acquiredCount = new AtomicInteger();
+
+		List<Thread> threads = new ArrayList<>();
+		for(int i = 0; i < 8; i++)
+		{
+			Thread thread = new Thread(() -> {
+				for(int j = 0; j < 1000; j++)
+				{
+					if(tokenBucket.tryAcquire())
+					{
+						acquiredCount.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertEquals(1000, acquiredCount.get());
+		assertEquals(0, tokenBucket.remainingTokens());
+	}
+}
@@ -0,0 +1,116 @@
+package com.server.framework.security.throttle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowCounterTest
+{
+	// Packs a window index and the counts of that window and the one before it the way the counter keeps them
+	private static long state(long windowIndex, long currentCount, long previousCount)
+	{
+		return (windowIndex << 32) | (currentCount << 16) | previousCount;
+	}
+
+	@Test
+	void rollKeepsStateWithinWindow()
+	{
+		assertEquals(state(3, 5, 2), SlidingWindowCounter.roll(state(3, 5, 2), 3));
+		// A thread which read the clock before another one rolled the state over must not roll it back
+		assertEquals(state(3, 5, 2), SlidingWindowCounter.roll(state(3, 5, 2), 2));
+	}
+
+	@Test
+	void rollMovesCurrentCountToPrevious()
+	{
+		assertEquals(state(4, 0, 5), SlidingWindowCounter.roll(state(3, 5, 2), 4));
+	}
+
+	@Test
+	void rollDropsCountsOlderThanOneWindow()
+	{
+		assertEquals(state(5, 0, 0), SlidingWindowCounter.roll(state(3, 5, 2), 5));
+		assertEquals(state(1000, 0, 0), SlidingWindowCounter.roll(state(3, 5, 2), 1000));
+	}
+
+	@Test
+	void weightsPreviousWindowByRemainingOverlap()
+	{
+		SlidingWindowCounter slidingWindowCounter = new SlidingWindowCounter(10, 1000);
+		long rolled = state(1, 2, 8);
+
+		// Counts are scaled by the window size: 8 previous requests, all of which still overlap the sliding window, plus 2 current ones
+		assertEquals(10 * 1000, slidingWindowCounter.weightedCount(rolled, 1000));
+		assertEquals(8 * 750 + 2 * 1000, slidingWindowCounter.weightedCount(rolled, 1250));
+		assertEquals(8 * 1 + 2 * 1000, slidingWindowCounter.weightedCount(rolled, 1999));
+	}
+
+	@Test
+	void stopsAtMaxRequestsWithinWindow()
+	{
+		SlidingWindowCounter slidingWindowCounter = new SlidingWindowCounter(5, TimeUnit.HOURS.toMillis(1));
+		for(int i = 0; i < 5; i++)
+		{
+			assertEquals(5 - i, slidingWindowCounter.remainingTokens());
+			assertTrue(slidingWindowCounter.tryAcquire());
+		}
+		assertFalse(slidingWindowCounter.tryAcquire());
+		assertEquals(0, slidingWindowCounter.remainingTokens());
+	}
+
+	@Test
+	void consumeCountsTowardsWindow()
+	{
+		SlidingWindowCounter slidingWindowCounter = new SlidingWindowCounter(5, TimeUnit.HOURS.toMillis(1));
+		slidingWindowCounter.consume(3);
+		assertEquals(2, slidingWindowCounter.remainingTokens());
+		assertTrue(slidingWindowCounter.tryAcquire());
+		assertTrue(slidingWindowCounter.tryAcquire());
+		assertFalse(slidingWindowCounter.tryAcquire());
+
+		slidingWindowCounter.consume(1L << 20);
+		assertEquals(0, slidingWindowCounter.remainingTokens());
+	}
+
+	@Test
+	void capsMaxRequestsAtCountBits()
+	{
+		assertEquals(0xFFFFL, new SlidingWindowCounter(1L << 20, 1000).capacity());
+	}
+
+	@Test
+	void grantsExactlyMaxRequestsUnderContention() throws Exception
+	{
+		SlidingWindowCounter slidingWindowCounter = new SlidingWindowCounter(1000, TimeUnit.HOURS.toMillis(1));
+		AtomicInteger acquiredCount = new AtomicInteger();
+
+		List<Thread> threads = new ArrayList<>();
+		for(int i = 0; i < 8; i++)
+		{
+			Thread thread = new Thread(() -> {
+				for(int j = 0; j < 1000; j++)
+				{
+					if(slidingWindowCounter.tryAcquire())
+					{
+						acquiredCount.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertEquals(1000, acquiredCount.get());
+	}
+}
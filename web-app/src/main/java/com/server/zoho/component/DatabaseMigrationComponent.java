@@ -15,6 +15,7 @@ import com.server.framework.common.AppProperties;
 import com.server.framework.common.CommonService;
 import com.server.framework.entity.LockEntity;
 import com.server.framework.entity.UserEntity;
+import com.server.framework.persistence.SchemaCatalog;
 import com.server.framework.repository.LockRepository;
 import com.server.framework.service.AuthTokenService;
 import com.server.framework.service.ConfigurationService;
@@ -152,6 +153,10 @@ public class DatabaseMigrationComponent implements ApplicationRunner
 			LOGGER.severe("MIGRATION: Failed to migrate BuildMonitor table: " + e.getMessage());
 			LOGGER.log(java.util.logging.Level.SEVERE, "Exception in DatabaseMigrationComponent", e);
 		}
+		finally
+		{
+			SchemaCatalog.invalidate("BuildMonitor");
+		}
 	}
 
 	private void runMigrationForWorkFlowInstanceTable()
@@ -230,6 +235,10 @@ public class DatabaseMigrationComponent implements ApplicationRunner
 			LOGGER.severe("MIGRATION: Failed to migrate WorkflowInstance table: " + e.getMessage());
 			LOGGER.log(java.util.logging.Level.SEVERE, "Exception in DatabaseMigrationComponent", e);
 		}
+		finally
+		{
+			SchemaCatalog.invalidate("WorkflowInstance");
+		}
 	}
 
 	private void migrateBuildMonitorTable()
@@ -274,5 +283,9 @@ public class DatabaseMigrationComponent implements ApplicationRunner
 			LOGGER.severe("MIGRATION: Failed to migrate BuildMonitor table: " + e.getMessage());
 			LOGGER.log(java.util.logging.Level.SEVERE, "Exception in migrateBuildMonitorTable", e);
 		}
+		finally
+		{
+			SchemaCatalog.invalidate("BuildMonitor");
+		}
 	}
 }